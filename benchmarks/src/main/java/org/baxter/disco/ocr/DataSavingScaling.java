@@ -0,0 +1,238 @@
+package org.baxter.disco.ocr;
+
+//OpenCV imports
+import org.bytedeco.opencv.opencv_core.Mat;
+
+//Standard imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Scaling benchmark for {@link DataSaving}: how the cost of saving results
+ * changes as a run grows.
+ *
+ * For every combination of camera count, run length and storage backend, a
+ * run is driven through {@link DataSaving#initWorkbook(String, int)},
+ * {@link DataSaving#writeValues(int, Map, Map, Map)} and
+ * {@link DataSaving#closeWorkbook()} with synthetic readings and a freshly
+ * drawn image for every reading, as the fixture would produce. A backend is
+ * a workbook format and an {@link DataSaving.ImageMode}, such as
+ * <code>xlsx:THUMBNAIL</code>. Journal flushing follows the usual
+ * <code>disco.flush.*</code> system properties.
+ *
+ * Each run is split into ten windows. For every window the harness records
+ * writeValues latency percentiles, heap in use and journal size; at the end
+ * of the run, it records the workbook export time, the workbook size and the
+ * heap after a garbage collection. Results are written as CSV.
+ * Usage:
+ * <pre>
+ *     DataSavingScaling [--cameras 1,2,4,8] [--iterations 100,1000,10000,50000]
+ *                       [--backends xlsx:LINK,xlsx:THUMBNAIL,xls:LINK,xls:THUMBNAIL]
+ *                       [--output datasaving-scaling.csv]
+ * </pre>
+ * Run it from a scratch directory: like the fixture, it creates
+ * <code>config.ini</code>, <code>logs</code> and image folders in the
+ * working directory.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class DataSavingScaling
+{
+    /**
+     * Number of windows each run is split into.
+     */
+    private static final int WINDOWS = 10;
+
+    /**
+     * Length of the unrecorded warm-up run before each backend.
+     */
+    private static final int WARM_UP_ITERATIONS = 200;
+
+    /**
+     * CSV header of the results.
+     */
+    private static final String HEADER = "backend,cameras,iterations,phase,iteration,calls," +
+                                         "p50_us,p99_us,max_us,mean_us,heap_mb,journal_bytes,workbook_bytes,export_ms";
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args  Command line; see the class description
+     *
+     * @throws IOException if the results or scratch files cannot be written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int[] cameraCounts = { 1, 2, 4, 8 };
+        int[] runLengths = { 100, 1000, 10000, 50000 };
+        String[] backends = { "xlsx:LINK", "xlsx:THUMBNAIL", "xls:LINK", "xls:THUMBNAIL" };
+        File output = new File("datasaving-scaling.csv");
+        for(int i = 0; i < args.length; i++)
+        {
+            switch(args[i])
+            {
+                case "--cameras":       cameraCounts = parseInts(args[++i]); break;
+                case "--iterations":    runLengths = parseInts(args[++i]); break;
+                case "--backends":      backends = args[++i].split(","); break;
+                case "--output":        output = new File(args[++i]); break;
+                default:
+                    System.out.println("Unknown argument " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        //Keep the console for the results; the per-run messages are not needed here
+        ErrorLogging.setLevel(ErrorLogging.Level.ERROR);
+        File scratch = Files.createTempDirectory("disco-scaling-").toFile();
+        try(PrintWriter results = new PrintWriter(new FileWriter(output)))
+        {
+            results.println(HEADER);
+            for(String backend : backends)
+            {
+                //Unrecorded run first, so class loading and JIT warm-up are not charged to the first result
+                run(backend.trim(), 1, WARM_UP_ITERATIONS, scratch, null);
+                for(int cameras : cameraCounts)
+                    for(int iterations : runLengths)
+                        run(backend.trim(), cameras, iterations, scratch, results);
+            }
+        }
+        finally { deleteRecursively(scratch); }
+        System.out.println("Results written to " + output.getPath());
+        ErrorLogging.closeLogs();
+    }
+
+    /**
+     * Drive a single run, and record its results.
+     *
+     * @param backend       Workbook format and image mode, as "format:MODE"
+     * @param cameras       Number of cameras
+     * @param iterations    Number of iterations
+     * @param scratch       Directory for the run's files
+     * @param results       CSV output; null to run without recording results
+     *
+     * @throws IOException if the run's scratch files cannot be written
+     */
+    private static void run(String backend, int cameras, int iterations, File scratch, PrintWriter results)
+        throws IOException
+    {
+        String[] parts = backend.split(":");
+        String format = parts[0];
+        DataSaving.setImageMode(DataSaving.ImageMode.valueOf(parts.length > 1 ? parts[1] : "LINK"),
+                                Integer.getInteger("disco.images.interval", 10));
+        File runDirectory = new File(scratch, backend.replace(':', '-') + "-" + cameras + "x" + iterations);
+        runDirectory.mkdirs();
+        File workbook = new File(runDirectory, "results." + format);
+        File journal = new File(DataSaving.getJournalLocation(workbook.getPath()));
+
+        List<String> cameraNames = new ArrayList<>();
+        for(int i = 0; i < cameras; i++) cameraNames.add("cam" + i);
+        Random random = new Random(iterations * 31L + cameras);
+        String prefix = backend + "," + cameras + "," + iterations;
+
+        DataSaving.initWorkbook(workbook.getPath(), cameras);
+        int windowSize = Math.max(1, iterations / WINDOWS);
+        LatencyHistogram window = new LatencyHistogram();
+        for(int iteration = 0; iteration < iterations; iteration++)
+        {
+            Map<String,File> cameraToFile = new LinkedHashMap<>();
+            Map<File,Double> values = new HashMap<>();
+            Map<File,Integer> confidences = new HashMap<>();
+            for(String camera : cameraNames)
+            {
+                //Mostly in range, with the occasional misread
+                double value = (random.nextInt(50) == 0 ? 20 + random.nextInt(60) :
+                                Math.round((37 + random.nextGaussian() * 0.4) * 10) / 10.0);
+                File image = new File(runDirectory, iteration + "-" + camera + ".png");
+                Mat roi = FrameCorpus.renderProcessed(random, String.format("%.1f", value));
+                OpenCVFacade.saveImage(roi, image);
+                roi.release();
+                cameraToFile.put(camera, image);
+                values.put(image, value);
+                confidences.put(image, 70 + random.nextInt(30));
+            }
+
+            long start = System.nanoTime();
+            DataSaving.writeValues(iteration, values, confidences, cameraToFile);
+            window.record(System.nanoTime() - start);
+
+            if(results != null && ((iteration + 1) % windowSize == 0 || iteration + 1 == iterations))
+            {
+                results.println(prefix + ",write," + (iteration + 1) + "," + window.getCount() + "," +
+                                latencyColumns(window) + "," + heapMegabytes() + "," + journal.length() + ",,");
+                window.reset();
+            }
+        }
+
+        long start = System.nanoTime();
+        DataSaving.closeWorkbook();
+        long exportMillis = (System.nanoTime() - start) / 1_000_000;
+        if(results == null)
+        {
+            deleteRecursively(runDirectory);
+            return;
+        }
+        System.gc();
+        results.println(prefix + ",export," + iterations + ",,,,,," + heapMegabytes() + "," +
+                        journal.length() + "," + workbook.length() + "," + exportMillis);
+        results.flush();
+        System.out.printf("%-16s %d camera(s) x %6d iterations: export %6d ms, workbook %,d bytes%n",
+                          backend, cameras, iterations, exportMillis, workbook.length());
+        deleteRecursively(runDirectory);
+    }
+
+    /**
+     * @param histogram Window of writeValues latencies
+     *
+     * @return p50, p99, max and mean, in microseconds, as CSV columns
+     */
+    private static String latencyColumns(LatencyHistogram histogram)
+    {
+        return String.format("%.1f,%.1f,%.1f,%.1f", histogram.getPercentile(50) / 1e3,
+                             histogram.getPercentile(99) / 1e3, histogram.getMax() / 1e3,
+                             histogram.getMean() / 1e3);
+    }
+
+    /**
+     * @return Heap in use, in megabytes
+     */
+    private static String heapMegabytes()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        return String.format("%.1f", (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0));
+    }
+
+    /**
+     * @param list  Comma-separated integers
+     *
+     * @return Parsed integers
+     */
+    private static int[] parseInts(String list)
+    { return Stream.of(list.split(",")).mapToInt((value) -> Integer.parseInt(value.trim())).toArray(); }
+
+    /**
+     * Delete a directory and everything in it.
+     *
+     * @param directory Directory to delete
+     *
+     * @throws IOException if the directory cannot be listed
+     */
+    private static void deleteRecursively(File directory) throws IOException
+    {
+        if(!directory.exists()) return;
+        try(Stream<Path> paths = Files.walk(directory.toPath()))
+        { paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete); }
+    }
+}
@@ -0,0 +1,277 @@
+package org.baxter.disco.ocr;
+
+//Static imports for OpenCV
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_COLOR;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMWRITE_JPEG_QUALITY;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imdecode;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imwrite;
+
+//OpenCV imports
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacpp.IntPointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+//Standard imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Corpus of camera frames used by the benchmarks.
+ *
+ * The frames are checked in under <code>src/main/resources/corpus</code>, as
+ * JPEGs, like the MJPG stream from the fixture's cameras. They show a single
+ * burst of a lit seven-segment display reading "37.4", with sensor noise that
+ * differs from frame to frame; the display sits under the default crop region.
+ * Run {@link #main(String[])} to regenerate them. The seed is fixed, so the
+ * corpus only changes if this generator does.
+ *
+ * The same renderer also writes the labelled OCR corpus used by
+ * {@link OcrCorpusHarness}: cropped, composited and thresholded images of
+ * a range of readings, as the fixture would save them.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.2.2, 18 Oct. 2026
+ */
+public class FrameCorpus
+{
+    /**
+     * Number of frames in the corpus; enough for the largest composite.
+     */
+    public static final int FRAME_COUNT = 10;
+
+    /**
+     * Frame width, matching the cameras.
+     */
+    public static final int WIDTH = 800;
+
+    /**
+     * Frame height, matching the cameras.
+     */
+    public static final int HEIGHT = 600;
+
+    /**
+     * Classpath location of the frames.
+     */
+    private static final String RESOURCE_PREFIX = "/corpus/frame-";
+
+    /**
+     * Reading shown in the benchmark frames.
+     */
+    private static final String FRAME_READING = "37.4";
+
+    /**
+     * Load every frame of the corpus.
+     *
+     * @return Colour frames, in order; the caller must release them
+     *
+     * @throws IOException if a frame is missing or cannot be decoded
+     */
+    public static List<Mat> load() throws IOException
+    {
+        List<Mat> output = new ArrayList<>();
+        for(int i = 0; i < FRAME_COUNT; i++)
+        {
+            String resource = RESOURCE_PREFIX + String.format(Locale.ROOT, "%02d", i) + ".jpg";
+            try(InputStream input = FrameCorpus.class.getResourceAsStream(resource))
+            {
+                if(input == null) throw new IOException("Corpus frame " + resource + " is missing.");
+                Mat encoded = new Mat(input.readAllBytes());
+                Mat frame = imdecode(encoded, IMREAD_COLOR);
+                encoded.release();
+                if(frame == null || frame.empty()) throw new IOException("Corpus frame " + resource + " is unreadable.");
+                output.add(frame);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Regenerate a corpus.
+     *
+     * @param args  Corpus to write: "frames" (default) or "ocr"; then the output directory
+     *              (default: src/main/resources/corpus, or ocr-corpus)
+     *
+     * @throws IOException if the OCR corpus labels cannot be written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        boolean ocr = args.length > 0 && args[0].equals("ocr");
+        File directory = new File(args.length > 1 ? args[1] : (ocr ? "ocr-corpus" : "src/main/resources/corpus"));
+        directory.mkdirs();
+        if(ocr)
+        {
+            writeOcrCorpus(directory);
+            return;
+        }
+        Random random = new Random(0x0D15C0L);
+        for(int i = 0; i < FRAME_COUNT; i++)
+        {
+            Mat frame = render(random, FRAME_READING);
+            File file = new File(directory, String.format(Locale.ROOT, "frame-%02d.jpg", i));
+            imwrite(file.getPath(), frame, new IntPointer(IMWRITE_JPEG_QUALITY, 90));
+            frame.release();
+            System.out.println("Wrote " + file.getPath());
+        }
+    }
+
+    /**
+     * Write the labelled OCR corpus: one processed image per reading, and
+     * <code>labels.csv</code> listing each image with its true reading.
+     * Readings cover 30.0 to 42.0, plus a few LO displays.
+     *
+     * @param directory Output directory
+     *
+     * @throws IOException if the labels cannot be written
+     */
+    private static void writeOcrCorpus(File directory) throws IOException
+    {
+        Random random = new Random(0x0C5L);
+        List<String> readings = new ArrayList<>();
+        for(int tenths = 300; tenths <= 420; tenths += 3) readings.add(String.format(Locale.ROOT, "%d.%d", tenths / 10, tenths % 10));
+        for(int i = 0; i < 3; i++) readings.add("LO");
+
+        Rect roi = new Rect((int)ConfigProperties.CROP_X.getDefaultValue(), (int)ConfigProperties.CROP_Y.getDefaultValue(),
+                            (int)ConfigProperties.CROP_W.getDefaultValue(), (int)ConfigProperties.CROP_H.getDefaultValue());
+        int frames = (int)ConfigProperties.COMPOSITE_FRAMES.getDefaultValue();
+        try(PrintWriter labels = new PrintWriter(new FileWriter(new File(directory, "labels.csv"))))
+        {
+            labels.println("file,truth");
+            for(int i = 0; i < readings.size(); i++)
+            {
+                List<Mat> burst = new ArrayList<>();
+                for(int frame = 0; frame < frames; frame++)
+                {
+                    Mat colour = render(random, readings.get(i));
+                    burst.add(OpenCVFacade.toGreyscale(colour));
+                    colour.release();
+                }
+                Mat composite = OpenCVFacade.compose(burst, roi, true, ConfigProperties.THRESHOLD_VALUE.getDefaultValue());
+                String name = String.format(Locale.ROOT, "reading-%03d.png", i);
+                OpenCVFacade.saveImage(composite, new File(directory, name));
+                labels.println(name + "," + readings.get(i));
+                composite.release();
+                for(Mat frame : burst) frame.release();
+            }
+        }
+        System.out.println("Wrote " + readings.size() + " labelled images to " + directory.getPath());
+    }
+
+    /**
+     * Draw a single frame.
+     *
+     * @param random    Source of sensor noise
+     * @param reading   Reading shown on the display: up to three digits with a decimal point, or "LO"
+     *
+     * @return Colour frame
+     */
+    public static Mat render(Random random, String reading)
+    {
+        byte[] pixels = new byte[WIDTH * HEIGHT * 3];
+        for(int y = 0; y < HEIGHT; y++)
+        {
+            for(int x = 0; x < WIDTH; x++)
+            {
+                //Dim housing, slightly brighter towards the top of the frame
+                int level = 60 - (y * 30 / HEIGHT);
+                //Lit display panel, around the default crop region
+                if(x >= 255 && x < 375 && y >= 185 && y < 275) level = 175;
+                if(isSegment(reading, x - 278, y - 210)) level = 20;
+
+                int noise = (int)(random.nextGaussian() * 6);
+                int offset = (y * WIDTH + x) * 3;
+                pixels[offset]     = clamp(level - 15 + noise);
+                pixels[offset + 1] = clamp(level + noise);
+                pixels[offset + 2] = clamp(level - 5 + noise);
+            }
+        }
+        Mat output = new Mat(HEIGHT, WIDTH, CV_8UC3);
+        new BytePointer(output.data()).capacity(pixels.length).put(pixels);
+        return output;
+    }
+
+    /**
+     * Draw a processed ROI image directly, without rendering and compositing
+     * whole frames. Much faster than the real pipeline, for when many distinct
+     * images are needed rather than realistic ones.
+     *
+     * @param random    Source of speckle noise, which makes each image distinct
+     * @param reading   Reading shown on the display
+     *
+     * @return Binary greyscale image, the size of the default crop region
+     */
+    public static Mat renderProcessed(Random random, String reading)
+    {
+        int width = (int)ConfigProperties.CROP_W.getDefaultValue();
+        int height = (int)ConfigProperties.CROP_H.getDefaultValue();
+        //Offset of the first digit within the default crop region
+        int digitX = 278 - (int)ConfigProperties.CROP_X.getDefaultValue();
+        int digitY = 210 - (int)ConfigProperties.CROP_Y.getDefaultValue();
+        byte[] pixels = new byte[width * height];
+        for(int y = 0; y < height; y++)
+            for(int x = 0; x < width; x++)
+                pixels[y * width + x] = (isSegment(reading, x - digitX, y - digitY) || random.nextInt(200) == 0 ?
+                                         0 : (byte)255);
+        Mat output = new Mat(height, width, CV_8UC1);
+        new BytePointer(output.data()).capacity(pixels.length).put(pixels);
+        return output;
+    }
+
+    /**
+     * Whether a point falls on a lit segment of a reading.
+     *
+     * @param reading   Digits and letters L and O, with an optional decimal point
+     * @param x         Horizontal position, relative to the first digit
+     * @param y         Vertical position, relative to the first digit
+     *
+     * @return true if the point is on a lit segment or the decimal point
+     */
+    private static boolean isSegment(String reading, int x, int y)
+    {
+        final int digitWidth = 16, digitHeight = 40, stroke = 4, pitch = 24;
+        if(x < 0 || y < 0 || y >= digitHeight) return false;
+
+        String characters = reading.replace(".", "");
+        int decimal = reading.indexOf('.');
+        //Decimal point, just before the digit it precedes
+        if(decimal > 0 && x >= decimal * pitch - 6 && x < decimal * pitch - 2 && y >= digitHeight - stroke) return true;
+
+        int digit = x / pitch;
+        int localX = x - digit * pitch;
+        if(digit >= characters.length() || localX >= digitWidth) return false;
+        char character = characters.charAt(digit);
+        //Same segment tables as the simulator and recogniser
+        int lit = (character == 'L' ? SimulatedCamera.SEGMENTS_L : 
+                   character == 'O' ? SimulatedCamera.SEGMENTS[0] : SimulatedCamera.SEGMENTS[character - '0']);
+        int half = digitHeight / 2;
+
+        boolean left = localX < stroke, right = localX >= digitWidth - stroke;
+        boolean top = y < stroke, middle = Math.abs(y - half) < stroke / 2, bottom = y >= digitHeight - stroke;
+        boolean upper = y < half, lower = y >= half;
+
+        return ((lit & 0x01) != 0 && top) ||
+               ((lit & 0x02) != 0 && right && upper) ||
+               ((lit & 0x04) != 0 && right && lower) ||
+               ((lit & 0x08) != 0 && bottom) ||
+               ((lit & 0x10) != 0 && left && lower) ||
+               ((lit & 0x20) != 0 && left && upper) ||
+               ((lit & 0x40) != 0 && middle);
+    }
+
+    /**
+     * @param value Pixel value
+     *
+     * @return Value clamped to a byte
+     */
+    private static byte clamp(int value)
+    { return (byte)Math.max(0, Math.min(255, value)); }
+}
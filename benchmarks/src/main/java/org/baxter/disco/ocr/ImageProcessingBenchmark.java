@@ -0,0 +1,172 @@
+package org.baxter.disco.ocr;
+
+//OpenCV imports
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+//JMH imports
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+//Standard imports
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of each image processing stage of {@link OpenCVFacade}, on the
+ * frames in {@link FrameCorpus}.
+ *
+ * Stages that depend on the crop region are run for each ROI size; compositing
+ * is also run for each composite frame count. Run with:
+ * <pre>
+ *     java -jar target/discoBenchmarks-4.3.7.jar -rf json -rff results.json
+ * </pre>
+ * and compare the JSON results between builds.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageProcessingBenchmark
+{
+    /**
+     * Threshold used by the benchmarks; the config default.
+     */
+    private static final double THRESHOLD_VALUE = ConfigProperties.THRESHOLD_VALUE.getDefaultValue();
+
+    /**
+     * The corpus, as colour and greyscale frames.
+     */
+    @State(Scope.Benchmark)
+    public static class Corpus
+    {
+        List<Mat> colourFrames;
+        List<Mat> greyFrames;
+
+        @Setup(Level.Trial)
+        public void load() throws IOException
+        {
+            colourFrames = FrameCorpus.load();
+            greyFrames = new ArrayList<>();
+            for(Mat frame : colourFrames) greyFrames.add(OpenCVFacade.toGreyscale(frame));
+        }
+
+        @TearDown(Level.Trial)
+        public void release()
+        {
+            for(Mat frame : colourFrames) frame.release();
+            for(Mat frame : greyFrames) frame.release();
+        }
+    }
+
+    /**
+     * Crop region, and a frame already cropped to it.
+     */
+    @State(Scope.Benchmark)
+    public static class Region
+    {
+        /**
+         * Width and height of the crop region; 80x50 is the config default.
+         */
+        @Param({"80x50", "200x120", "800x600"})
+        public String roiSize;
+
+        Rect roi;
+        Mat cropped;
+        File saveFile;
+
+        @Setup(Level.Trial)
+        public void setup(Corpus corpus) throws IOException
+        {
+            String[] size = roiSize.split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            //Keep the default crop origin where the region fits, as the display sits there
+            int x = Math.min((int)ConfigProperties.CROP_X.getDefaultValue(), FrameCorpus.WIDTH - width);
+            int y = Math.min((int)ConfigProperties.CROP_Y.getDefaultValue(), FrameCorpus.HEIGHT - height);
+            roi = new Rect(x, y, width, height);
+            cropped = OpenCVFacade.crop(corpus.greyFrames.get(0), roi);
+            saveFile = File.createTempFile("disco-bench-", ".png");
+        }
+
+        @TearDown(Level.Trial)
+        public void release()
+        {
+            cropped.release();
+            saveFile.delete();
+        }
+    }
+
+    /**
+     * Burst of frames to composite.
+     */
+    @State(Scope.Benchmark)
+    public static class Burst
+    {
+        /**
+         * Frames per composite; 5 is the config default.
+         */
+        @Param({"1", "5", "10"})
+        public int compositeFrames;
+
+        List<Mat> frames;
+
+        @Setup(Level.Trial)
+        public void setup(Corpus corpus)
+        { frames = corpus.greyFrames.subList(0, compositeFrames); }
+    }
+
+    @Benchmark
+    public void greyscale(Corpus corpus, Blackhole blackhole)
+    {
+        Mat output = OpenCVFacade.toGreyscale(corpus.colourFrames.get(0));
+        blackhole.consume(output.cols());
+        output.release();
+    }
+
+    @Benchmark
+    public void crop(Corpus corpus, Region region, Blackhole blackhole)
+    {
+        Mat output = OpenCVFacade.crop(corpus.greyFrames.get(0), region.roi);
+        blackhole.consume(output.cols());
+        output.release();
+    }
+
+    @Benchmark
+    public void threshold(Region region, Blackhole blackhole)
+    {
+        //Thresholding is in place, and costs the same on an already thresholded frame
+        blackhole.consume(OpenCVFacade.thresholdImage(region.cropped, THRESHOLD_VALUE).cols());
+    }
+
+    @Benchmark
+    public void compose(Region region, Burst burst, Blackhole blackhole)
+    {
+        Mat output = OpenCVFacade.compose(burst.frames, region.roi, true, THRESHOLD_VALUE);
+        blackhole.consume(output.cols());
+        output.release();
+    }
+
+    @Benchmark
+    public void saveImage(Region region, Blackhole blackhole)
+    { blackhole.consume(OpenCVFacade.saveImage(region.cropped, region.saveFile)); }
+}
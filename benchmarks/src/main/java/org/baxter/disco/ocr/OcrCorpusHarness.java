@@ -0,0 +1,402 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accuracy and speed harness for OCR recognizers, run over a labelled corpus.
+ *
+ * The corpus is a directory of processed ROI images, with a
+ * <code>labels.csv</code> of <code>file,truth</code> lines; truth is the
+ * reading on the display, or LO. For each recognizer, the harness reports:
+ * <ul>
+ *  <li>exact-match accuracy, and how each misread went wrong (missing decimal
+ *      point, the /10 correction firing, LO, not a number, other)</li>
+ *  <li>the most common misreads</li>
+ *  <li>latency percentiles of a single thread</li>
+ *  <li>throughput at 1 to N threads</li>
+ * </ul>
+ * Usage:
+ * <pre>
+ *     OcrCorpusHarness [--corpus ocr-corpus] [--threads N] [--repeat R] [recognizer...]
+ * </pre>
+ * Recognizers are <code>tesseract</code> (the fixture's own
+ * {@link TesseractFacade}; the default),
+ * <code>tesseract:language[@tessdata]</code> for another training profile,
+ * and <code>sevenseg</code> ({@link SevenSegmentRecognizer}).
+ *
+ * @author Blizzard Finnegan
+ * @version 1.1.1, 18 Oct. 2026
+ */
+public class OcrCorpusHarness
+{
+    /**
+     * Readings within this distance of the truth are exact matches.
+     */
+    private static final double MATCH_TOLERANCE = 0.05;
+
+    /**
+     * Number of misreads listed in the report.
+     */
+    private static final int TOP_MISREADS = 10;
+
+    /**
+     * Enum of the ways a reading can turn out.
+     */
+    enum Outcome
+    {
+        EXACT("Exact match"),
+        LO_REJECTED("LO, rejected"),
+        SCALED_EXACT("Exact after /10 correction"),
+        SCALED_WRONG("Wrong after /10 correction"),
+        MISSING_DECIMAL("Missing decimal point"),
+        LO_MISREAD("LO, read as a temperature"),
+        REJECTED("Valid reading rejected as LO/out of range"),
+        NOT_A_NUMBER("Not a number"),
+        OTHER("Other misread");
+
+        private final String description;
+
+        private Outcome(String description) { this.description = description; }
+
+        /**
+         * @return true if the recognizer got this reading right
+         */
+        boolean isCorrect()
+        { return this == EXACT || this == LO_REJECTED || this == SCALED_EXACT; }
+    }
+
+    /**
+     * One image of the corpus.
+     */
+    static class Sample
+    {
+        final File image;
+        final String truth;
+
+        Sample(File image, String truth)
+        {
+            this.image = image;
+            this.truth = truth;
+        }
+    }
+
+    /**
+     * Something that reads text from a processed ROI image.
+     * Implementations must be safe to call from several threads.
+     */
+    interface Recognizer
+    {
+        /**
+         * @return Name used in the report
+         */
+        String getName();
+
+        /**
+         * @param image Processed ROI image
+         *
+         * @return Text read from the image
+         */
+        String readText(File image);
+
+        /**
+         * Release any resources held for the calling thread.
+         */
+        void releaseThread();
+    }
+
+    /**
+     * The fixture's own recognizer.
+     */
+    static class FixtureRecognizer implements Recognizer
+    {
+        FixtureRecognizer()
+        {
+            requireTrainedData(System.getProperty("disco.ocr.tessdata", "tessdata"),
+                               System.getProperty("disco.ocr.language", "Pro6_temp_test"));
+        }
+
+        public String getName() { return "tesseract (" + System.getProperty("disco.ocr.language", "Pro6_temp_test") + ")"; }
+        public String readText(File image) { return TesseractFacade.imageToText(image); }
+        public void releaseThread() { TesseractFacade.releaseThread(); }
+    }
+
+    /**
+     * The seven-segment reader used with simulated cameras.
+     */
+    static class SevenSegmentRecognizerAdapter implements Recognizer
+    {
+        public String getName() { return "sevenseg"; }
+
+        public String readText(File image)
+        {
+            SevenSegmentRecognizer.Reading reading = SevenSegmentRecognizer.read(image);
+            return (reading == null ? "" : reading.text);
+        }
+
+        public void releaseThread() { }
+    }
+
+    /**
+     * Tesseract with a different training profile, read through the fixture's own code.
+     */
+    static class ProfileRecognizer implements Recognizer
+    {
+        private final TesseractFacade.Profile profile;
+
+        ProfileRecognizer(String language, String tessdata)
+        {
+            requireTrainedData(tessdata, language);
+            profile = new TesseractFacade.Profile(tessdata, language);
+        }
+
+        public String getName() { return "tesseract (" + profile.getLanguage() + " from " + profile.getLocation() + ")"; }
+        public String readText(File image) { return TesseractFacade.imageToText(image, profile); }
+        public void releaseThread() { profile.releaseThread(); }
+    }
+
+    /**
+     * Run the harness.
+     *
+     * @param args  Command line; see the class description
+     *
+     * @throws Exception if the corpus cannot be read, or a recognizer fails
+     */
+    public static void main(String[] args) throws Exception
+    {
+        File corpusDirectory = new File("ocr-corpus");
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int repeat = 5;
+        List<Recognizer> recognizers = new ArrayList<>();
+        try
+        {
+            for(int i = 0; i < args.length; i++)
+            {
+                switch(args[i])
+                {
+                    case "--corpus":    corpusDirectory = new File(args[++i]); break;
+                    case "--threads":   maxThreads = Integer.parseInt(args[++i]); break;
+                    case "--repeat":    repeat = Integer.parseInt(args[++i]); break;
+                    default:            recognizers.add(parseRecognizer(args[i]));
+                }
+            }
+            if(recognizers.isEmpty()) recognizers.add(new FixtureRecognizer());
+        }
+        catch(IllegalArgumentException | ArrayIndexOutOfBoundsException e)
+        {
+            System.out.println("Invalid arguments: " + e.getMessage());
+            System.out.println("Usage: OcrCorpusHarness [--corpus dir] [--threads N] [--repeat R] [tesseract | tesseract:language[@tessdata] | sevenseg]...");
+            System.exit(2);
+        }
+
+        //Keep the report readable; the per-reading warnings are not needed here
+        ErrorLogging.setLevel(ErrorLogging.Level.ERROR);
+        List<Sample> corpus = loadCorpus(corpusDirectory);
+        System.out.println("Corpus: " + corpus.size() + " images from " + corpusDirectory.getPath());
+
+        for(Recognizer recognizer : recognizers)
+        {
+            System.out.println();
+            System.out.println("=== " + recognizer.getName() + " ===");
+            reportAccuracy(recognizer, corpus);
+            reportThroughput(recognizer, corpus, maxThreads, repeat);
+        }
+        ErrorLogging.closeLogs();
+    }
+
+    /**
+     * @param spec  "tesseract", "tesseract:language[@tessdata]" or "sevenseg"
+     *
+     * @return Recognizer described
+     */
+    private static Recognizer parseRecognizer(String spec)
+    {
+        if(spec.equals("tesseract")) return new FixtureRecognizer();
+        if(spec.equals("sevenseg")) return new SevenSegmentRecognizerAdapter();
+        if(spec.startsWith("tesseract:"))
+        {
+            String profile = spec.substring("tesseract:".length());
+            int at = profile.indexOf('@');
+            return (at < 0 ? new ProfileRecognizer(profile, "tessdata") :
+                             new ProfileRecognizer(profile.substring(0, at), profile.substring(at + 1)));
+        }
+        throw new IllegalArgumentException("Unknown recognizer " + spec);
+    }
+
+    /**
+     * Check that training data exists, as Tesseract cannot be used without it.
+     *
+     * @param tessdata  Training data directory
+     * @param language  Training data name
+     *
+     * @throws IllegalArgumentException if the training data is missing
+     */
+    private static void requireTrainedData(String tessdata, String language)
+    {
+        File trainedData = new File(tessdata, language + ".traineddata");
+        if(!trainedData.isFile())
+            throw new IllegalArgumentException("Training data " + trainedData.getPath() + " does not exist.");
+    }
+
+    /**
+     * Read a corpus's labels.
+     *
+     * @param directory Corpus directory
+     *
+     * @return Samples, in label file order
+     *
+     * @throws IOException if the labels cannot be read
+     */
+    static List<Sample> loadCorpus(File directory) throws IOException
+    {
+        List<Sample> output = new ArrayList<>();
+        try(BufferedReader reader = new BufferedReader(new FileReader(new File(directory, "labels.csv"))))
+        {
+            String line;
+            while((line = reader.readLine()) != null)
+            {
+                String[] fields = line.split(",");
+                if(fields.length != 2 || fields[0].equals("file")) continue;
+                File image = new File(directory, fields[0].trim());
+                if(!image.isFile()) throw new IOException("Corpus image " + image.getPath() + " is missing.");
+                output.add(new Sample(image, fields[1].trim()));
+            }
+        }
+        if(output.isEmpty()) throw new IOException("Corpus " + directory.getPath() + " has no labelled images.");
+        return output;
+    }
+
+    /**
+     * Classify a single reading.
+     *
+     * @param truth     True reading, or LO
+     * @param text      Text the recognizer read
+     *
+     * @return How the reading turned out
+     */
+    static Outcome classify(String truth, String text)
+    {
+        double value = TesseractFacade.parseReading(text);
+        boolean valid = IterationPipeline.isValidReading(value);
+        if(truth.equalsIgnoreCase("LO")) return (valid ? Outcome.LO_MISREAD : Outcome.LO_REJECTED);
+
+        double expected = Double.parseDouble(truth);
+        boolean exact = Math.abs(value - expected) < MATCH_TOLERANCE;
+        double raw = Double.NEGATIVE_INFINITY;
+        try{ raw = Double.parseDouble(text.split("\\s+")[0]); }
+        catch(NumberFormatException e) { }
+
+        if(raw >= 200) return (exact ? Outcome.SCALED_EXACT : Outcome.SCALED_WRONG);
+        if(exact) return Outcome.EXACT;
+        if(value == Double.NEGATIVE_INFINITY) return Outcome.NOT_A_NUMBER;
+        if(!text.contains(".") && Math.abs(raw - expected * 10) < MATCH_TOLERANCE * 10) return Outcome.MISSING_DECIMAL;
+        if(!valid) return Outcome.REJECTED;
+        return Outcome.OTHER;
+    }
+
+    /**
+     * Read the corpus once on a single thread, and report accuracy, misreads and latency.
+     *
+     * @param recognizer    Recognizer to test
+     * @param corpus        Labelled images
+     */
+    private static void reportAccuracy(Recognizer recognizer, List<Sample> corpus)
+    {
+        Map<Outcome,Integer> outcomes = new EnumMap<>(Outcome.class);
+        Map<String,Integer> misreads = new LinkedHashMap<>();
+        LatencyHistogram latency = new LatencyHistogram();
+        for(Sample sample : corpus)
+        {
+            long start = System.nanoTime();
+            String text = recognizer.readText(sample.image);
+            latency.record(System.nanoTime() - start);
+
+            Outcome outcome = classify(sample.truth, text);
+            outcomes.merge(outcome, 1, Integer::sum);
+            if(!outcome.isCorrect())
+                misreads.merge(sample.truth + " -> \"" + text.replace("\n", "\\n") + "\"", 1, Integer::sum);
+        }
+        recognizer.releaseThread();
+
+        int correct = 0;
+        for(Map.Entry<Outcome,Integer> entry : outcomes.entrySet())
+            if(entry.getKey().isCorrect()) correct += entry.getValue();
+        System.out.printf("Accuracy: %.1f%% (%d/%d)%n", 100.0 * correct / corpus.size(), correct, corpus.size());
+        for(Outcome outcome : Outcome.values())
+            if(outcomes.containsKey(outcome))
+                System.out.printf("  %-45s %d%n", outcome.description, outcomes.get(outcome));
+
+        if(!misreads.isEmpty())
+        {
+            System.out.println("Most common misreads:");
+            List<Map.Entry<String,Integer>> sorted = new ArrayList<>(misreads.entrySet());
+            sorted.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+            for(Map.Entry<String,Integer> entry : sorted.subList(0, Math.min(TOP_MISREADS, sorted.size())))
+                System.out.printf("  %4d x %s%n", entry.getValue(), entry.getKey());
+        }
+
+        System.out.printf("Latency (1 thread): p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms, mean %.2f ms%n",
+                          latency.getPercentile(50) / 1e6, latency.getPercentile(90) / 1e6,
+                          latency.getPercentile(99) / 1e6, latency.getMax() / 1e6, latency.getMean() / 1e6);
+    }
+
+    /**
+     * Read the corpus repeatedly at 1 to maxThreads threads, and report throughput.
+     *
+     * @param recognizer    Recognizer to test
+     * @param corpus        Labelled images
+     * @param maxThreads    Most threads to use
+     * @param repeat        Times to read the corpus at each thread count
+     *
+     * @throws Exception if a recognizer call fails
+     */
+    private static void reportThroughput(Recognizer recognizer, List<Sample> corpus, int maxThreads, int repeat)
+        throws Exception
+    {
+        System.out.println("Throughput:");
+        for(int threads = 1; threads <= maxThreads; threads++)
+        {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            AtomicInteger next = new AtomicInteger();
+            int total = corpus.size() * repeat;
+            //Every worker, plus this thread, waits here once warmed up
+            CyclicBarrier ready = new CyclicBarrier(threads + 1);
+            List<Future<?>> workers = new ArrayList<>();
+
+            for(int i = 0; i < threads; i++)
+            {
+                workers.add(executor.submit(() ->
+                {
+                    recognizer.readText(corpus.get(0).image);
+                    ready.await();
+                    int index;
+                    while((index = next.getAndIncrement()) < total)
+                        recognizer.readText(corpus.get(index % corpus.size()).image);
+                    recognizer.releaseThread();
+                    return null;
+                }));
+            }
+            ready.await();
+            long start = System.nanoTime();
+            for(Future<?> worker : workers) worker.get();
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+
+            System.out.printf("  %2d thread(s): %8.1f images/s%n", threads, total / (elapsed / 1e9));
+        }
+    }
+}
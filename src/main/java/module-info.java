@@ -20,6 +20,8 @@ module org.baxter.disco.ocr {
     requires org.apache.commons.lang3;
 
     requires org.bytedeco.javacv.platform;
+    requires jdk.httpserver;
+    requires jdk.jfr;
     //requires java.desktop;
 
     uses com.pi4j.extension.Extension;
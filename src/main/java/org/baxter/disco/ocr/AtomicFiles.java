@@ -0,0 +1,77 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Whole-file writes that never leave a partial file behind.
+ *
+ * Contents are written to a temporary file beside the target, optionally
+ * synced to disk, then renamed over the target. A crash or power loss leaves
+ * either the old file or the new one, never a mix.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class AtomicFiles
+{
+    /**
+     * Suffix of the temporary file, appended to the target's name.
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Write a file atomically.
+     *
+     * @param target    File to replace
+     * @param sync      Whether to sync the contents to disk before renaming
+     * @param contents  Writes the file's contents to the given stream
+     *
+     * @throws IOException if the file could not be written; the target is left untouched
+     */
+    public static void write(File target, boolean sync, StreamWriter contents) throws IOException
+    {
+        File tempFile = new File(target.getPath() + TEMP_SUFFIX);
+        try
+        {
+            try(FileOutputStream outputStream = new FileOutputStream(tempFile))
+            {
+                contents.write(outputStream);
+                outputStream.flush();
+                if(sync) outputStream.getFD().sync();
+            }
+
+            try
+            {
+                Files.move(tempFile.toPath(), target.toPath(),
+                           StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            //Some file systems cannot rename atomically; a plain replace is the best available
+            catch(AtomicMoveNotSupportedException e)
+            { Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING); }
+        }
+        finally { Files.deleteIfExists(tempFile.toPath()); }
+    }
+
+    /**
+     * Callback writing a file's contents.
+     */
+    @FunctionalInterface
+    public interface StreamWriter
+    {
+        /**
+         * Write the contents of the file.
+         *
+         * @param outputStream  Stream to write to; closed by the caller
+         *
+         * @throws IOException if the contents could not be written
+         */
+        void write(OutputStream outputStream) throws IOException;
+    }
+}
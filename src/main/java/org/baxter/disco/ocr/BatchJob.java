@@ -0,0 +1,247 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Specification of an unattended test run, read from a properties file.
+ *
+ * Recognised keys:
+ * <pre>
+ *  iterations=1000                 Number of iterations to run (required)
+ *  output=outputData/run.xlsx      Output workbook (default: timestamped file in outputData/)
+ *  cameras=left,right              Cameras to test (default: cameras marked active in the config)
+ *  serial.left=ABC123              Serial number of each camera's DUT
+ *  config=profiles/warm.ini        Processing profile: a camera config file to load
+ *  stop.maxMinutes=600             Stop once the run has taken this long
+ *  stop.minPassRate=90             Stop if any DUT's pass rate (%) falls below this...
+ *  stop.minIterations=50           ...once at least this many iterations are saved (default 50)
+ *  stop.maxConsecutiveFailures=5   Stop after this many invalid readings in a row
+ *  disco.*                         Copied into the system properties (image mode, flushing, etc.)
+ * </pre>
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.1, 18 Oct. 2026
+ */
+public class BatchJob
+{
+    /**
+     * Default number of saved iterations before the pass rate stop condition applies.
+     */
+    private static final int DEFAULT_MIN_ITERATIONS = 50;
+
+    /**
+     * Number of iterations to run.
+     */
+    private final int iterations;
+
+    /**
+     * Output workbook; null for the default.
+     */
+    private final String outputFile;
+
+    /**
+     * Cameras to test; empty to use the active cameras in the config.
+     */
+    private final List<String> cameras;
+
+    /**
+     * Serial number of each camera's DUT.
+     */
+    private final Map<String,String> serials;
+
+    /**
+     * Camera config file to load; null to keep the current config.
+     */
+    private final String configFile;
+
+    /**
+     * Longest run time, in minutes; 0 for no limit.
+     */
+    private final double maxMinutes;
+
+    /**
+     * Lowest acceptable pass rate, in percent; 0 for no limit.
+     */
+    private final double minPassRate;
+
+    /**
+     * Iterations saved before the pass rate limit applies.
+     */
+    private final int minIterations;
+
+    /**
+     * Most invalid readings allowed in a row; 0 for no limit.
+     */
+    private final int maxConsecutiveFailures;
+
+    /**
+     * System properties requested by the job.
+     */
+    private final Map<String,String> systemProperties;
+
+    /**
+     * Create a job from parsed properties.
+     *
+     * @param properties    Contents of the job file
+     *
+     * @throws IllegalArgumentException if a value is missing or invalid
+     */
+    private BatchJob(Properties properties)
+    {
+        String iterationValue = properties.getProperty("iterations");
+        if(iterationValue == null) throw new IllegalArgumentException("iterations is required.");
+        iterations = Integer.parseInt(iterationValue.trim());
+        if(iterations < 1) throw new IllegalArgumentException("iterations must be at least 1.");
+
+        outputFile = properties.getProperty("output");
+        configFile = properties.getProperty("config");
+        if(configFile != null && !new File(configFile).isFile())
+            throw new IllegalArgumentException("config file " + configFile + " does not exist.");
+
+        List<String> cameraList = new ArrayList<>();
+        for(String camera : properties.getProperty("cameras", "").split(","))
+            if(!camera.isBlank()) cameraList.add(camera.trim());
+        cameras = Collections.unmodifiableList(cameraList);
+
+        Map<String,String> serialMap = new LinkedHashMap<>();
+        Map<String,String> systemMap = new LinkedHashMap<>();
+        for(String key : properties.stringPropertyNames())
+        {
+            if(key.startsWith("serial.")) serialMap.put(key.substring("serial.".length()), properties.getProperty(key).trim());
+            else if(key.startsWith("disco.")) systemMap.put(key, properties.getProperty(key).trim());
+        }
+        serials = Collections.unmodifiableMap(serialMap);
+        systemProperties = Collections.unmodifiableMap(systemMap);
+
+        maxMinutes = Double.parseDouble(properties.getProperty("stop.maxMinutes", "0"));
+        minPassRate = Double.parseDouble(properties.getProperty("stop.minPassRate", "0"));
+        minIterations = Integer.parseInt(properties.getProperty("stop.minIterations",
+                                                                Integer.toString(DEFAULT_MIN_ITERATIONS)));
+        maxConsecutiveFailures = Integer.parseInt(properties.getProperty("stop.maxConsecutiveFailures", "0"));
+    }
+
+    /**
+     * Read a job file.
+     *
+     * @param file  Job file
+     *
+     * @return Parsed job
+     *
+     * @throws IOException if the file cannot be read, or holds an invalid job
+     */
+    public static BatchJob load(File file) throws IOException
+    {
+        Properties properties = new Properties();
+        try(Reader reader = new FileReader(file)) { properties.load(reader); }
+        try{ return new BatchJob(properties); }
+        catch(IllegalArgumentException e)
+        { throw new IOException("Invalid job file " + file.getPath() + ": " + e.getMessage(), e); }
+    }
+
+    /**
+     * Copy the job's <code>disco.*</code> settings into the system properties.
+     * Must be called before the classes that read them are first used.
+     * Logging has always started by then; its <code>disco.log.*</code> 
+     * settings take effect through {@link ErrorLogging#reconfigure()}.
+     */
+    public void applySystemProperties()
+    {
+        for(Map.Entry<String,String> property : systemProperties.entrySet())
+            System.setProperty(property.getKey(), property.getValue());
+    }
+
+    /**
+     * Check the job's stop conditions.
+     *
+     * @param completed             Iterations saved so far
+     * @param consecutiveFailures   Invalid readings in a row
+     * @param elapsedMillis         Time since the run started
+     * @param statistics            Live statistics of each DUT
+     *
+     * @return Reason to stop; null to keep going
+     */
+    public String checkStop(int completed, int consecutiveFailures, long elapsedMillis,
+                            Map<String,PassStatistics> statistics)
+    {
+        if(maxMinutes > 0 && elapsedMillis >= maxMinutes * 60_000)
+            return "time limit of " + maxMinutes + " minute(s) reached";
+
+        if(maxConsecutiveFailures > 0 && consecutiveFailures >= maxConsecutiveFailures)
+            return consecutiveFailures + " invalid readings in a row";
+
+        if(minPassRate > 0 && completed >= minIterations)
+        {
+            for(Map.Entry<String,PassStatistics> entry : statistics.entrySet())
+            {
+                double passRate = entry.getValue().getPassRate() * 100;
+                if(passRate < minPassRate)
+                    return String.format("pass rate of %s fell to %.1f%%", entry.getKey(), passRate);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of iterations to run
+     */
+    public int getIterations()
+    { return iterations; }
+
+    /**
+     * @return Output workbook; null for the default
+     */
+    public String getOutputFile()
+    { return outputFile; }
+
+    /**
+     * @return Cameras to test; empty to use the active cameras in the config
+     */
+    public List<String> getCameras()
+    { return cameras; }
+
+    /**
+     * @return Serial number of each camera's DUT
+     */
+    public Map<String,String> getSerials()
+    { return serials; }
+
+    /**
+     * @return Camera config file to load; null to keep the current config
+     */
+    public String getConfigFile()
+    { return configFile; }
+
+    /**
+     * Enum of the exit codes of a batch run.
+     */
+    public enum ExitCode
+    {
+        SUCCESS(0),
+        ERROR(1),
+        INVALID_JOB(2),
+        STOPPED(3),
+        HARDWARE(4);
+
+        /**
+         * Process exit code.
+         */
+        private final int code;
+
+        private ExitCode(int code) { this.code = code; }
+
+        /**
+         * @return Process exit code
+         */
+        public int getCode() { return code; }
+    }
+}
@@ -0,0 +1,149 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a single camera's config.
+ *
+ * Built by {@link ConfigFacade} whenever a camera's config changes, and
+ * swapped in whole, so a stage that fetches a snapshot once sees consistent
+ * settings for its entire run, even while the config menu is editing them.
+ * Values are held as plain fields and a primitive array indexed by
+ * {@link ConfigProperties#ordinal()}, so reading them needs no hashing or
+ * boxing.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.1, 18 Oct. 2026
+ */
+public final class CameraSettings
+{
+    /**
+     * Every value, indexed by property ordinal.
+     */
+    private final double[] values;
+
+    /**
+     * Crop region.
+     */
+    private final int cropX, cropY, cropW, cropH;
+
+    /**
+     * Number of frames to composite.
+     */
+    private final int compositeFrames;
+
+    /**
+     * Toggles.
+     */
+    private final boolean crop, threshold, prime, active;
+
+    /**
+     * Threshold point, and the mean brightness of a lit display.
+     */
+    private final double thresholdValue, displayLitLevel;
+
+    /**
+     * Compile a snapshot from a camera's config.
+     *
+     * @param config    Value of each property; missing properties take their default value
+     */
+    CameraSettings(Map<ConfigProperties,Double> config)
+    {
+        ConfigProperties[] properties = ConfigProperties.values();
+        values = new double[properties.length];
+        for(ConfigProperties property : properties)
+        {
+            Double value = config.get(property);
+            values[property.ordinal()] = (value != null ? value : property.getDefaultValue());
+        }
+
+        cropX = (int)get(ConfigProperties.CROP_X);
+        cropY = (int)get(ConfigProperties.CROP_Y);
+        cropW = (int)get(ConfigProperties.CROP_W);
+        cropH = (int)get(ConfigProperties.CROP_H);
+        compositeFrames = (int)get(ConfigProperties.COMPOSITE_FRAMES);
+        crop = get(ConfigProperties.CROP) != 0;
+        threshold = get(ConfigProperties.THRESHOLD) != 0;
+        prime = get(ConfigProperties.PRIME) != 0;
+        active = get(ConfigProperties.ACTIVE) != 0;
+        thresholdValue = get(ConfigProperties.THRESHOLD_VALUE);
+        displayLitLevel = get(ConfigProperties.DISPLAY_LIT_LEVEL);
+    }
+
+    /**
+     * Get any config value.
+     *
+     * @param property  Property to read
+     *
+     * @return Value of the property
+     */
+    public double get(ConfigProperties property)
+    { return values[property.ordinal()]; }
+
+    /**
+     * @return X coordinate of the crop region's top-left corner
+     */
+    public int getCropX()
+    { return cropX; }
+
+    /**
+     * @return Y coordinate of the crop region's top-left corner
+     */
+    public int getCropY()
+    { return cropY; }
+
+    /**
+     * @return Width of the crop region
+     */
+    public int getCropW()
+    { return cropW; }
+
+    /**
+     * @return Height of the crop region
+     */
+    public int getCropH()
+    { return cropH; }
+
+    /**
+     * @return Number of frames to composite together
+     */
+    public int getCompositeFrames()
+    { return compositeFrames; }
+
+    /**
+     * @return true if images are cropped during processing
+     */
+    public boolean isCropEnabled()
+    { return crop; }
+
+    /**
+     * @return true if images are thresholded during processing
+     */
+    public boolean isThresholdEnabled()
+    { return threshold; }
+
+    /**
+     * @return true if the DUT's button is pressed twice, to prime it
+     */
+    public boolean isPrime()
+    { return prime; }
+
+    /**
+     * @return true if the camera is used in tests
+     */
+    public boolean isActive()
+    { return active; }
+
+    /**
+     * @return Point at which the image is thresholded
+     */
+    public double getThresholdValue()
+    { return thresholdValue; }
+
+    /**
+     * @return Mean brightness (0-255) of the cropped image at which the display is considered lit
+     */
+    public double getDisplayLitLevel()
+    { return displayLitLevel; }
+}
@@ -2,13 +2,12 @@ package org.baxter.disco.ocr;
 
 //Standard imports
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * CLI for the Fixture.
@@ -18,7 +17,7 @@ import java.util.concurrent.locks.ReentrantLock;
  * classes).
  *
  * @author Blizzard Finnegan
- * @version 1.7.1, 10 Mar. 2023
+ * @version 1.18.9, 18 Oct. 2026
  */
 public class Cli
 {
@@ -61,9 +60,19 @@ public class Cli
     private static final int cameraMenuOptionCount = 7;
 
     /**
-     * Lock object, used for temporary interruption of {@link #runTests()}
+     * Number of iterations between stage timing summaries during {@link #runTests()}.
      */
-    public static final Lock LOCK = new ReentrantLock();
+    private static final int TIMING_SUMMARY_INTERVAL = 50;
+
+    /**
+     * Longest time to wait for the DUTs' displays to be ready after a button press, in milliseconds.
+     */
+    private static final long DISPLAY_READY_TIMEOUT = 2000;
+
+    /**
+     * Longest time to wait for the DUTs to fall asleep after an invalid reading, in milliseconds.
+     */
+    private static final long DISPLAY_SLEEP_TIMEOUT = 20000;
 
 
     static
@@ -78,10 +87,34 @@ public class Cli
         ErrorLogging.logError("Accuracy Over Life Test");
         ErrorLogging.logError("Version: " + version);
         ErrorLogging.logError("========================");
+
+        //Export a workbook from an existing journal, without touching the fixture
+        if(args.length >= 2 && args[0].equals("--export"))
+        {
+            String outputFile = (args.length >= 3 ? args[2] : exportLocation(args[1]));
+            boolean success = DataSaving.exportWorkbook(args[1], outputFile);
+            ErrorLogging.closeLogs();
+            System.exit(success ? 0 : 1);
+        }
+
+        //Unattended run from a job file; never reads from the terminal
+        if(args.length >= 1 && args[0].equals("--batch"))
+            System.exit(runBatch(args).getCode());
+
+        //Tune camera settings from recorded frames, without touching the fixture
+        if(args.length >= 1 && args[0].equals("--tune"))
+            System.exit(runTuner(args));
+
+        //Record frames for the tuner
+        if(args.length >= 1 && args[0].equals("--record"))
+            System.exit(recordFrames(args));
+
         try{
             inputScanner = new Scanner(System.in);
 
             ConfigFacade.init();
+            MetricsRegistry.startServer();
+            FlightRecording.start();
 
             int userInput = 0;
 
@@ -89,6 +122,13 @@ public class Cli
             ErrorLogging.logError("The piston will fire momentarily when the motor calibration is complete.");
             MovementFacade.pressButton();
 
+            //Continue an interrupted run, without going through the menus
+            if(args.length >= 1 && args[0].equals("--resume"))
+            {
+                resumeTests(args.length >= 2 ? args[1] : null);
+                return;
+            }
+
             do
             {
                 printMainMenu();
@@ -418,10 +458,13 @@ public class Cli
             do
             {
                 //Press button twice, to make sure the DUT is awake
+                List<String> previewCamera = List.of(cameraName);
+                OpenCVFacade.DisplayReference beforePress = OpenCVFacade.referenceDisplays(previewCamera);
                 MovementFacade.pressButton();
-                try{ Thread.sleep(2000); } catch(Exception e){ ErrorLogging.logError(e); }
+                OpenCVFacade.awaitDisplayReady(beforePress,DISPLAY_READY_TIMEOUT);
+                beforePress = OpenCVFacade.referenceDisplays(previewCamera);
                 MovementFacade.pressButton();
-                try{ Thread.sleep(2000); } catch(Exception e){ ErrorLogging.logError(e); }
+                OpenCVFacade.awaitDisplayReady(beforePress,DISPLAY_READY_TIMEOUT);
 
                 File image = OpenCVFacade.showImage(cameraName);
                 tesseractValue = TesseractFacade.imageToDouble(image);
@@ -570,38 +613,315 @@ public class Cli
     }
 
     /**
-     * Starts running tests
+     * Starts a new test run, with the active cameras and current iteration count.
      */
     private static void runTests()
+    {
+        List<String> cameraList = new ArrayList<>();
+        for(String cameraName : OpenCVFacade.getCameraNames())
+        {
+            if(ConfigFacade.getValue(cameraName,ConfigProperties.ACTIVE) != 0)
+                cameraList.add(cameraName);
+        }
+
+        RunCheckpoint checkpoint = new RunCheckpoint(iterationCount, cameraList, 
+                                                     ConfigFacade.getSerials(), 
+                                                     ConfigFacade.getOutputSaveLocation());
+        runTests(checkpoint, 0, null);
+    }
+
+    /**
+     * Tune each camera's processing settings from recorded frames, and save them to the config.
+     * Usage: <code>--tune recordings [accuracy %]</code>; see {@link ParameterTuner}.
+     *
+     * @param args  Command-line arguments
+     *
+     * @return Exit code for the process: 0 if every camera was tuned, 1 if any camera
+     *         could not be tuned, 2 if the arguments are invalid
+     */
+    private static int runTuner(String[] args)
+    {
+        double accuracy = ParameterTuner.DEFAULT_ACCURACY;
+        try{ if(args.length >= 3) accuracy = Double.parseDouble(args[2]) / 100; }
+        catch(NumberFormatException e) { accuracy = -1; }
+        if(args.length < 2 || accuracy <= 0 || accuracy > 1)
+        {
+            ErrorLogging.logError("TUNER ERROR!!! - Usage: --tune <recordings directory> [accuracy %, default " +
+                                  (int)(ParameterTuner.DEFAULT_ACCURACY * 100) + "]");
+            ErrorLogging.closeLogs();
+            return 2;
+        }
+        ConfigFacade.init();
+        boolean success = ParameterTuner.tune(new File(args[1]), accuracy);
+        ErrorLogging.closeLogs();
+        return (success ? 0 : 1);
+    }
+
+    /**
+     * Record bursts of frames from every active camera, for the tuner.
+     * Usage: <code>--record recordings bursts</code>. Each burst is one 
+     * iteration's worth of movement, labelled with the current settings' reading.
+     *
+     * @param args  Command-line arguments
+     *
+     * @return Exit code for the process: 0 if every burst was recorded, 1 if any burst
+     *         could not be recorded, 2 if the arguments are invalid
+     */
+    private static int recordFrames(String[] args)
+    {
+        int bursts = -1;
+        try{ if(args.length >= 3) bursts = Integer.parseInt(args[2]); }
+        catch(NumberFormatException e) { bursts = -1; }
+        if(bursts <= 0)
+        {
+            ErrorLogging.logError("TUNER ERROR!!! - Usage: --record <recordings directory> <bursts>");
+            ErrorLogging.closeLogs();
+            return 2;
+        }
+
+        boolean success = true;
+        try
+        {
+            ConfigFacade.init();
+            List<String> cameraList = new ArrayList<>();
+            boolean prime = false;
+            for(String cameraName : OpenCVFacade.getCameraNames())
+            {
+                if(ConfigFacade.getValue(cameraName,ConfigProperties.ACTIVE) == 0) continue;
+                cameraList.add(cameraName);
+                prime = (ConfigFacade.getValue(cameraName,ConfigProperties.PRIME) != 0) || prime;
+            }
+
+            ErrorLogging.logError("Calibrating motor movement. ");
+            MovementFacade.pressButton();
+            for(int burst = 0; burst < bursts; burst++)
+            {
+                ErrorLogging.logError("Recording burst " + (burst+1) + " of " + bursts + "...");
+                RunGate.awaitRunning();
+                OpenCVFacade.DisplayReference beforePress = OpenCVFacade.referenceDisplays(cameraList);
+                MovementFacade.iterationMovement(prime);
+                OpenCVFacade.awaitDisplayReady(beforePress,DISPLAY_READY_TIMEOUT);
+                success = ParameterTuner.record(new File(args[1]), burst, cameraList) && success;
+            }
+            ErrorLogging.logError("Recording complete. Check the truth column of each camera's labels.csv " +
+                                  "against the recorded frames before tuning.");
+        }
+        catch(Exception e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("ERROR CAUGHT - CLOSING PROGRAM.");
+            success = false;
+        }
+        finally
+        {
+            close();
+        }
+        return (success ? 0 : 1);
+    }
+
+    /**
+     * Run a batch job, without any menus.
+     * Usage: <code>--batch job.properties</code>; see {@link BatchJob} for the file's format.
+     *
+     * @param args  Command-line arguments
+     *
+     * @return Exit code for the process
+     */
+    private static BatchJob.ExitCode runBatch(String[] args)
+    {
+        if(args.length < 2)
+        {
+            ErrorLogging.logError("BATCH ERROR!!! - Usage: --batch <job.properties>");
+            return BatchJob.ExitCode.INVALID_JOB;
+        }
+
+        BatchJob job;
+        try{ job = BatchJob.load(new File(args[1])); }
+        catch(Exception e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("BATCH ERROR!!! - " + e.getMessage());
+            return BatchJob.ExitCode.INVALID_JOB;
+        }
+        job.applySystemProperties();
+        //Logging started before the job was read
+        ErrorLogging.reconfigure();
+
+        try
+        {
+            ConfigFacade.init();
+            MetricsRegistry.startServer();
+            FlightRecording.start();
+            if(job.getConfigFile() != null && !ConfigFacade.loadConfig(job.getConfigFile()))
+                return BatchJob.ExitCode.INVALID_JOB;
+
+            List<String> cameraList = new ArrayList<>(job.getCameras());
+            if(cameraList.isEmpty())
+            {
+                for(String cameraName : OpenCVFacade.getCameraNames())
+                    if(ConfigFacade.getValue(cameraName,ConfigProperties.ACTIVE) != 0)
+                        cameraList.add(cameraName);
+            }
+            for(String cameraName : cameraList)
+            {
+                if(!OpenCVFacade.getCameraNames().contains(cameraName))
+                {
+                    ErrorLogging.logError("BATCH ERROR!!! - Camera " + cameraName + " is not connected.");
+                    return BatchJob.ExitCode.HARDWARE;
+                }
+            }
+            if(cameraList.isEmpty())
+            {
+                ErrorLogging.logError("BATCH ERROR!!! - No cameras to test.");
+                return BatchJob.ExitCode.HARDWARE;
+            }
+            for(Map.Entry<String,String> serial : job.getSerials().entrySet())
+                ConfigFacade.setSerial(serial.getKey(), serial.getValue());
+
+            String outputFile = (job.getOutputFile() != null ? job.getOutputFile() : ConfigFacade.getOutputSaveLocation());
+            File outputDirectory = new File(outputFile).getAbsoluteFile().getParentFile();
+            if(outputDirectory != null) outputDirectory.mkdirs();
+
+            ErrorLogging.logError("Calibrating motor movement. ");
+            MovementFacade.pressButton();
+
+            RunCheckpoint checkpoint = new RunCheckpoint(job.getIterations(), cameraList, 
+                                                         ConfigFacade.getSerials(), outputFile);
+            iterationCount = job.getIterations();
+            String stopReason = runTests(checkpoint, 0, job);
+            return (stopReason == null ? BatchJob.ExitCode.SUCCESS : BatchJob.ExitCode.STOPPED);
+        }
+        catch(Exception e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("ERROR CAUGHT - CLOSING PROGRAM.");
+            return BatchJob.ExitCode.ERROR;
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Resume an unfinished test run from its checkpoint.
+     * The run continues after the last iteration found in its results journal.
+     *
+     * @param checkpointPath    Checkpoint file to resume; null to resume the most recent unfinished run
+     *
+     * @return true if the run was resumed; otherwise false
+     */
+    private static boolean resumeTests(String checkpointPath)
+    {
+        File checkpointFile = (checkpointPath == null ? 
+                               RunCheckpoint.findLatestUnfinished(new File("outputData")) : 
+                               new File(checkpointPath));
+        if(checkpointFile == null)
+        {
+            ErrorLogging.logError("RESUME ERROR!!! - No unfinished test run found.");
+            return false;
+        }
+
+        RunCheckpoint checkpoint;
+        try{ checkpoint = RunCheckpoint.load(checkpointFile); }
+        catch(Exception e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("RESUME ERROR!!! - Unable to read checkpoint " + checkpointFile.getPath());
+            return false;
+        }
+        if(checkpoint.isComplete())
+        {
+            ErrorLogging.logError("RESUME ERROR!!! - Run " + checkpoint.getRunId() + " has already finished.");
+            return false;
+        }
+        for(String cameraName : checkpoint.getCameras())
+        {
+            if(!OpenCVFacade.getCameraNames().contains(cameraName))
+            {
+                ErrorLogging.logError("RESUME ERROR!!! - Camera " + cameraName + " is not connected.");
+                return false;
+            }
+        }
+
+        //The journal decides where to resume, and what to trim; without it, nothing is changed
+        File journalFile = new File(DataSaving.getJournalLocation(checkpoint.getOutputFile()));
+        int completed;
+        try{ completed = checkpoint.countJournalledIterations(); }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("RESUME ERROR!!! - Unable to read journal " + journalFile.getPath());
+            return false;
+        }
+        if(completed != checkpoint.getCompletedIterations())
+            ErrorLogging.logError("RESUME WARNING - Checkpoint recorded " + checkpoint.getCompletedIterations() +
+                                  " iteration(s), but the journal holds " + completed + ". Resuming from the journal.");
+        //Readings from an iteration cut short would otherwise appear twice once it is re-run
+        try
+        {
+            int dropped = ResultJournal.truncate(journalFile, completed);
+            if(dropped > 0) 
+                ErrorLogging.logError("Dropped " + dropped + " reading(s) of unfinished iteration " + (completed+1) + 
+                                      " from the journal; it will be re-run.");
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("RESUME ERROR!!! - Unable to trim journal " + journalFile.getPath());
+            return false;
+        }
+        for(Map.Entry<String,String> serial : checkpoint.getSerials().entrySet())
+            ConfigFacade.setSerial(serial.getKey(), serial.getValue());
+        iterationCount = checkpoint.getIterationCount();
+
+        ErrorLogging.logError("Resuming run " + checkpoint.getRunId() + " at iteration " + 
+                              (completed+1) + " of " + checkpoint.getIterationCount() + ".");
+        runTests(checkpoint, completed, null);
+        return true;
+    }
+
+    /**
+     * Test engine.
+     * Runs the iterations of a test run, from a given starting point.
+     * The checkpoint is updated whenever the results journal is flushed, and marked
+     * complete once all iterations are saved.
+     *
+     * @param checkpoint        Checkpoint of the run; supplies the cameras, iteration count and output file
+     * @param startIteration    Index of the first iteration to run (0-based)
+     * @param job               Batch job whose stop conditions apply, and which 
+     *                          receives progress lines; null when interactive
+     *
+     * @return Reason the run was stopped early; null if every iteration was run
+     */
+    private static String runTests(RunCheckpoint checkpoint, int startIteration, BatchJob job)
     {
         println("====================================");
         ErrorLogging.logError("Initialising tests...");
+        StageTimer.reset();
 
         //Bring the iteration count into the function as a final variable
         //useful for multithreading, which isn't necessary in CLI
-        final int localIterations = iterationCount;
+        final int localIterations = checkpoint.getIterationCount();
 
         //Hide legacy functionality
-        boolean prime = false; 
-
-        List<String> cameraList = new ArrayList<>();
-        for(String cameraName : OpenCVFacade.getCameraNames())
-        {
-            prime = (ConfigFacade.getValue(cameraName,ConfigProperties.PRIME) != 0) || prime; 
+        ConfigFacade.applyReloads();
+        boolean prime = isPrimeRequested();
 
-            if(ConfigFacade.getValue(cameraName,ConfigProperties.ACTIVE) != 0)
-                cameraList.add(cameraName);
-        }
+        List<String> cameraList = checkpoint.getCameras();
 
-        DataSaving.initWorkbook(ConfigFacade.getOutputSaveLocation(),cameraList.size());
+        DataSaving.initWorkbook(checkpoint.getOutputFile(),cameraList.size());
+        checkpoint.setCompletedIterations(startIteration);
+        checkpoint.save(true);
+        DataSaving.setCheckpoint(checkpoint);
 
         //Wake the device, then wait to ensure they're awake before continuing
         ErrorLogging.logError("DEBUG: Waking devices...");
+        OpenCVFacade.DisplayReference beforeWake = OpenCVFacade.referenceDisplays(cameraList);
         MovementFacade.pressButton();
-        try{ Thread.sleep(2000); } catch(Exception e){ ErrorLogging.logError(e); }
+        OpenCVFacade.awaitDisplayReady(beforeWake,DISPLAY_READY_TIMEOUT);
 
-        Map<File,Double> resultMap = new HashMap<>();
-        Map<String,File> cameraToFile = new HashMap<>();
+        Map<String,File> cameraToFile = new LinkedHashMap<>();
 
         //Initialise cameraToFile, so keys don't shuffle.
         for(String cameraName : cameraList)
@@ -610,81 +930,260 @@ public class Cli
         }
 
         ErrorLogging.logError("DEBUG: Starting tests...");
+        long runStart = FixtureClock.current().millis();
+        int consecutiveFailures = 0;
+        String stopReason = null;
+        int completedIterations = startIteration;
 
+        //The fixture thread (this thread) moves and captures. OCR and saving run
+        //on the pipeline's worker threads, overlapping with the next iteration's movement.
         //All portions of the test check with the GPIO Run/Pause switch before 
-        //continuing, using the Lock object.
-        for(int i = 0; i < localIterations; i++)
+        //continuing, using the RunGate. Steps already in progress are allowed to finish.
+        try(IterationPipeline pipeline = new IterationPipeline())
         {
-            println("");
-            ErrorLogging.logError("====================================");
-            ErrorLogging.logError("Starting iteration " + (i+1) + " of " + localIterations + "...");
-
-            //Loop the below if errors are created errors include 
-            // - reading of LO on the DUT (Tesseract reads this generally as 1.0 or 117.0)
-            // - Failed reading from the DUT (Tesseract fails this reading, and TesseractFacade.imageToDouble() returns Double.NEGATIVE_INFINITY)
-            boolean fail = false;
-            do
+            int nextIteration = startIteration;
+            int generation = 0;
+            int inFlight = 0;
+            while(completedIterations < localIterations && stopReason == null)
             {
-                fail = false;
-                while(!LOCK.tryLock()) {}
+                //Collect finished results. Only block if there is no movement to start.
+                boolean mustWait = (nextIteration >= localIterations || 
+                                    inFlight >= IterationPipeline.MAX_IN_FLIGHT);
+                IterationPipeline.Outcome outcome;
+                while((outcome = (mustWait ? pipeline.takeOutcome() : pipeline.pollOutcome())) != null)
+                {
+                    mustWait = false;
+                    //An iteration is only complete once it is saved
+                    if(outcome.getStage() == IterationPipeline.Stage.SAVE)
+                    {
+                        if(!outcome.isSuccess())
+                        {
+                            stopReason = "unable to save iteration " + (outcome.getIteration()+1);
+                            break;
+                        }
+                        completedIterations++;
+                        MetricsRegistry.counter("disco_iterations_completed_total", "Iterations saved.").increment();
+                        printPassRates();
+                        if(job != null) 
+                            printProgress(checkpoint, completedIterations, FixtureClock.current().millis() - runStart);
+                        if(completedIterations % TIMING_SUMMARY_INTERVAL == 0 && completedIterations < localIterations)
+                            StageTimer.logSummary("Stage timings after " + completedIterations + " iterations:");
+                        if(job != null && 
+                           (stopReason = job.checkStop(completedIterations, consecutiveFailures, 
+                                                       FixtureClock.current().millis() - runStart,
+                                                       DataSaving.getStatistics())) != null) 
+                            break;
+                        continue;
+                    }
+
+                    //Iterations from before the last retry were discarded by the pipeline
+                    if(outcome.getGeneration() != generation) continue;
+                    inFlight--;
+
+                    if(outcome.isSuccess())
+                    {
+                        consecutiveFailures = 0;
+                        continue;
+                    }
+
+                    consecutiveFailures++;
+                    MetricsRegistry.counter("disco_retries_total", "Iterations re-run after an invalid reading.",
+                                            "cause", retryCause(outcome.getFailedValue())).increment();
+                    if(job != null && 
+                       (stopReason = job.checkStop(completedIterations, consecutiveFailures,
+                                                   FixtureClock.current().millis() - runStart,
+                                                   DataSaving.getStatistics())) != null) 
+                        break;
+
+                    //Loop the failed iteration if errors are created. Errors include 
+                    // - reading of LO on the DUT (Tesseract reads this generally as 1.0 or 117.0)
+                    // - Failed reading from the DUT (Tesseract fails this reading, and TesseractFacade.imageToDouble() returns Double.NEGATIVE_INFINITY)
+                    ErrorLogging.logError("Invalid OCR reading from camera " + outcome.getFailedCamera() + 
+                                          " on iteration " + (outcome.getIteration()+1) + 
+                                          " (" + outcome.getFailedValue() + ")! Resetting DUTs...");
+                    resetDUTs(cameraList);
+                    generation++;
+                    nextIteration = outcome.getIteration();
+                    inFlight = 0;
+                    break;
+                }
+                //Only a blocking wait returns null without an outcome; it was interrupted
+                if(outcome == null && mustWait) stopReason = "interrupted";
+
+                if(stopReason != null || 
+                   nextIteration >= localIterations || inFlight >= IterationPipeline.MAX_IN_FLIGHT) continue;
+
+                println("");
+                ErrorLogging.logError("====================================");
+                ErrorLogging.logError("Starting iteration " + (nextIteration+1) + " of " + localIterations + "...");
+
+                //Edits to the config file take effect here, between iterations
+                if(ConfigFacade.applyReloads() > 0) prime = isPrimeRequested();
+
+                RunGate.awaitRunning();
+                FixtureEvents.Iteration iterationEvent = new FixtureEvents.Iteration();
+                iterationEvent.begin();
+                //Frames of the previous readings, so they are not mistaken for new ones
+                OpenCVFacade.DisplayReference beforePress = OpenCVFacade.referenceDisplays(cameraList);
                 MovementFacade.iterationMovement(prime);
-                LOCK.unlock();
 
-                //Wait for the DUT to display an image
-                try{ Thread.sleep(2000); } catch(Exception e){ ErrorLogging.logError(e); }
+                //Wait for the DUT to display a new reading
+                long settleStart = StageTimer.start();
+                OpenCVFacade.awaitDisplayReady(beforePress,DISPLAY_READY_TIMEOUT);
+                StageTimer.stop(StageTimer.Stage.DISPLAY_SETTLE, settleStart);
 
                 for(String cameraName : cameraList)
                 {
-                    while(!LOCK.tryLock()) {}
+                    RunGate.awaitRunning();
                     File file = OpenCVFacade.completeProcess(cameraName);
-                    LOCK.unlock();
-
-                    while(!LOCK.tryLock()) {}
                     cameraToFile.replace(cameraName,file);
-                    LOCK.unlock();
                 }
 
-                for(String cameraName : cameraList)
-                {
-                    while(!LOCK.tryLock()) {}
-                    File file = cameraToFile.get(cameraName);
-                    LOCK.unlock();
-                    while(!LOCK.tryLock()) {}
-                    Double result = TesseractFacade.imageToDouble(file);
-                    LOCK.unlock();
-                    while(!LOCK.tryLock()) {}
-                    resultMap.put(file,result);
-                    ErrorLogging.logError("Tesseract final output: " + result);
-                    LOCK.unlock();
-                    if(result <= 10  || 
-                       result >= 100 || 
-                       result == Double.NEGATIVE_INFINITY)
-                    {
-                        ErrorLogging.logError("Invalid OCR reading! Resetting DUTs...");
-                        MovementFacade.goUp();
-                        ErrorLogging.logError("Waiting for 20 seconds to allow devices to fall asleep.");
-                        try{ Thread.sleep(20000); } 
-                        catch(Exception e){ ErrorLogging.logError(e); }
-                        ErrorLogging.logError("Waking devices...");
-                        MovementFacade.pressButton();
-                        fail = true;
-                        break;
-                    }
-                }
-            }
-            while(fail);
+                iterationEvent.iteration = nextIteration + 1;
+                iterationEvent.generation = generation;
+                iterationEvent.commit();
 
-            while(!LOCK.tryLock()) {}
-            DataSaving.writeValues(i,resultMap,cameraToFile);
-            LOCK.unlock();
+                pipeline.submit(nextIteration, generation, cameraToFile);
+                inFlight++;
+                nextIteration++;
+            }
 
-            //DO NOT CLEAR camera to file Map. This will change the order of the objects within it
-            resultMap.clear();
+            //Iterations captured past the stopping point are discarded, so the journal 
+            //matches the totals. One already being written is kept, and counted here.
+            if(stopReason != null) pipeline.cancel();
+            pipeline.close();
+            IterationPipeline.Outcome outcome;
+            while((outcome = pipeline.pollOutcome()) != null)
+            {
+                if(outcome.getStage() != IterationPipeline.Stage.SAVE || !outcome.isSuccess()) continue;
+                completedIterations++;
+                MetricsRegistry.counter("disco_iterations_completed_total", "Iterations saved.").increment();
+                if(job != null)
+                    printProgress(checkpoint, completedIterations, FixtureClock.current().millis() - runStart);
+            }
         }
+        //Closing the journal flushes it, which saves the checkpoint one last time
+        DataSaving.closeWorkbook();
+        DataSaving.setCheckpoint(null);
+        if(stopReason == null)
+        {
+            checkpoint.markComplete();
+            checkpoint.save(true);
+        }
+        StageTimer.logSummary("Stage timings for complete run of " + localIterations + " iterations:");
+        logThroughput(completedIterations - startIteration, cameraList.size(), 
+                      FixtureClock.current().millis() - runStart);
+        ErrorLogging.logError("Run paused " + RunGate.getPauseCount() + " time(s), for " + 
+                              (RunGate.getTotalPausedMillis() / 1000) + " s in total.");
         println("=======================================");
-        println("Testing complete!");
+        if(stopReason == null) println("Testing complete!");
+        else
+        {
+            ErrorLogging.logError("Testing stopped early: " + stopReason + ".");
+            FlightRecording.dump("stopped");
+            ErrorLogging.logError("Resume with: --resume " + RunCheckpoint.locationFor(checkpoint.getOutputFile()).getPath());
+        }
+        return stopReason;
+    }
+
+    /**
+     * @return true if any camera's config asks for the DUTs to be primed
+     */
+    private static boolean isPrimeRequested()
+    {
+        boolean prime = false;
+        for(String cameraName : OpenCVFacade.getCameraNames())
+            prime = (ConfigFacade.getValue(cameraName,ConfigProperties.PRIME) != 0) || prime;
+        return prime;
+    }
+
+    /**
+     * Log the throughput of a run.
+     * Time is measured on the {@link FixtureClock}, so simulated runs report
+     * the throughput the real fixture would have.
+     *
+     * @param iterations    Number of iterations completed in this run
+     * @param cameras       Number of cameras in the run
+     * @param runMillis     Length of the run, in milliseconds
+     */
+    private static void logThroughput(int iterations, int cameras, long runMillis)
+    {
+        if(iterations <= 0 || runMillis <= 0) return;
+        double perHour = iterations * 3_600_000.0 / runMillis;
+        ErrorLogging.logError(String.format("Throughput: %d iterations in %.1f min; %.1f iterations/hour, " +
+                              "%.1f readings/hour across %d camera(s).", iterations, runMillis / 60_000.0,
+                              perHour, perHour * cameras, cameras));
+    }
+
+    /**
+     * Classify an invalid reading, for the retry metrics.
+     *
+     * @param value     The invalid reading
+     *
+     * @return "unreadable", "low" (typically the DUT showing LO), or "high"
+     */
+    private static String retryCause(double value)
+    {
+        if(value == Double.NEGATIVE_INFINITY) return "unreadable";
+        return (value <= 10 ? "low" : "high");
+    }
+
+    /**
+     * Print a single-line, machine-readable progress report.
+     * Format: <code>PROGRESS run=ID iteration=N/TOTAL elapsed=SECONDS passRate.CAMERA=FRACTION ...</code>
+     *
+     * @param checkpoint        Checkpoint of the run
+     * @param completed         Iterations saved so far
+     * @param elapsedMillis     Time since the run started
+     */
+    private static void printProgress(RunCheckpoint checkpoint, int completed, long elapsedMillis)
+    {
+        StringBuilder output = new StringBuilder("PROGRESS");
+        output.append(" run=").append(checkpoint.getRunId());
+        output.append(" iteration=").append(completed).append('/').append(checkpoint.getIterationCount());
+        output.append(" elapsed=").append(elapsedMillis / 1000);
+        for(Map.Entry<String,PassStatistics> entry : DataSaving.getStatistics().entrySet())
+        {
+            double passRate = entry.getValue().getPassRate();
+            output.append(" passRate.").append(entry.getKey()).append('=')
+                  .append(Double.isNaN(passRate) ? "NaN" : String.format("%.4f", passRate));
+        }
+        println(output.toString());
+    }
+
+
+    /**
+     * Print each DUT's pass rate so far.
+     * Rates come from {@link DataSaving#getStatistics()}, and include every iteration saved so far.
+     */
+    private static void printPassRates()
+    {
+        StringBuilder output = new StringBuilder("Pass rates:");
+        for(Map.Entry<String,PassStatistics> entry : DataSaving.getStatistics().entrySet())
+        {
+            String serial = ConfigFacade.getSerial(entry.getKey());
+            output.append("  ").append(serial == null || serial.isEmpty() ? entry.getKey() : serial)
+                  .append(": ").append(entry.getValue());
+        }
+        ErrorLogging.logError(output.toString());
     }
 
+    /**
+     * Reset the DUTs after an invalid reading.
+     * Raises the arm, waits for every DUT's display to go dark 
+     * (up to {@link #DISPLAY_SLEEP_TIMEOUT}), then wakes them again.
+     *
+     * @param cameraList    Cameras watching the DUTs under test
+     */
+    private static void resetDUTs(List<String> cameraList)
+    {
+        RunGate.awaitRunning();
+        MovementFacade.goUp();
+        ErrorLogging.logError("Waiting up to " + (DISPLAY_SLEEP_TIMEOUT / 1000) + " seconds for devices to fall asleep.");
+        OpenCVFacade.awaitDisplayDark(cameraList,DISPLAY_SLEEP_TIMEOUT);
+        ErrorLogging.logError("Waking devices...");
+        MovementFacade.pressButton();
+    }
 
     /**
      * Function used if a config file was successfully imported.
@@ -701,12 +1200,30 @@ public class Cli
         ErrorLogging.logError("DEBUG: PROGRAM CLOSING.");
         ErrorLogging.logError("DEBUG: =================");
         if(inputScanner != null) inputScanner.close();
+        DataSaving.closeWorkbook();
+        ConfigFacade.commit();
+        MetricsRegistry.stopServer();
+        FlightRecording.stop();
         MovementFacade.closeGPIO();
         ErrorLogging.logError("DEBUG: END OF PROGRAM.");
         ErrorLogging.closeLogs();
         println("The program has exited successfully. Please press Ctrl-c to return to the terminal prompt.");
     }
 
+    /**
+     * Default workbook location for a journal export: the journal's path, with a .xlsx extension.
+     *
+     * @param journalFile   Location of the journal
+     *
+     * @return Location of the workbook to write
+     */
+    private static String exportLocation(String journalFile)
+    {
+        int extension = journalFile.lastIndexOf('.');
+        int separator = Math.max(journalFile.lastIndexOf('/'), journalFile.lastIndexOf(File.separatorChar));
+        return (extension > separator ? journalFile.substring(0, extension) : journalFile) + ".xlsx";
+    }
+
     /**
      * Parse the user's input at the main menu, and check it for errors.
      *
@@ -1,7 +1,13 @@
 package org.baxter.disco.ocr;
 
+//Static imports
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
 //Standard imports
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.List;
@@ -9,22 +15,49 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.FileSystems;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 //Apache Commons Configuration imports
 import org.apache.commons.configuration2.INIConfiguration;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.apache.commons.configuration2.ex.ConversionException;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.fluent.Parameters;
 
 /**
  * Facade for working with config files, using the Apache Commons 
  * Configuration library.
- * Stores current config setup in a HashMap for easy and quick access.
+ * Stores current config setup in a HashMap for easy and quick access,
+ * and publishes an immutable {@link CameraSettings} snapshot of each camera
+ * for the test loop to read.
+ * Changes are written behind: they take effect immediately, and are saved
+ * at most once per <code>disco.config.saveDelayMs</code> (default 2000 ms),
+ * or straight away by {@link #commit()}. The file is replaced atomically,
+ * so a power loss never leaves a half-written config behind.
  * Can write to file when requested, reads from file on initial start.
+ * With <code>disco.config.watch=true</code>, edits made to the config file
+ * while the program runs are also picked up: each changed camera section is
+ * validated, then applied by {@link #applyReloads()} at the start of the 
+ * test loop's next iteration.
  *
  * @author Blizzard Finnegan
- * @version 1.3.2, 10 Mar. 2023
+ * @version 1.8.1, 18 Oct. 2026
  */
 public class ConfigFacade
 {
@@ -54,11 +87,70 @@ public class ConfigFacade
      */
     private static final Map<String, Map<ConfigProperties, Double>> configMap = new HashMap<>();
 
+    /**
+     * Compiled snapshot of each camera's config, rebuilt from {@link #configMap}
+     * whenever a camera's config changes. Read by the test loop.
+     */
+    private static final Map<String, CameraSettings> SNAPSHOTS = new ConcurrentHashMap<>();
+
     /**
      * Temporary storage for the DUT's serial number.
      */
     private static final Map<String, String> DUT_SERIALS = new HashMap<>();
 
+    /**
+     * Time between a change and its save, in milliseconds. Further changes in 
+     * that time are saved together.
+     */
+    private static final long SAVE_DELAY_MILLIS = Long.getLong("disco.config.saveDelayMs", 2000);
+
+    /**
+     * Thread that saves changes in the background.
+     */
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor((runnable) ->
+    {
+        Thread thread = new Thread(runnable, "Config save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Scheduled save of unsaved changes; null if there are none.
+     * Guarded by the class lock.
+     */
+    private static ScheduledFuture<?> pendingSave = null;
+
+    /**
+     * Whether to watch the config file for edits.
+     */
+    private static final boolean WATCH_CONFIG = Boolean.getBoolean("disco.config.watch");
+
+    /**
+     * Time to let an edit to the config file finish before reading it, in 
+     * milliseconds. Editors often save in several writes.
+     */
+    private static final long RELOAD_SETTLE_MILLIS = 250;
+
+    /**
+     * Longest wait for a config file event before checking whether the 
+     * config file has moved, in milliseconds.
+     */
+    private static final long WATCH_POLL_MILLIS = 1000;
+
+    /**
+     * Contents of the config file as last written or read by this program.
+     * Events for a file that still holds these are the program's own saves.
+     * Guarded by the class lock.
+     */
+    private static byte[] knownContents = new byte[0];
+
+    /**
+     * Validated edits from the config file, waiting for {@link #applyReloads()}:
+     * the new value of each changed property, by camera.
+     * Guarded by the class lock.
+     */
+    private static final Map<String, Map<ConfigProperties, Double>> STAGED_RELOADS = new LinkedHashMap<>();
+
     /**
      * Builder for the main Configuration object.
      *
@@ -129,7 +221,16 @@ public class ConfigFacade
         try{ outputFile.createNewFile(); }
         catch(Exception e){ ErrorLogging.logError(e); }
 
-        CONFIG_BUILDER.setAutoSave(true);
+        //Changes still waiting to be saved are written on the way out
+        Runtime.getRuntime().addShutdownHook(new Thread(ConfigFacade::commit, "Config commit"));
+
+        if(WATCH_CONFIG)
+        {
+            ErrorLogging.logError("Watching config file for changes...");
+            Thread watcher = new Thread(ConfigFacade::watchConfig, "Config watch");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
     }
 
     /**
@@ -148,20 +249,41 @@ public class ConfigFacade
      */
     public static double getValue(String cameraName, ConfigProperties property)
     {
-        double output = 0.0;
-        if(!configMap.keySet().contains(cameraName)) 
-        {
-            ErrorLogging.logError("CONFIG ERROR!!! - Invalid camera name: " + cameraName);
-            ErrorLogging.logError("\tKey set: " + configMap.keySet().toString());
-            ErrorLogging.logError("\tProperty: " + property.getConfig());
-            ErrorLogging.logError("\tconfigMap keys: " + configMap.keySet().toString());
-            return output;
-        }
-        Map<ConfigProperties,Double> cameraConfig = configMap.get(cameraName);
-        output = cameraConfig.get(property);
+        CameraSettings settings = getSettings(cameraName);
+        if(settings == null) return 0.0;
+        return settings.get(property);
+    }
+
+    /**
+     * Get the current snapshot of a camera's config.
+     * The snapshot never changes; fetch a new one to pick up config edits.
+     *
+     * @param cameraName    Name of the camera (defined in {@link OpenCVFacade})
+     *
+     * @return Snapshot of the camera's config; null if the camera has no config
+     */
+    public static CameraSettings getSettings(String cameraName)
+    {
+        CameraSettings output = SNAPSHOTS.get(cameraName);
+        if(output == null) 
+            ErrorLogging.logError("CONFIG ERROR!!! - Invalid camera name: " + cameraName + 
+                                  " (configured cameras: " + SNAPSHOTS.keySet() + ")");
         return output;
     }
 
+    /**
+     * Rebuild a camera's snapshot from its entry in {@link #configMap}.
+     * Called after every change to a camera's config.
+     *
+     * @param cameraName    Name of the camera whose config changed
+     */
+    private static void publish(String cameraName)
+    {
+        Map<ConfigProperties,Double> cameraConfig = configMap.get(cameraName);
+        if(cameraConfig == null) SNAPSHOTS.remove(cameraName);
+        else SNAPSHOTS.put(cameraName, new CameraSettings(cameraConfig));
+    }
+
     /**
      * Called to force early calling of the static block
      */
@@ -218,12 +340,14 @@ public class ConfigFacade
     /**
      * Set a given config value.
      *
+     * The change applies immediately, and is saved to the config file shortly after.
+     *
      * @param cameraName    Name of the camera 
      * @param property      name of the property 
      * @param propertyValue Value of the property
      * @return true if set successfully, otherwise false
      */
-    public static boolean setValue(String cameraName, ConfigProperties property, double propertyValue)
+    public static synchronized boolean setValue(String cameraName, ConfigProperties property, double propertyValue)
     {
         boolean output = false;
 
@@ -235,11 +359,57 @@ public class ConfigFacade
 
         Double oldValue = cameraConfig.get(property);
         output = cameraConfig.replace(property,oldValue,propertyValue);
+        publish(cameraName);
 
-        saveCurrentConfig();
+        scheduleSave();
         return output;
     }
 
+    /**
+     * Get a config value for a camera that may not be connected, such as 
+     * one whose frames were recorded on another machine.
+     * Connected cameras use their current settings; other cameras use their
+     * section of the config file, or the default value if they have none.
+     *
+     * @param cameraName    Name of the camera (config section)
+     * @param property      name of the property ({@link ConfigProperties})
+     *
+     * @return double of config value
+     */
+    public static double getSavedValue(String cameraName, ConfigProperties property)
+    {
+        CameraSettings settings = SNAPSHOTS.get(cameraName);
+        if(settings != null) return settings.get(property);
+        if(CONFIG_STORE == null) return property.getDefaultValue();
+        return CONFIG_STORE.getDouble(cameraName + "." + property.getConfig(), property.getDefaultValue());
+    }
+
+    /**
+     * Set several config values for a camera that may not be connected, 
+     * then save the config file.
+     *
+     * @param cameraName    Name of the camera (config section)
+     * @param values        New value of each property to change
+     *
+     * @return true if saved successfully, otherwise false
+     */
+    public static synchronized boolean setSavedValues(String cameraName, Map<ConfigProperties,Double> values)
+    {
+        if(CONFIG_STORE == null)
+        {
+            ErrorLogging.logError("CONFIG ERROR!!! - No config file loaded; settings for " + cameraName + " not saved.");
+            return false;
+        }
+        Map<ConfigProperties,Double> cameraConfig = configMap.get(cameraName);
+        for(Map.Entry<ConfigProperties,Double> value : values.entrySet())
+        {
+            if(cameraConfig != null) cameraConfig.put(value.getKey(), value.getValue());
+            CONFIG_STORE.setProperty(cameraName + "." + value.getKey().getConfig(), value.getValue());
+        }
+        if(cameraConfig != null) publish(cameraName);
+        return writeConfig();
+    }
+
     /**
      * Setter for a Device Under Test's serial number.
      *
@@ -276,7 +446,7 @@ public class ConfigFacade
      * @param filename  Name and location of the config file (typically, config.ini)
      * @return true if saved successfully, otherwise false
      */
-    public static boolean saveDefaultConfig(String filename)
+    public static synchronized boolean saveDefaultConfig(String filename)
     {
         boolean output = false;
         Set<String> cameraNames = OpenCVFacade.getCameraNames();
@@ -307,15 +477,10 @@ public class ConfigFacade
                 CONFIG_STORE.setProperty(propertyName,propertyValue);
             }
             configMap.put(camera,cameraConfig);
+            publish(camera);
         }
 
-        try
-        { 
-            CONFIG_BUILDER.save(); 
-            output = true;
-        }
-        catch(Exception e){ ErrorLogging.logError(e); }
-
+        output = writeConfig();
         return output;
     }
 
@@ -333,7 +498,7 @@ public class ConfigFacade
      * @param filename  Name and location of the config file (typically, config.properties)
      * @return true if saved successfully, otherwise false
      */
-    public static boolean saveCurrentConfig(String filename)
+    public static synchronized boolean saveCurrentConfig(String filename)
     {
         boolean output = false;
 
@@ -347,19 +512,17 @@ public class ConfigFacade
             for(ConfigProperties property : ConfigProperties.values())
             {
                 String propertyName = camera + "." + property.getConfig();
-                String propertyValue = configMap.get(camera).get(property).toString();
+                //Edits from the file that are not applied yet must not be overwritten
+                Map<ConfigProperties,Double> staged = STAGED_RELOADS.get(camera);
+                Double value = (staged != null && staged.containsKey(property) ? 
+                                staged.get(property) : configMap.get(camera).get(property));
+                String propertyValue = value.toString();
                 CONFIG_STORE.setProperty(propertyName,propertyValue);
             }
         }
 
         //Save to the file
-        try
-        { 
-            CONFIG_BUILDER.save(); 
-            output = true;
-        }
-        catch(Exception e) { ErrorLogging.logError(e); }
-
+        output = writeConfig();
         return output;
     }
 
@@ -377,7 +540,7 @@ public class ConfigFacade
      * @param filename  Name and location of the config file (typically, config.properties)
      * @return true if loaded successfully, otherwise false
      */
-    public static boolean loadConfig(String filename)
+    public static synchronized boolean loadConfig(String filename)
     {
         //Check if the current configMap is empty
         boolean emptyMap = configMap.keySet().size() == 0;
@@ -404,6 +567,8 @@ public class ConfigFacade
                 CONFIG_BUILDER = new FileBasedConfigurationBuilder<>(INIConfiguration.class)
                     .configure(new Parameters().fileBased().setFile(file));
                 CONFIG_STORE = CONFIG_BUILDER.getConfiguration();
+                knownContents = Files.readAllBytes(file.toPath());
+                STAGED_RELOADS.clear();
             }
             catch(Exception e){ ErrorLogging.logError(e); }
 
@@ -418,7 +583,9 @@ public class ConfigFacade
                     {
                         for(ConfigProperties configState : ConfigProperties.values())
                         {
-                            Double configValue = CONFIG_STORE.getDouble(sectionName + "." + configState.getConfig());
+                            //Properties added after the config file was written fall back to their defaults
+                            Double configValue = CONFIG_STORE.getDouble(sectionName + "." + configState.getConfig(),
+                                                                        configState.getDefaultValue());
                             savedSection.put(configState,configValue);
                         }
                     }
@@ -436,6 +603,17 @@ public class ConfigFacade
                         { configMap.put(key,savedSection); }
                     }
                 }
+                publish(sectionName);
+            }
+
+            //Cameras added since the config file was written start from the defaults
+            for(String cameraName : cameraNames)
+            {
+                if(!configSections.contains(cameraName))
+                {
+                    ErrorLogging.logError("DEBUG: No config for camera " + cameraName + "; using defaults.");
+                    saveSingleDefault(cameraName);
+                }
             }
             output = true;
         }
@@ -471,12 +649,272 @@ public class ConfigFacade
             CONFIG_STORE.setProperty(propertyName,propertyValue);
         }
         configMap.put(sectionName,cameraConfig);
+        publish(sectionName);
+        scheduleSave();
+        output = true;
+        return output;
+    }
+
+    /**
+     * Save any changes that have not been saved yet, without waiting for the 
+     * background save. Call after a batch of edits, and before exiting.
+     *
+     * @return false if the save failed; otherwise true
+     */
+    public static synchronized boolean commit()
+    {
+        if(pendingSave == null) return true;
+        return saveCurrentConfig();
+    }
+
+    /**
+     * Schedule a save of the current config, unless one is already scheduled.
+     * Every change made before the save runs is included in it.
+     */
+    private static synchronized void scheduleSave()
+    {
+        if(pendingSave != null) return;
+        pendingSave = SAVER.schedule(ConfigFacade::commit, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the config store to its file, atomically: to a temporary file
+     * first, synced to disk, then renamed over the config file.
+     * Clears any scheduled save, as everything is now saved.
+     *
+     * @return false if the file could not be written; otherwise true
+     */
+    private static synchronized boolean writeConfig()
+    {
+        if(pendingSave != null)
+        {
+            pendingSave.cancel(false);
+            pendingSave = null;
+        }
+        if(CONFIG_STORE == null) return false;
+
+        File file = CONFIG_BUILDER.getFileHandler().getFile();
         try
-        { 
-            CONFIG_BUILDER.save(); 
-            output = true;
+        {
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            Writer writer = new OutputStreamWriter(contents, StandardCharsets.UTF_8);
+            try{ CONFIG_STORE.write(writer); }
+            catch(ConfigurationException e) { throw new IOException(e); }
+            writer.flush();
+
+            byte[] bytes = contents.toByteArray();
+            AtomicFiles.write(file, true, (outputStream) -> outputStream.write(bytes));
+            knownContents = bytes;
+            return true;
         }
-        catch(Exception e){ ErrorLogging.logError(e); }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("CONFIG SAVE ERROR!!! - Unable to write " + file.getPath() + "; the previous file is unchanged.");
+            return false;
+        }
+    }
+
+    //**********************************************
+    //RELOAD EDITED CONFIG
+    //**********************************************
+    //
+
+    /**
+     * Apply validated edits from the config file, publishing new settings 
+     * for each camera they change. Called by the test loop between 
+     * iterations, so an iteration never sees a mix of old and new settings.
+     * Changing whether a camera is active takes effect from the next run.
+     *
+     * @return Number of cameras whose settings changed
+     */
+    public static synchronized int applyReloads()
+    {
+        if(STAGED_RELOADS.isEmpty()) return 0;
+        int output = 0;
+        for(Map.Entry<String, Map<ConfigProperties,Double>> staged : STAGED_RELOADS.entrySet())
+        {
+            String cameraName = staged.getKey();
+            Map<ConfigProperties,Double> cameraConfig = configMap.get(cameraName);
+            if(cameraConfig == null) continue;
+
+            for(Map.Entry<ConfigProperties,Double> change : staged.getValue().entrySet())
+            {
+                ErrorLogging.logError("Config reloaded: " + cameraName + "." + change.getKey().getConfig() + 
+                                      " changed from " + cameraConfig.get(change.getKey()) + 
+                                      " to " + change.getValue());
+                cameraConfig.put(change.getKey(), change.getValue());
+                CONFIG_STORE.setProperty(cameraName + "." + change.getKey().getConfig(), change.getValue());
+            }
+            publish(cameraName);
+            output++;
+        }
+        STAGED_RELOADS.clear();
         return output;
     }
+
+    /**
+     * Watch the config file, and stage any edits made to it.
+     * Runs on its own thread until the program exits.
+     */
+    private static void watchConfig()
+    {
+        try(WatchService watchService = FileSystems.getDefault().newWatchService())
+        {
+            Path directory = null;
+            WatchKey directoryKey = null;
+            while(true)
+            {
+                //The config file moves if a different one is loaded
+                Path file = currentConfigFile();
+                if(!file.getParent().equals(directory))
+                {
+                    if(directoryKey != null) directoryKey.cancel();
+                    directory = file.getParent();
+                    //Saves rename a new file over the config, which shows up as a create
+                    directoryKey = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+                }
+
+                WatchKey key = watchService.poll(WATCH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if(key == null) continue;
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents())
+                    changed = file.getFileName().equals(event.context()) || changed;
+                key.reset();
+                if(!changed) continue;
+
+                //Let the edit finish, and fold its other events into this reload
+                Thread.sleep(RELOAD_SETTLE_MILLIS);
+                while((key = watchService.poll()) != null)
+                {
+                    key.pollEvents();
+                    key.reset();
+                }
+                stageReload(file);
+            }
+        }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+        catch(Exception e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("CONFIG WATCH ERROR!!! - No longer watching the config file; restart to pick up edits.");
+        }
+    }
+
+    /**
+     * Check that a camera's crop region fits inside its frames once edits are applied.
+     *
+     * @param cameraName    Name of the camera
+     * @param cameraConfig  Camera's current config
+     * @param staged        Edits already staged for the camera; may be null
+     * @param changes       New edits for the camera
+     *
+     * @return Reason the crop region is invalid; null if it fits
+     */
+    private static String validateCrop(String cameraName, Map<ConfigProperties,Double> cameraConfig,
+                                       Map<ConfigProperties,Double> staged, Map<ConfigProperties,Double> changes)
+    {
+        Map<ConfigProperties,Double> values = new HashMap<>(cameraConfig);
+        if(staged != null) values.putAll(staged);
+        values.putAll(changes);
+
+        int width = OpenCVFacade.getImageWidth(cameraName), height = OpenCVFacade.getImageHeight(cameraName);
+        double right = values.get(ConfigProperties.CROP_X) + values.get(ConfigProperties.CROP_W);
+        double bottom = values.get(ConfigProperties.CROP_Y) + values.get(ConfigProperties.CROP_H);
+        if(right > width) 
+            return cameraName + ".cropX + cropW = " + right + " is past the frame's width of " + width;
+        if(bottom > height) 
+            return cameraName + ".cropY + cropH = " + bottom + " is past the frame's height of " + height;
+        return null;
+    }
+
+    /**
+     * @return Absolute path of the config file currently in use
+     */
+    private static synchronized Path currentConfigFile()
+    { return CONFIG_BUILDER.getFileHandler().getFile().toPath().toAbsolutePath(); }
+
+    /**
+     * Read an edited config file, and stage its changes for {@link #applyReloads()}.
+     * Only properties whose values changed are staged. A camera section with
+     * any invalid value, or a crop region that does not fit in the frame, is
+     * rejected whole, keeping that camera's current settings.
+     *
+     * @param file  Config file that changed
+     */
+    private static synchronized void stageReload(Path file)
+    {
+        byte[] contents;
+        try{ contents = Files.readAllBytes(file); }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("CONFIG RELOAD ERROR!!! - Unable to read " + file + "; keeping current settings.");
+            return;
+        }
+        //The program's own saves, and editors saving without changes
+        if(Arrays.equals(contents, knownContents)) return;
+
+        INIConfiguration edited = new INIConfiguration();
+        try{ edited.read(new StringReader(new String(contents, StandardCharsets.UTF_8))); }
+        catch(ConfigurationException | IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("CONFIG RELOAD ERROR!!! - Unable to parse " + file + "; keeping current settings.");
+            return;
+        }
+        knownContents = contents;
+
+        for(String cameraName : edited.getSections())
+        {
+            if(cameraName == null) continue;
+            Map<ConfigProperties,Double> cameraConfig = configMap.get(cameraName);
+            if(cameraConfig == null)
+            {
+                ErrorLogging.logError("DEBUG: Config section " + cameraName + " is not a connected camera; ignored.");
+                continue;
+            }
+
+            Map<ConfigProperties,Double> staged = STAGED_RELOADS.get(cameraName);
+            Map<ConfigProperties,Double> changes = new LinkedHashMap<>();
+            String problem = null;
+            for(ConfigProperties property : ConfigProperties.values())
+            {
+                String key = cameraName + "." + property.getConfig();
+                //Properties removed from the file keep their current value
+                if(!edited.containsKey(key)) continue;
+
+                double value;
+                try{ value = edited.getDouble(key); }
+                catch(ConversionException e)
+                {
+                    problem = key + " = " + edited.getString(key) + " is not a number";
+                    break;
+                }
+                String reason = property.validate(value);
+                if(reason != null)
+                {
+                    problem = key + " = " + value + " " + reason;
+                    break;
+                }
+
+                Double current = (staged != null && staged.containsKey(property) ? 
+                                  staged.get(property) : cameraConfig.get(property));
+                if(current == null || current != value) changes.put(property, value);
+            }
+
+            //The crop region must fit in the frame, with the edits applied
+            if(problem == null) problem = validateCrop(cameraName, cameraConfig, staged, changes);
+
+            if(problem != null)
+            {
+                ErrorLogging.logError("CONFIG RELOAD ERROR!!! - " + problem + "; keeping current settings for " + cameraName + ".");
+                continue;
+            }
+            if(changes.isEmpty()) continue;
+            ErrorLogging.logError("Config file changed for " + cameraName + " (" + changes.size() + 
+                                  " value(s)); applying at the next iteration.");
+            STAGED_RELOADS.computeIfAbsent(cameraName, (name) -> new LinkedHashMap<>()).putAll(changes);
+        }
+    }
 }
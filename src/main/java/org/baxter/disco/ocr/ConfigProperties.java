@@ -4,7 +4,7 @@ package org.baxter.disco.ocr;
  * Enum of possible config properties.
  *
  * @author Blizzard Finnegan
- * @version 2.1.0, 27 Jan. 2023
+ * @version 2.3.1, 18 Oct. 2026
  */
 public enum ConfigProperties
 {
@@ -49,7 +49,17 @@ public enum ConfigProperties
     /**
      * Whether the camera should be active.
      */
-    ACTIVE("Camera active?","active",1.0);
+    ACTIVE("Camera active?","active",1.0),
+
+    /**
+     * Mean brightness (0-255) of the cropped image at which the DUT's display is considered lit.
+     */
+    DISPLAY_LIT_LEVEL("Display lit level","litLevel",50.0);
+
+    /**
+     * Most frames a camera may composite; a second's worth at 30 frames per second.
+     */
+    public static final int MAX_COMPOSITE_FRAMES = 30;
 
     /**
      * Internal storage of human-readable name/meaning
@@ -76,6 +86,35 @@ public enum ConfigProperties
     public double getDefaultValue()
     { return defaultValue; }
 
+    /**
+     * Check whether a value makes sense for this property, such as one read
+     * from a hand-edited config file. Only the value itself is checked; 
+     * whether the crop region fits the frame depends on the camera, and is
+     * checked by {@link ConfigFacade}.
+     *
+     * @param value Value to check
+     *
+     * @return Reason the value is invalid; null if it is valid
+     */
+    public String validate(double value)
+    {
+        if(Double.isNaN(value) || Double.isInfinite(value)) return "not a number";
+        switch(this)
+        {
+            case CROP_X: case CROP_Y:
+                return (value < 0 ? "must not be negative" : null);
+            case CROP_W: case CROP_H:
+                return (value < 1 ? "must be at least 1" : null);
+            case COMPOSITE_FRAMES:
+                return (value < 1 || value > MAX_COMPOSITE_FRAMES ? 
+                        "must be between 1 and " + MAX_COMPOSITE_FRAMES : null);
+            case THRESHOLD_VALUE: case DISPLAY_LIT_LEVEL:
+                return (value < 0 || value > 255 ? "must be between 0 and 255" : null);
+            default:
+                return null;
+        }
+    }
+
     /**
      * Getter for the config-readable name of the value.
      *
@@ -3,52 +3,164 @@ package org.baxter.disco.ocr;
 //Standard imports
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 
+//Static imports for OpenCV
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imencode;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+import static org.bytedeco.opencv.global.opencv_imgproc.INTER_AREA;
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+//OpenCV imports
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Size;
+
 //Generic spreadsheet imports
-import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.util.IOUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.ClientAnchor;
 import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Drawing;
 import org.apache.poi.ss.usermodel.FillPatternType;
-import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellReference;
 
 //Excel-specific imports
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFCellStyle;
-import org.apache.poi.hssf.usermodel.HSSFClientAnchor;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFPatriarch;
-import static org.apache.poi.hssf.util.HSSFColor.HSSFColorPredefined;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 /**
  * Facade for saving data out to a file.
  *
+ * During a run, every iteration is appended to a {@link ResultJournal},
+ * stored next to the output file with a .csv extension. The journal is the
+ * live data store. The styled workbook, with its pass percentages, is
+ * generated from the journal at the end of the run, or on demand with
+ * {@link #exportWorkbook(String, String)}.
+ *
+ * Pass rates are tallied in {@link PassStatistics} as results arrive,
+ * so the live rates and the workbook's summary never re-scan old results.
+ *
+ * Every image cell links to its image file. Which images are also embedded
+ * is set by {@link ImageMode}, chosen with the <code>disco.images</code>
+ * system property (default THUMBNAIL). Identical images are only stored
+ * in the workbook once.
+ *
+ * The workbook format is chosen by the output file's extension:
+ * <ul>
+ *  <li><b>.xlsx</b> (default): streamed through POI's SXSSF, holding only
+ *      the last {@link #ROW_WINDOW} rows in memory.</li>
+ *  <li><b>.xls</b>: legacy HSSF workbook, limited to 65,536 rows.</li>
+ * </ul>
+ *
  * @author Blizzard Finnegan
- * @version 5.0.1, 10 Mar. 2023
+ * @version 6.5.3, 18 Oct. 2026
  */
 public class DataSaving
 {
     /**
-     * Workbook object; used for writing to the final XLSX file.
+     * Number of rows the streaming workbook keeps in memory before flushing to its temporary file.
+     */
+    private static final int ROW_WINDOW = 100;
+
+    /**
+     * Largest row index available in a legacy HSSF workbook.
+     */
+    private static final int HSSF_MAX_ROW = 65535;
+
+    /**
+     * Largest width of an embedded thumbnail, in pixels.
      */
-    private static HSSFWorkbook outputWorkbook;
+    private static final int THUMBNAIL_WIDTH = 160;
+
+    /**
+     * Default number of iterations between embedded images, in {@link ImageMode#EVERY_NTH} mode.
+     */
+    private static final int DEFAULT_IMAGE_INTERVAL = 10;
+
+    /**
+     * Which images are embedded into the workbook.
+     */
+    private static ImageMode imageMode = ImageMode.THUMBNAIL;
+
+    /**
+     * Number of iterations between embedded images, in {@link ImageMode#EVERY_NTH} mode.
+     */
+    private static int imageInterval = DEFAULT_IMAGE_INTERVAL;
+
+    /**
+     * Picture index of every image embedded in the current workbook, by SHA-256 of its contents.
+     */
+    private static final Map<String,Integer> pictureIds = new HashMap<>();
+
+    /**
+     * When the journal is flushed to disk.
+     */
+    private static ResultJournal.FlushPolicy flushPolicy = ResultJournal.FlushPolicy.fromSystemProperties();
+
+    /**
+     * Journal recording the current run.
+     */
+    private static ResultJournal journal;
+
+    /**
+     * Running statistics for the current run, by camera name.
+     */
+    private static final Map<String,PassStatistics> liveStatistics = new LinkedHashMap<>();
+
+    /**
+     * Checkpoint of the current run; saved whenever the journal is flushed. May be null.
+     */
+    private static RunCheckpoint checkpoint;
+
+    /**
+     * Location of the workbook to export when the current run finishes.
+     */
+    private static String outputLocation;
+
+    /**
+     * Workbook object; used for writing to the final output file.
+     */
+    private static Workbook outputWorkbook;
     /**
      * Object defining what sheet within the workbook we are working in.
      */
-    private static HSSFSheet outputSheet;
+    private static Sheet outputSheet;
 
     /**
-     * File representing the location of the final output file.
+     * Drawing patriarch of {@link #outputSheet}, holding all embedded images.
      */
-    private static File outputFile;
+    private static Drawing<?> patriarch;
+
+    /**
+     * Whether {@link #outputWorkbook} is a streaming workbook.
+     */
+    private static boolean streaming;
+
+    /**
+     * Index of the last row holding iteration data.
+     */
+    private static int lastDataRow;
 
     /**
      * Default target temperature
@@ -63,44 +175,383 @@ public class DataSaving
     /**
      * Style of cell if the measurement falls outside the fail range
      */
-    private static HSSFCellStyle failStyle;
+    private static CellStyle failStyle;
 
     /**
      * Style of cell if Tesseract can't read the image
      */
-    private static HSSFCellStyle errorStyle;
+    private static CellStyle errorStyle;
 
     /**
      * Style of a default cell
      */
-    private static HSSFCellStyle defaultStyle;
+    private static CellStyle defaultStyle;
 
     /**
      * Style of the total cells (sets typing to %)
      */
-    private static HSSFCellStyle finalValuesStyle;
+    private static CellStyle finalValuesStyle;
+
+    static
+    {
+        String mode = System.getProperty("disco.images", imageMode.name());
+        try{ imageMode = ImageMode.valueOf(mode.trim().toUpperCase()); }
+        catch(IllegalArgumentException e)
+        { ErrorLogging.logError("DATA SAVING WARNING - Unknown image mode " + mode + "; using " + imageMode + "."); }
+        try{ imageInterval = Math.max(1, Integer.parseInt(System.getProperty("disco.images.interval",
+                                                          Integer.toString(imageInterval)))); }
+        catch(NumberFormatException e)
+        { ErrorLogging.logError("DATA SAVING WARNING - Invalid image interval; using " + imageInterval + "."); }
+    }
+
+    /**
+     * Set which images are embedded into exported workbooks.
+     *
+     * @param mode      Image handling mode
+     * @param interval  Iterations between embedded images, for {@link ImageMode#EVERY_NTH}
+     */
+    public static void setImageMode(ImageMode mode, int interval)
+    {
+        imageMode = mode;
+        imageInterval = Math.max(1, interval);
+    }
+
+    /**
+     * Getter for the current image handling mode.
+     *
+     * @return Current {@link ImageMode}
+     */
+    public static ImageMode getImageMode()
+    { return imageMode; }
+
+    /**
+     * Set when journal writes are flushed, for runs started after this call.
+     *
+     * @param policy    New flush policy
+     */
+    public static void setFlushPolicy(ResultJournal.FlushPolicy policy)
+    { flushPolicy = policy; }
+
+    /**
+     * Set the checkpoint to update as iterations are saved. It is written to
+     * disk whenever the journal is flushed, following the journal's 
+     * {@link ResultJournal.FlushPolicy}, so it never runs ahead of the journal
+     * and adds no writes of its own between flushes.
+     *
+     * @param runCheckpoint     Checkpoint of the current run; null to stop checkpointing
+     */
+    public static void setCheckpoint(RunCheckpoint runCheckpoint)
+    { checkpoint = runCheckpoint; }
 
     /**
-     * Prepares writer to write to XLSX file, with default fail values.
+     * Prepares writer for a new run, with default fail values.
      */
     public static boolean initWorkbook(String filename, int camCount)
     { return initWorkbook(filename, camCount, targetTemp, failRange); }
 
     /**
-     * Prepares writer to write to XLSX file, with custom fail values.
+     * Prepares writer for a new run, with custom fail values.
+     * Opens the run's journal; the workbook itself is written by {@link #closeWorkbook()}.
+     * If the journal already exists (a resumed run), new results are appended
+     * to it, and its results are counted in the live statistics.
+     *
+     * @param filename      Location of the output workbook
+     * @param camCount      Number of cameras in the run
+     * @param targetTemp    Target temperature
+     * @param failRange     Range around the target temperature that is considered a pass
+     *
+     * @return true if the journal was opened; otherwise false
      */
     public static boolean initWorkbook(String filename, int camCount, double targetTemp, double failRange)
     {
+        //Finish any previous run before starting a new one
+        closeWorkbook();
+
         DataSaving.targetTemp = targetTemp;
         DataSaving.failRange = failRange;
+        outputLocation = filename;
+        File journalFile = new File(getJournalLocation(filename));
+        synchronized(liveStatistics) 
+        { 
+            liveStatistics.clear(); 
+            if(journalFile.exists())
+            {
+                try{ ResultJournal.read(journalFile, DataSaving::recordStatistics); }
+                catch(IOException e) { ErrorLogging.logError(e); }
+            }
+        }
+        try
+        {
+            journal = new ResultJournal(journalFile, flushPolicy);
+            journal.setFlushListener(DataSaving::saveCheckpoint);
+            ErrorLogging.logError("Recording results to " + journalFile.getPath());
+            return true;
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("DATA SAVING ERROR!!! - Unable to open results journal " + journalFile.getPath());
+            return false;
+        }
+    }
+
+    /**
+     * Find the journal belonging to an output workbook.
+     *
+     * @param outputFilename    Location of the output workbook
+     *
+     * @return Location of the journal: the same path, with a .csv extension
+     */
+    public static String getJournalLocation(String outputFilename)
+    {
+        int extension = outputFilename.lastIndexOf('.');
+        int separator = Math.max(outputFilename.lastIndexOf('/'), outputFilename.lastIndexOf(File.separatorChar));
+        String baseName = (extension > separator ? outputFilename.substring(0, extension) : outputFilename);
+        return baseName + ".csv";
+    }
+
+    /**
+     * Finish the current run.
+     * Closes the journal, then exports the workbook from it. Safe to call more than once.
+     *
+     * @return true if the workbook was written, or there was nothing to write; otherwise false
+     */
+    public static boolean closeWorkbook()
+    {
+        if(journal == null) return true;
+        File journalFile = journal.getFile();
+        journal.close();
+        journal = null;
+        return exportWorkbook(journalFile.getPath(), outputLocation);
+    }
+
+    /**
+     * Flush the journal if buffered iterations have waited longer than the flush policy allows.
+     * Called periodically by the result writer while it is idle.
+     */
+    public static void flushIfDue()
+    {
+        ResultJournal currentJournal = journal;
+        if(currentJournal == null) return;
+        try{ currentJournal.flushIfDue(); }
+        catch(IOException e) { ErrorLogging.logError(e); }
+    }
+
+    /**
+     * Writes an iteration's results to the journal, without OCR confidences.
+     *
+     * @param cycle         What test cycle is being saved to the file
+     * @param inputMap      Map[File,Double] list of inputs
+     * @param cameraToFile  Map[String,File] of camera name to image, in camera order
+     *
+     * @return Returns whether values were saved successfully.
+     */
+    public static boolean writeValues(int cycle, Map<File,Double> inputMap, Map<String,File> cameraToFile)
+    { return writeValues(cycle, inputMap, Collections.emptyMap(), cameraToFile); }
+
+    /**
+     * Writes an iteration's results to the journal.
+     *
+     * @param cycle         What test cycle is being saved to the file
+     * @param inputMap      Map[File,Double] list of inputs
+     * @param confidenceMap Map[File,Integer] of OCR confidences; missing entries are recorded as unknown
+     * @param cameraToFile  Map[String,File] of camera name to image, in camera order
+     *
+     * @return Returns whether values were saved successfully.
+     */
+    public static boolean writeValues(int cycle, Map<File,Double> inputMap,
+                                      Map<File,Integer> confidenceMap, Map<String,File> cameraToFile)
+    {
+        FixtureEvents.WorkbookWrite event = new FixtureEvents.WorkbookWrite();
+        event.begin();
+        long start = StageTimer.start();
+        boolean output = writeValuesUntimed(cycle, inputMap, confidenceMap, cameraToFile);
+        StageTimer.stop(StageTimer.Stage.JOURNAL_WRITE, start);
+        event.kind = "journal";
+        event.iteration = cycle;
+        event.success = output;
+        event.commit();
+        return output;
+    }
+
+    /**
+     * Journal logic for {@link #writeValues(int, Map, Map, Map)}, without stage timing.
+     *
+     * @param cycle         What test cycle is being saved to the file
+     * @param inputMap      Map[File,Double] list of inputs
+     * @param confidenceMap Map[File,Integer] of OCR confidences
+     * @param cameraToFile  Map[String,File] of camera name to image, in camera order
+     *
+     * @return Returns whether values were saved successfully.
+     */
+    private static boolean writeValuesUntimed(int cycle, Map<File,Double> inputMap,
+                                              Map<File,Integer> confidenceMap, Map<String,File> cameraToFile)
+    {
+        if(journal == null)
+        {
+            ErrorLogging.logError("DATA SAVING ERROR!!! - Results journal has not been initialised.");
+            return false;
+        }
+
+        Instant written = Instant.now();
+        List<ResultJournal.Record> records = new ArrayList<>();
+        for(Map.Entry<String,File> entry : cameraToFile.entrySet())
+        {
+            File file = entry.getValue();
+            Double ocrRead = inputMap.get(file);
+            records.add(new ResultJournal.Record(cycle + 1, entry.getKey(),
+                            ConfigFacade.getSerial(entry.getKey()),
+                            (ocrRead == null ? Double.NEGATIVE_INFINITY : ocrRead),
+                            confidenceMap.getOrDefault(file, -1),
+                            file.getPath(), Instant.ofEpochMilli(file.lastModified()), written));
+        }
+
+        //Counted before the append, which may flush and save the checkpoint
+        RunCheckpoint currentCheckpoint = checkpoint;
+        if(currentCheckpoint != null) currentCheckpoint.setCompletedIterations(cycle + 1);
+        try
+        {
+            journal.append(records);
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            if(currentCheckpoint != null) currentCheckpoint.setCompletedIterations(cycle);
+            return false;
+        }
+
+        synchronized(liveStatistics)
+        {
+            for(ResultJournal.Record record : records) recordStatistics(record);
+        }
+        return true;
+    }
+
+    /**
+     * Save the current run's checkpoint. Called each time the journal is flushed.
+     */
+    private static void saveCheckpoint()
+    {
+        RunCheckpoint currentCheckpoint = checkpoint;
+        if(currentCheckpoint != null) currentCheckpoint.save(flushPolicy.isSync());
+    }
+
+    /**
+     * Add a record to the live statistics. Callers must hold the lock on {@link #liveStatistics}.
+     *
+     * @param record    Record to count
+     */
+    private static void recordStatistics(ResultJournal.Record record)
+    {
+        liveStatistics.computeIfAbsent(record.getCamera(), 
+                (camera) -> new PassStatistics(targetTemp, failRange)).record(record.getValue());
+    }
+
+    /**
+     * Getter for the current run's statistics.
+     *
+     * @return Map of camera name to {@link PassStatistics}, in camera order.
+     *         The map is a copy; the statistics continue to update.
+     */
+    public static Map<String,PassStatistics> getStatistics()
+    {
+        synchronized(liveStatistics) { return new LinkedHashMap<>(liveStatistics); }
+    }
+
+    /**
+     * Generate the styled workbook from a results journal.
+     *
+     * @param journalFilename   Journal to read
+     * @param outputFilename    Workbook to write. A .xls extension writes a legacy HSSF workbook;
+     *                          anything else writes a streamed .xlsx workbook.
+     *
+     * @return true if the workbook was written; otherwise false
+     */
+    public static boolean exportWorkbook(String journalFilename, String outputFilename)
+    {
+        FixtureEvents.WorkbookWrite event = new FixtureEvents.WorkbookWrite();
+        event.begin();
+        long start = StageTimer.start();
+        File journalFile = new File(journalFilename);
+
+        //First pass: find the cameras, in the order they first appear
+        List<String> cameraNames = new ArrayList<>();
+        try
+        {
+            ResultJournal.read(journalFile, (record) ->
+            { if(!cameraNames.contains(record.getCamera())) cameraNames.add(record.getCamera()); });
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("DATA SAVING ERROR!!! - Unable to read results journal " + journalFilename);
+            //Still recorded; failed exports are the ones worth finding in a recording
+            StageTimer.stop(StageTimer.Stage.WORKBOOK_WRITE, start);
+            event.kind = "export";
+            event.iteration = -1;
+            event.success = false;
+            event.commit();
+            return false;
+        }
+
+        createWorkbook(outputFilename, cameraNames);
+
+        //Second pass: one row per iteration, tallying statistics along the way
+        Map<String,PassStatistics> statistics = new LinkedHashMap<>();
+        Map<String,String> serials = new LinkedHashMap<>();
+        for(String cameraName : cameraNames)
+            statistics.put(cameraName, new PassStatistics(targetTemp, failRange));
+        Map<String,ResultJournal.Record> iterationRecords = new LinkedHashMap<>();
+        int[] currentIteration = { -1 };
         boolean output = false;
-        outputFile = new File(filename);
+        try
+        {
+            ResultJournal.read(journalFile, (record) ->
+            {
+                if(record.getIteration() != currentIteration[0] && !iterationRecords.isEmpty())
+                {
+                    appendRow(currentIteration[0], cameraNames, iterationRecords);
+                    iterationRecords.clear();
+                }
+                currentIteration[0] = record.getIteration();
+                iterationRecords.put(record.getCamera(), record);
+                statistics.get(record.getCamera()).record(record.getValue());
+                serials.put(record.getCamera(), record.getSerial());
+            });
+            if(!iterationRecords.isEmpty()) appendRow(currentIteration[0], cameraNames, iterationRecords);
+
+            writeSummarySheet(statistics, serials);
+            output = saveWorkbook(new File(outputFilename));
+        }
+        catch(IOException e) { ErrorLogging.logError(e); }
+        finally { disposeWorkbook(); }
+
+        StageTimer.stop(StageTimer.Stage.WORKBOOK_WRITE, start);
+        event.kind = "export";
+        event.iteration = currentIteration[0];
+        event.success = output;
+        event.commit();
+        if(output) ErrorLogging.logError("Results saved to " + outputFilename);
+        return output;
+    }
+
+    /**
+     * Create an empty workbook with its styles and title row.
+     *
+     * @param filename      Location of the output workbook; the extension picks the format
+     * @param cameraNames   Cameras, in column order
+     */
+    private static void createWorkbook(String filename, List<String> cameraNames)
+    {
         DataFormat format = null;
 
         //Create workbook, Sheet, and DataFormat object
-        //HSSF objects are used, as these are compatible with Microsoft Excel
-        outputWorkbook = new HSSFWorkbook(); 
-        outputSheet = outputWorkbook.createSheet();
+        //HSSF objects are only used when a legacy .xls file is requested
+        streaming = !filename.toLowerCase().endsWith(".xls");
+        outputWorkbook = (streaming ? new SXSSFWorkbook(ROW_WINDOW) : new HSSFWorkbook());
+        outputSheet = outputWorkbook.createSheet("Results");
+        patriarch = outputSheet.createDrawingPatriarch();
+        pictureIds.clear();
         format = outputWorkbook.createDataFormat();
 
         defaultStyle = outputWorkbook.createCellStyle();
@@ -111,27 +562,26 @@ public class DataSaving
 
         //Note on backgrounds:
         //Excel cells have a foreground and a background, allowing
-        //for various patterned backgrounds. 
-        //To set a solid background, and NOT modify the font, 
+        //for various patterned backgrounds.
+        //To set a solid background, and NOT modify the font,
         //as below is shown, we need to set the foreground color.
-        //As of POI 5.2.3, there is no defined fill type 
+        //As of POI 5.2.3, there is no defined fill type
         //SOLID_BACKGROUND or similar
         failStyle = outputWorkbook.createCellStyle();
-        failStyle.setFillForegroundColor(HSSFColorPredefined.RED.getIndex());
+        failStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
         failStyle.setDataFormat(format.getFormat("0.0"));
         failStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
 
         errorStyle = outputWorkbook.createCellStyle();
-        errorStyle.setFillForegroundColor(HSSFColorPredefined.YELLOW.getIndex());
+        errorStyle.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
         errorStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
 
-
-        int startingRow = outputSheet.getLastRowNum();
-        HSSFRow row = outputSheet.createRow(++startingRow);
+        Row row = outputSheet.createRow(0);
+        lastDataRow = 0;
         int cellnum = 0;
-        HSSFCell cell = row.createCell(cellnum++);
+        Cell cell = row.createCell(cellnum++);
         cell.setCellValue("Iteration");
-        for(int i = 0; i < camCount; i++)
+        for(int i = 0; i < cameraNames.size(); i++)
         {
             cell = row.createCell(cellnum++);
             cell.setCellValue("Serial");
@@ -142,132 +592,170 @@ public class DataSaving
             cell = row.createCell(cellnum++);
             cell.setCellValue("");
         }
-        HSSFCell serialTitleCell = row.createCell(cellnum++);
-        serialTitleCell.setCellValue("Serial");
-        HSSFCell passPercentCell = row.createCell(cellnum++);
-        passPercentCell.setCellValue("Pass %");
+    }
 
-        try (FileOutputStream outputStream = new FileOutputStream(outputFile))
-        { outputWorkbook.write(outputStream); }
+    /**
+     * Write the complete workbook out to a file.
+     * The file is replaced atomically, so an interrupted save leaves the previous file intact.
+     *
+     * @param outputFile    Where to write the workbook
+     *
+     * @return true if the file was written; otherwise false
+     */
+    private static boolean saveWorkbook(File outputFile)
+    {
+        boolean output = false;
+        try
+        { 
+            AtomicFiles.write(outputFile, flushPolicy.isSync(), outputWorkbook::write);
+            output = true; 
+        }
         catch(Exception e) {ErrorLogging.logError(e);}
-
         return output;
     }
 
     /**
-     * Add final totals to the excel document. 
-     * Run at the end of testing.
-     *
-     * @param cameraCount   The number of cameras that were used.
+     * Release the workbook, and any temporary files it holds.
      */
-    private static void updateFormulas(int cameraCount)
+    private static void disposeWorkbook()
     {
-        int rowIndex = 0;
-        FormulaEvaluator formulaEvaluator = outputWorkbook.getCreationHelper().createFormulaEvaluator();
-        int lastColumnOfData = outputSheet.getRow(rowIndex).getLastCellNum();
-        int serialColumn = lastColumnOfData - 2;
-        int percentColumn = lastColumnOfData - 1;
-        
-        int lastRowOfData = outputSheet.getLastRowNum();
+        if(outputWorkbook == null) return;
+        if(streaming) ((SXSSFWorkbook)outputWorkbook).dispose();
+        try{ outputWorkbook.close(); }
+        catch(Exception e) { ErrorLogging.logError(e); }
+        outputWorkbook = null;
+        outputSheet = null;
+        patriarch = null;
+        pictureIds.clear();
+    }
 
+    /**
+     * Add a summary sheet, holding each camera's serial and statistics.
+     * The statistics are written as values. The pass percentage is also written
+     * as a COUNTIF formula over the Results sheet, so it follows any edits made
+     * there; it is written once, with the tallied pass rate as its cached result,
+     * and is never evaluated here.
+     *
+     * @param statistics    Statistics for each camera, in camera order
+     * @param serials       Serial number recorded for each camera
+     */
+    private static void writeSummarySheet(Map<String,PassStatistics> statistics, Map<String,String> serials)
+    {
+        Sheet summarySheet = outputWorkbook.createSheet("Summary");
+        Row titleRow = summarySheet.createRow(0);
+        String[] titles = { "Camera", "Serial", "Readings", "In range", "Out of range", "Errors",
+                            "Pass %", "Mean", "Std. dev.", "Min", "Max", "Pass % (formula)" };
+        for(int i = 0; i < titles.length; i++)
+            titleRow.createCell(i).setCellValue(titles[i]);
+
+        String dataSheetName = outputSheet.getSheetName();
+        int lastRow = (streaming ? lastDataRow : Math.min(lastDataRow, HSSF_MAX_ROW));
         int column = 1;
-        for(int i = 0; i < cameraCount; i++)
+        int rowIndex = 1;
+        for(Map.Entry<String,PassStatistics> entry : statistics.entrySet())
         {
-            String serialColumnName = CellReference.convertNumToColString(column);
+            PassStatistics cameraStatistics = entry.getValue();
+            Row row = summarySheet.createRow(rowIndex++);
+            int cellnum = 0;
+            row.createCell(cellnum++).setCellValue(entry.getKey());
+            row.createCell(cellnum++).setCellValue(serials.getOrDefault(entry.getKey(), ""));
+            row.createCell(cellnum++).setCellValue(cameraStatistics.getTotal());
+            row.createCell(cellnum++).setCellValue(cameraStatistics.getInRange());
+            row.createCell(cellnum++).setCellValue(cameraStatistics.getOutOfRange());
+            row.createCell(cellnum++).setCellValue(cameraStatistics.getErrors());
+            writeStatistic(row.createCell(cellnum++), cameraStatistics.getPassRate(), finalValuesStyle);
+            writeStatistic(row.createCell(cellnum++), cameraStatistics.getMean(), defaultStyle);
+            writeStatistic(row.createCell(cellnum++), cameraStatistics.getStandardDeviation(), null);
+            writeStatistic(row.createCell(cellnum++), cameraStatistics.getMin(), defaultStyle);
+            writeStatistic(row.createCell(cellnum++), cameraStatistics.getMax(), defaultStyle);
+
             String dataColumnName = CellReference.convertNumToColString(column + 2);
-            ErrorLogging.logError("DEBUG: Serial Column name: " + serialColumnName);
-            HSSFRow row = outputSheet.getRow(++rowIndex);
-            if(row == null) 
-            {
-                row = outputSheet.createRow(rowIndex);
-            }
-            ErrorLogging.logError("DEBUG: Row index: " + rowIndex);
-            ErrorLogging.logError("DEBUG: Column (int): " + serialColumn);
-            HSSFCell serialCell = row.createCell(serialColumn);
-            String formula = "$" + serialColumnName + "$" + (rowIndex+1);
-            serialCell.setCellFormula(formula);
-            formulaEvaluator.evaluate(serialCell);
-
-            HSSFCell percentCell = row.createCell(percentColumn);
-            String verticalArray = String.format("$%s$2:$%s$%s",dataColumnName,dataColumnName,(lastRowOfData+1));
-            ErrorLogging.logError("DEBUG: Vertical Array: " + verticalArray);
-
-            formula = String.format(
-                "(COUNT(%s)-(COUNTIF(%s,\"<%s\")+COUNTIF(%s,\">%s\")))/(COUNT(%s))",
-                verticalArray,
-                verticalArray, (targetTemp - failRange), 
-                verticalArray, (targetTemp + failRange), 
-                verticalArray);
-            percentCell.setCellFormula(formula);
-
-            percentCell.setCellStyle(finalValuesStyle);
-
-            //To make the percentCell be a readable value, you need to
-            //evaluate the formula within the percentCell.
-            formulaEvaluator.evaluate(percentCell);
-
-            ErrorLogging.logError("DEBUG: Formula: " + formula);
+            String verticalArray = String.format("%s!$%s$2:$%s$%s",
+                dataSheetName, dataColumnName, dataColumnName, (Math.max(lastRow,1)+1));
+            Cell formulaCell = row.createCell(cellnum++);
+            formulaCell.setCellFormula(passPercentFormula(verticalArray));
+            formulaCell.setCellStyle(finalValuesStyle);
+            //Cached result, so readers that don't recalculate still show the pass rate
+            if(!Double.isNaN(cameraStatistics.getPassRate())) formulaCell.setCellValue(cameraStatistics.getPassRate());
             column += 4;
         }
-
-        try (FileOutputStream outputStream = new FileOutputStream(outputFile))
-        { outputWorkbook.write(outputStream); }
-        catch(Exception e) {ErrorLogging.logError(e);}
     }
 
-    /** 
-     * Writes line to XLSX file.
+    /**
+     * Build the pass percentage formula for a column of readings.
      *
-     * @param cycle         What test cycle is being saved to the file 
-     * @param inputMap      Map[String,Double] list of inputs
+     * @param verticalArray     Cell range of the readings
      *
-     * @return Returns whether values were saved successfully.
+     * @return Excel formula, without a leading '='
      */
-    public static boolean writeValues(int cycle, Map<File,Double> inputMap, Map<String,File> cameraToFile)
+    private static String passPercentFormula(String verticalArray)
     {
-        boolean output = false;
-        int cellnum = 0;
-        int startingRow = outputSheet.getLastRowNum();
-        HSSFRow row = (cycle == 1) ? outputSheet.getRow(startingRow) : outputSheet.createRow(++startingRow);
-        List<String> cameraNames = new ArrayList<>(cameraToFile.keySet());
+        return String.format(
+            "(COUNT(%s)-(COUNTIF(%s,\"<%s\")+COUNTIF(%s,\">%s\")))/(COUNT(%s))",
+            verticalArray,
+            verticalArray, (targetTemp - failRange),
+            verticalArray, (targetTemp + failRange),
+            verticalArray);
+    }
 
-        cycle++;
+    /**
+     * Write a statistic into a cell, leaving the cell blank if the statistic is undefined.
+     *
+     * @param cell      Cell to write to
+     * @param value     Statistic; NaN if undefined
+     * @param style     Style to apply; null for none
+     */
+    private static void writeStatistic(Cell cell, double value, CellStyle style)
+    {
+        if(Double.isNaN(value)) return;
+        cell.setCellValue(value);
+        if(style != null) cell.setCellStyle(style);
+    }
 
-        HSSFCell indexCell = row.createCell(cellnum++);
-        indexCell.setCellValue(cycle);
-        for(String cameraName : cameraNames)
+    /**
+     * Add one iteration's row to the workbook being exported.
+     *
+     * @param iteration     Iteration number (1-based)
+     * @param cameraNames   Cameras, in column order
+     * @param records       The iteration's records, by camera
+     */
+    private static void appendRow(int iteration, List<String> cameraNames,
+                                  Map<String,ResultJournal.Record> records)
+    {
+        int rowIndex = lastDataRow + 1;
+        if(!streaming && rowIndex > HSSF_MAX_ROW)
         {
-            String serialNumber = ConfigFacade.getSerial(cameraName);
-            HSSFCell serialCell = row.createCell(cellnum++);
-            serialCell.setCellValue(serialNumber);
+            if(rowIndex == HSSF_MAX_ROW + 1)
+                ErrorLogging.logError("DATA SAVING ERROR!!! - Legacy .xls output is full. Use a .xlsx output file for longer runs.");
+            lastDataRow = rowIndex;
+            return;
+        }
+        Row row = outputSheet.createRow(rowIndex);
+        lastDataRow = rowIndex;
 
-            File file = cameraToFile.get(cameraName);
-            HSSFCell imageCell = row.createCell(cellnum++);
-            try
+        int cellnum = 0;
+        Cell indexCell = row.createCell(cellnum++);
+        indexCell.setCellValue(iteration);
+        for(String cameraName : cameraNames)
+        {
+            ResultJournal.Record record = records.get(cameraName);
+            if(record == null)
             {
-                InputStream cameraImage = new DataInputStream(new FileInputStream(file));
-                byte[] cameraImageRaw = IOUtils.toByteArray(cameraImage);
-                HSSFPatriarch patriarch = outputSheet.createDrawingPatriarch();
-                int imageID = outputWorkbook.addPicture(cameraImageRaw,HSSFWorkbook.PICTURE_TYPE_PNG);
-                HSSFClientAnchor imageAnchor = new HSSFClientAnchor();
-                imageAnchor.setCol1(cellnum-1);
-                imageAnchor.setCol2(cellnum);
-                imageAnchor.setRow1(startingRow);
-                imageAnchor.setRow2(startingRow+1);
-                patriarch.createPicture(imageAnchor, imageID);
-            } 
-            //If the image fails for some reason, fallback to putting the image path into the cell
-            catch(Exception e)
-            { 
-                String fileLocation = file.getPath();
-                imageCell.setCellValue(fileLocation);
-                ErrorLogging.logError(e); 
+                cellnum += 4;
+                continue;
             }
 
+            Cell serialCell = row.createCell(cellnum++);
+            serialCell.setCellValue(record.getSerial());
+
+            Cell imageCell = row.createCell(cellnum++);
+            linkImage(imageCell, record.getImagePath());
+            if(shouldEmbed(record)) embedImage(new File(record.getImagePath()), cellnum-1, rowIndex);
+
             //Put the OCR value into the sheet
-            HSSFCell ocrCell = row.createCell(cellnum++);
-            Double ocrRead = inputMap.get(file);
-            if(ocrRead.equals(Double.NEGATIVE_INFINITY))
+            Cell ocrCell = row.createCell(cellnum++);
+            double ocrRead = record.getValue();
+            if(ocrRead == Double.NEGATIVE_INFINITY)
             {
                 ocrCell.setCellValue("ERROR!");
                 ocrCell.setCellStyle(errorStyle);
@@ -275,18 +763,166 @@ public class DataSaving
             else
             {
                 ocrCell.setCellValue(ocrRead);
-                if( ocrRead.doubleValue() > (targetTemp + failRange) ||
-                    ocrRead.doubleValue() < (targetTemp - failRange) )
+                if( ocrRead > (targetTemp + failRange) ||
+                    ocrRead < (targetTemp - failRange) )
                     ocrCell.setCellStyle(failStyle);
             }
 
             //Create a blank cell as a spacer
             row.createCell(cellnum++);
         }
-        try (FileOutputStream outputStream = new FileOutputStream(outputFile))
-        { outputWorkbook.write(outputStream); output = true; }
-        catch(Exception e) {ErrorLogging.logError(e);}
-        updateFormulas(cameraNames.size());
-        return output;
+    }
+
+    /**
+     * Point an image cell at its image file.
+     *
+     * @param cell          Cell to fill
+     * @param imagePath     Path of the image
+     */
+    private static void linkImage(Cell cell, String imagePath)
+    {
+        File file = new File(imagePath);
+        cell.setCellValue(file.getName());
+        try
+        {
+            Hyperlink link = outputWorkbook.getCreationHelper().createHyperlink(HyperlinkType.FILE);
+            link.setAddress(file.getAbsoluteFile().toURI().toString());
+            cell.setHyperlink(link);
+        }
+        //Unusual paths may be rejected as links; the file name is still shown
+        catch(IllegalArgumentException e) { cell.setCellValue(imagePath); }
+    }
+
+    /**
+     * Decide whether a reading's image should be embedded, based on the {@link ImageMode}.
+     *
+     * @param record    Reading being written
+     *
+     * @return true if the image should be embedded
+     */
+    private static boolean shouldEmbed(ResultJournal.Record record)
+    {
+        double value = record.getValue();
+        switch(imageMode)
+        {
+            case LINK:
+                return false;
+            case FAILURES:
+                return value == Double.NEGATIVE_INFINITY ||
+                       value > (targetTemp + failRange) ||
+                       value < (targetTemp - failRange);
+            case EVERY_NTH:
+                return (record.getIteration() - 1) % imageInterval == 0;
+            case FULL:
+            case THUMBNAIL:
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Embed an image over a single cell.
+     * Images with the same contents share one stored picture.
+     *
+     * @param file      Image to embed
+     * @param column    Column of the cell
+     * @param rowIndex  Row of the cell
+     */
+    private static void embedImage(File file, int column, int rowIndex)
+    {
+        try
+        {
+            byte[] imageBytes;
+            if(imageMode == ImageMode.FULL)
+            {
+                try(InputStream cameraImage = new DataInputStream(new FileInputStream(file)))
+                { imageBytes = IOUtils.toByteArray(cameraImage); }
+            }
+            else imageBytes = thumbnail(file);
+            if(imageBytes == null) return;
+
+            String hash = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(imageBytes));
+            Integer imageID = pictureIds.get(hash);
+            if(imageID == null)
+            {
+                imageID = outputWorkbook.addPicture(imageBytes,Workbook.PICTURE_TYPE_PNG);
+                pictureIds.put(hash, imageID);
+            }
+
+            ClientAnchor imageAnchor = outputWorkbook.getCreationHelper().createClientAnchor();
+            imageAnchor.setCol1(column);
+            imageAnchor.setCol2(column+1);
+            imageAnchor.setRow1(rowIndex);
+            imageAnchor.setRow2(rowIndex+1);
+            patriarch.createPicture(imageAnchor, imageID);
+        }
+        //If the image fails for some reason, the cell still links to the file
+        catch(IOException | NoSuchAlgorithmException e) { ErrorLogging.logError(e); }
+    }
+
+    /**
+     * Create a PNG thumbnail of an image, no wider than {@link #THUMBNAIL_WIDTH}.
+     *
+     * @param file  Image to shrink
+     *
+     * @return PNG-encoded thumbnail; null if the image could not be read
+     */
+    private static byte[] thumbnail(File file)
+    {
+        Mat image = imread(file.getAbsolutePath());
+        Mat scaled = image;
+        BytePointer buffer = new BytePointer();
+        try
+        {
+            if(image.empty())
+            {
+                ErrorLogging.logError("DATA SAVING WARNING - Unable to read image " + file.getPath());
+                return null;
+            }
+            if(image.cols() > THUMBNAIL_WIDTH)
+            {
+                scaled = new Mat();
+                int height = Math.max(1, image.rows() * THUMBNAIL_WIDTH / image.cols());
+                resize(image, scaled, new Size(THUMBNAIL_WIDTH, height), 0, 0, INTER_AREA);
+            }
+            if(!imencode(".png", scaled, buffer)) return null;
+            byte[] output = new byte[(int)buffer.limit()];
+            buffer.get(output);
+            return output;
+        }
+        finally
+        {
+            buffer.close();
+            if(scaled != image) scaled.close();
+            image.close();
+        }
+    }
+
+    /**
+     * Enum of the ways images can be stored in the workbook.
+     * Every mode links each image cell to its file.
+     */
+    public enum ImageMode
+    {
+        /**
+         * Link to the image file only; embed nothing.
+         */
+        LINK,
+        /**
+         * Embed a downscaled copy of every image.
+         */
+        THUMBNAIL,
+        /**
+         * Embed a downscaled copy of failing and unreadable readings only.
+         */
+        FAILURES,
+        /**
+         * Embed a downscaled copy of every Nth iteration's images.
+         */
+        EVERY_NTH,
+        /**
+         * Embed every image at full size.
+         */
+        FULL;
     }
 }
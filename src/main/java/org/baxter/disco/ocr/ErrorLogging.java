@@ -2,27 +2,142 @@ package org.baxter.disco.ocr;
 
 //Standard imports
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
-import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 //Error parsing import
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 /**
- * Class containing a single function for easily writing errors to a log file, 
- * as well as stderr.
+ * Class for easily writing errors to a log file, as well as stdout.
+ *
+ * Log lines are handed to a background writer through a lock-free ring
+ * buffer, so callers never wait on the file system. The writer formats
+ * lines in batches, and flushes the file at least every
+ * {@link #FLUSH_INTERVAL} ms, and straight away after an error. Console
+ * output stays on the caller's thread, so it keeps its order with menu
+ * prompts. Everything buffered is written out on shutdown, and when an
+ * uncaught exception ends a thread.
+ *
+ * Lines starting with "DEBUG" are logged at {@link Level#DEBUG}, and only
+ * written to the file. Set the <code>disco.log.level</code> system property
+ * to skip lower levels entirely. Use {@link #logDebug(Supplier)} where
+ * building a debug line is itself expensive.
+ *
+ * Anything printed to stderr is written through the same buffer.
+ * The log is split into segments: a new file is started once the current one
+ * passes <code>disco.log.maxMB</code> (default 10) or
+ * <code>disco.log.maxHours</code> (default 24). Finished segments are
+ * gzipped in the background, and only the newest
+ * <code>disco.log.retain</code> (default 20) compressed segments are kept.
  *
  * @author Blizzard Finnegan
- * @version 1.3.2, 07 Mar. 2023
+ * @version 2.1.2, 18 Oct. 2026
  */
 
 public class ErrorLogging
 {
+    /**
+     * Number of slots in the ring buffer. Must be a power of two.
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Longest time a line may wait in the file's buffer before being flushed, in milliseconds.
+     */
+    private static final long FLUSH_INTERVAL = 1000;
+
+    /**
+     * Longest time the writer sleeps while the ring buffer is empty, in milliseconds.
+     */
+    private static final long IDLE_WAIT = 50;
+
+    /**
+     * Directory holding all log files.
+     */
+    private static final String LOG_DIRECTORY = "logs";
+
+    /**
+     * Suffix of every log file's name.
+     */
+    private static final String LOG_SUFFIX = "-log.txt";
+
+    /**
+     * Suffix added to compressed segments.
+     */
+    private static final String COMPRESSED_SUFFIX = ".gz";
+
+    /**
+     * Name of a compressed segment: start time, then a counter for
+     * segments started within the same second.
+     */
+    private static final Pattern SEGMENT_NAME = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2}_\\d{2}\\.\\d{2}\\.\\d{2})(?:_(\\d+))?" + 
+            Pattern.quote(LOG_SUFFIX + COMPRESSED_SUFFIX));
+
+    /**
+     * Size at which a new segment is started, in bytes (approximate; counts characters).
+     */
+    private static volatile long maxSegmentBytes = 10L * 1024 * 1024;
+
+    /**
+     * Age at which a new segment is started, in milliseconds.
+     */
+    private static volatile long maxSegmentMillis = 24L * 60 * 60 * 1000;
+
+    /**
+     * Number of compressed segments to keep.
+     */
+    private static volatile int retainedSegments = 20;
+
+    /**
+     * Characters written to the current segment. Only touched while holding {@link #writeLock}.
+     */
+    private static long segmentBytes = 0;
+
+    /**
+     * When the current segment was started, from System.currentTimeMillis(). Only touched while holding {@link #writeLock}.
+     */
+    private static long segmentStart = System.currentTimeMillis();
+
+    /**
+     * Timestamp in the name of the current segment.
+     */
+    private static String lastStamp = "";
+
+    /**
+     * Counter in the name of the current segment; 0 if it has none.
+     */
+    private static int lastCounter = 0;
+
+    /**
+     * Background thread compressing finished segments.
+     */
+    private static final ExecutorService compressor;
+
     /**
      * Name of the location for the logfile.
      */
@@ -40,11 +155,6 @@ public class ErrorLogging
      */
     private static BufferedWriter bw;
 
-    /**
-     * Object called to write to the file.
-     */
-    private static PrintWriter fileOut;
-
     /**
      * Object used to format UNIX timestamps into human-readable values.
      */
@@ -55,6 +165,58 @@ public class ErrorLogging
      */
     public static final DateTimeFormatter fileDatetime;
 
+    /**
+     * Lowest level that is logged at all.
+     */
+    private static volatile Level minimumLevel = Level.DEBUG;
+
+    /**
+     * Ring buffer of lines waiting to be written.
+     */
+    private static final AtomicReferenceArray<Entry> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+
+    /**
+     * Sequence number of each slot in {@link #buffer}.
+     * A slot may be filled when its sequence equals the producer's position,
+     * and emptied when it equals the consumer's position plus one.
+     */
+    private static final AtomicLongArray sequences = new AtomicLongArray(BUFFER_SIZE);
+
+    /**
+     * Next position to be filled by a producer.
+     */
+    private static final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next position to be emptied. Only touched while holding {@link #writeLock}.
+     */
+    private static long head = 0;
+
+    /**
+     * Lock held while emptying the ring buffer into the file.
+     */
+    private static final Object writeLock = new Object();
+
+    /**
+     * Time of the last flush, from System.nanoTime(). Only touched while holding {@link #writeLock}.
+     */
+    private static long lastFlush = System.nanoTime();
+
+    /**
+     * Whether lines have been written since the last flush. Only touched while holding {@link #writeLock}.
+     */
+    private static boolean unflushed = false;
+
+    /**
+     * Background thread writing lines to the file.
+     */
+    private static final Thread writerThread;
+
+    /**
+     * Whether the logs have been closed.
+     */
+    private static volatile boolean closed = false;
+
     //This will always run first, before anything else in this file
     static
     {
@@ -63,22 +225,48 @@ public class ErrorLogging
 
         datetime = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
-        logFile =  "logs/" + fileDatetime.format(LocalDateTime.now()) + "-log.txt";
-        File logDirectory = new File("logs");
-        File outFile = new File(logFile);
-        try
+        for(int i = 0; i < BUFFER_SIZE; i++) sequences.set(i, i);
+
+        readSettings();
+
+        compressor = Executors.newSingleThreadExecutor((task) ->
         {
-            logDirectory.mkdir();
-            outFile.createNewFile();
-            fw = new FileWriter(logFile, true);
-            bw = new BufferedWriter(fw);
-            fileOut = new PrintWriter(bw);
-            System.setErr(new PrintStream(new FileOutputStream(logFile,true)));
-        }
+            Thread thread = new Thread(task, "Log compressor.");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        new File(LOG_DIRECTORY).mkdir();
+        try{ openSegment(); }
         catch (Exception e)
         {
-            System.err.println(e);
+            System.out.println(e);
         }
+
+        //Merge stderr into the same buffered log, instead of a competing file stream
+        System.setErr(new PrintStream(new StderrSink(), true));
+
+        //Segments left uncompressed by earlier runs
+        File[] leftovers = new File(LOG_DIRECTORY).listFiles((dir, name) -> name.endsWith(LOG_SUFFIX));
+        if(leftovers != null)
+        {
+            for(File leftover : leftovers)
+                if(!leftover.getPath().equals(logFile)) compressSegment(leftover);
+        }
+
+        writerThread = new Thread(ErrorLogging::runWriter, "Log writer.");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        //Whatever happens, get buffered lines onto the disk
+        Runtime.getRuntime().addShutdownHook(new Thread(ErrorLogging::flush, "Log flush."));
+        Thread.UncaughtExceptionHandler previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) ->
+        {
+            logError(error);
+            flush();
+            if(previousHandler != null) previousHandler.uncaughtException(thread, error);
+        });
     }
 
     /**
@@ -90,16 +278,14 @@ public class ErrorLogging
      */
     public static void logError(Throwable error)
     {
-        String errorStackTrace = ExceptionUtils.getStackTrace(error);
-        String errorMessage = datetime.format(LocalDateTime.now())  + " - " + errorStackTrace;
-        fileOut.println(errorMessage);
-        fileOut.flush();
+        if(!isEnabled(Level.ERROR)) return;
+        enqueue(new Entry(LocalDateTime.now(), Level.ERROR, null, error));
     }
 
     /**
      * Logs error manually caught by user.
      * Prepends the current date and time to the log line.
-     * Particularly useful for catching potential errors that do not 
+     * Particularly useful for catching potential errors that do not
      * eplicitly throw an error.
      *
      * @param error     Pass in the necessary error information,
@@ -107,31 +293,430 @@ public class ErrorLogging
      */
     public static void logError(String error)
     {
-        String errorMessage = datetime.format(LocalDateTime.now())  + "\t- " + error;
-        fileOut.println(errorMessage);
-        fileOut.flush();
-        if(!error.substring(0,5).equals("DEBUG"))
-            System.out.println(errorMessage);
+        Level level = levelOf(error);
+        if(!isEnabled(level)) return;
+        LocalDateTime now = LocalDateTime.now();
+        enqueue(new Entry(now, level, error, null));
+        if(level != Level.DEBUG)
+            System.out.println(datetime.format(now) + "\t- " + error);
+    }
+
+    /**
+     * Logs a debug line, only building it if debug logging is enabled.
+     *
+     * @param message   Builds the message, without the "DEBUG: " prefix
+     */
+    public static void logDebug(Supplier<String> message)
+    {
+        if(!isEnabled(Level.DEBUG)) return;
+        enqueue(new Entry(LocalDateTime.now(), Level.DEBUG, "DEBUG: " + message.get(), null));
+    }
+
+    /**
+     * Check whether a level is being logged.
+     *
+     * @param level     Level to check
+     *
+     * @return true if lines at this level are logged
+     */
+    public static boolean isEnabled(Level level)
+    { return level.compareTo(minimumLevel) >= 0; }
+
+    /**
+     * Read the <code>disco.log.level</code>, <code>disco.log.maxMB</code>,
+     * <code>disco.log.maxHours</code> and <code>disco.log.retain</code>
+     * system properties.
+     */
+    private static void readSettings()
+    {
+        String level = System.getProperty("disco.log.level", minimumLevel.name());
+        try{ minimumLevel = Level.valueOf(level.trim().toUpperCase()); }
+        catch(IllegalArgumentException e) { System.out.println("Unknown log level " + level + "; logging everything."); }
+        try
+        {
+            maxSegmentBytes = (long)(Double.parseDouble(System.getProperty("disco.log.maxMB", "10")) * 1024 * 1024);
+            maxSegmentMillis = (long)(Double.parseDouble(System.getProperty("disco.log.maxHours", "24")) * 60 * 60 * 1000);
+            retainedSegments = Integer.parseInt(System.getProperty("disco.log.retain", "20"));
+        }
+        catch(NumberFormatException e) { System.out.println("Invalid log rotation setting; using defaults. " + e.getMessage()); }
     }
 
     /**
-     * Close all open logs. 
+     * Re-read the logging system properties, after they have been changed 
+     * since logging started (such as by a batch job file). The level applies
+     * to the next line logged; rotation settings to the next segment check.
+     */
+    public static void reconfigure()
+    { readSettings(); }
+
+    /**
+     * Set the lowest level that is logged.
+     *
+     * @param level     New minimum level
+     */
+    public static void setLevel(Level level)
+    { minimumLevel = level; }
+
+    /**
+     * Work out the level of a line, from the conventions used in its text.
+     *
+     * @param message   Log line
+     *
+     * @return Level of the line
+     */
+    private static Level levelOf(String message)
+    {
+        if(message.startsWith("DEBUG")) return Level.DEBUG;
+        if(message.contains("ERROR")) return Level.ERROR;
+        if(message.contains("WARNING")) return Level.WARNING;
+        return Level.INFO;
+    }
+
+    /**
+     * Put a line into the ring buffer.
+     * Waits for the writer if the buffer is full, rather than losing the line.
+     *
+     * @param entry     Line to write
+     */
+    private static void enqueue(Entry entry)
+    {
+        if(closed) return;
+        int spins = 0;
+        while(true)
+        {
+            long position = tail.get();
+            int index = (int)(position & (BUFFER_SIZE - 1));
+            long difference = sequences.get(index) - position;
+            if(difference == 0)
+            {
+                if(tail.compareAndSet(position, position + 1))
+                {
+                    buffer.set(index, entry);
+                    sequences.set(index, position + 1);
+                    if(entry.level == Level.ERROR) LockSupport.unpark(writerThread);
+                    return;
+                }
+            }
+            //Buffer is full; let the writer catch up
+            else if(difference < 0)
+            {
+                LockSupport.unpark(writerThread);
+                if(++spins > 100) LockSupport.parkNanos(100_000);
+                else Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Write every line currently in the ring buffer to the file.
+     * Callers must hold {@link #writeLock}.
+     *
+     * @return true if an error-level line was written
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private static boolean drain() throws IOException
+    {
+        boolean sawError = false;
+        while(true)
+        {
+            int index = (int)(head & (BUFFER_SIZE - 1));
+            if(sequences.get(index) != head + 1) return sawError;
+            Entry entry = buffer.get(index);
+            buffer.set(index, null);
+            sequences.set(index, head + BUFFER_SIZE);
+            head++;
+
+            if(bw == null) continue;
+            String line;
+            if(entry.error != null) line = datetime.format(entry.time) + " - " + ExceptionUtils.getStackTrace(entry.error);
+            else if(entry.raw) line = entry.message;
+            else line = datetime.format(entry.time) + "\t- " + entry.message;
+            bw.write(line);
+            bw.newLine();
+            segmentBytes += line.length() + 1;
+            unflushed = true;
+            if(segmentBytes >= maxSegmentBytes || 
+               System.currentTimeMillis() - segmentStart >= maxSegmentMillis) 
+                rotate();
+            if(entry.level == Level.ERROR) sawError = true;
+        }
+    }
+
+    /**
+     * Background writer loop.
+     */
+    private static void runWriter()
+    {
+        while(!closed)
+        {
+            synchronized(writeLock)
+            {
+                try
+                {
+                    boolean sawError = drain();
+                    if(unflushed && (sawError || System.nanoTime() - lastFlush >= FLUSH_INTERVAL * 1_000_000L))
+                        flushFile();
+                }
+                catch(IOException e) { System.out.println("Unable to write log: " + e); }
+            }
+            LockSupport.parkNanos(IDLE_WAIT * 1_000_000L);
+        }
+    }
+
+    /**
+     * Open a new, empty segment, named after the current time.
+     * Callers must hold {@link #writeLock}, except during class initialisation.
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    private static void openSegment() throws IOException
+    {
+        String stamp = fileDatetime.format(LocalDateTime.now());
+        File segment = new File(LOG_DIRECTORY, stamp + LOG_SUFFIX);
+        //Segments started within the same second get a counter
+        int counter = (stamp.equals(lastStamp) ? lastCounter + 1 : 0);
+        if(counter > 0) segment = new File(LOG_DIRECTORY, stamp + "_" + counter + LOG_SUFFIX);
+        while(segment.exists() || new File(segment.getPath() + COMPRESSED_SUFFIX).exists())
+            segment = new File(LOG_DIRECTORY, stamp + "_" + (++counter) + LOG_SUFFIX);
+        lastStamp = stamp;
+        lastCounter = counter;
+        logFile = segment.getPath();
+        fw = new FileWriter(logFile, true);
+        bw = new BufferedWriter(fw);
+        segmentBytes = 0;
+        segmentStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Finish the current segment, queue it for compression, and start a new one.
+     * Callers must hold {@link #writeLock}.
+     *
+     * @throws IOException if the new segment cannot be opened
+     */
+    private static void rotate() throws IOException
+    {
+        File finished = new File(logFile);
+        bw.close();
+        bw = null;
+        fw = null;
+        openSegment();
+        lastFlush = System.nanoTime();
+        unflushed = false;
+        compressSegment(finished);
+    }
+
+    /**
+     * Gzip a finished segment in the background, then apply the retention limit.
+     *
+     * @param segment   Finished, uncompressed segment
+     */
+    private static void compressSegment(File segment)
+    {
+        try
+        {
+            compressor.execute(() ->
+            {
+                File compressed = new File(segment.getPath() + COMPRESSED_SUFFIX);
+                try(InputStream input = new FileInputStream(segment);
+                    OutputStream output = new GZIPOutputStream(new FileOutputStream(compressed)))
+                { input.transferTo(output); }
+                catch(IOException e)
+                {
+                    logError(e);
+                    compressed.delete();
+                    return;
+                }
+                segment.delete();
+                applyRetention();
+            });
+        }
+        //Already closing; the segment is left uncompressed, and picked up next start
+        catch(RejectedExecutionException e) {}
+    }
+
+    /**
+     * Delete the oldest compressed segments, keeping the newest {@link #retainedSegments}.
+     * Segments are ordered by the start time and counter in their names, not by
+     * modification time; compression finishes out of order, and copying the logs
+     * resets their times.
+     */
+    private static void applyRetention()
+    {
+        File[] segments = new File(LOG_DIRECTORY).listFiles((dir, name) -> SEGMENT_NAME.matcher(name).matches());
+        if(segments == null || segments.length <= retainedSegments) return;
+        Arrays.sort(segments, ErrorLogging::compareSegments);
+        for(int i = 0; i < segments.length - retainedSegments; i++) segments[i].delete();
+    }
+
+    /**
+     * Order two compressed segments by the start time in their names, then by their counters.
+     *
+     * @param first     Segment whose name matches {@link #SEGMENT_NAME}
+     * @param second    Segment whose name matches {@link #SEGMENT_NAME}
+     *
+     * @return Negative if first is older, positive if it is newer, 0 if they have the same name
+     */
+    private static int compareSegments(File first, File second)
+    {
+        Matcher firstName = SEGMENT_NAME.matcher(first.getName());
+        Matcher secondName = SEGMENT_NAME.matcher(second.getName());
+        firstName.matches();
+        secondName.matches();
+        //Fixed-width timestamps sort correctly as text
+        int order = firstName.group(1).compareTo(secondName.group(1));
+        if(order != 0) return order;
+        return Long.compare(segmentCounter(firstName), segmentCounter(secondName));
+    }
+
+    /**
+     * @param name  Matched segment name
+     *
+     * @return Counter of the segment; 0 if it has none
+     */
+    private static long segmentCounter(Matcher name)
+    { return (name.group(2) == null ? 0 : Long.parseLong(name.group(2))); }
+
+    /**
+     * Flush the file. Callers must hold {@link #writeLock}.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private static void flushFile() throws IOException
+    {
+        if(bw != null) bw.flush();
+        unflushed = false;
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Write every buffered line to the file, and flush it.
+     * Safe to call from any thread, including shutdown hooks.
+     */
+    public static void flush()
+    {
+        synchronized(writeLock)
+        {
+            try
+            {
+                drain();
+                flushFile();
+            }
+            catch(IOException e) { System.out.println("Unable to write log: " + e); }
+        }
+    }
+
+    /**
+     * Close all open logs.
      *
      * !!! CALL ONCE, AT END OF PROGRAM !!!
      */
-    public static void closeLogs() 
-    { 
-        try{}
-        finally
+    public static void closeLogs()
+    {
+        flush();
+        closed = true;
+        LockSupport.unpark(writerThread);
+        compressor.shutdown();
+        try{ compressor.awaitTermination(5, TimeUnit.SECONDS); }
+        catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+        synchronized(writeLock)
         {
-            if(fileOut != null) fileOut.close();
-            try 
+            try
             {
-            if(bw != null) bw.close();
-            if(fw != null) fw.close();
+                if(bw != null) bw.close();
+                if(fw != null) fw.close();
             }
-            catch(Exception e) 
+            catch(Exception e)
             { /* This is being run because the program is closing. Errors here don't matter. */}
+            bw = null;
+            fw = null;
         }
     }
+
+    /**
+     * A single log line, waiting to be written.
+     */
+    private static class Entry
+    {
+        /**
+         * When the line was logged.
+         */
+        final LocalDateTime time;
+
+        /**
+         * Level of the line.
+         */
+        final Level level;
+
+        /**
+         * Text of the line; null if this is an exception.
+         */
+        final String message;
+
+        /**
+         * Exception to write; null if this is a text line.
+         */
+        final Throwable error;
+
+        /**
+         * Whether the message is written as-is, without a timestamp.
+         */
+        final boolean raw;
+
+        Entry(LocalDateTime time, Level level, String message, Throwable error)
+        { this(time, level, message, error, false); }
+
+        Entry(LocalDateTime time, Level level, String message, Throwable error, boolean raw)
+        {
+            this.time = time;
+            this.level = level;
+            this.message = message;
+            this.error = error;
+            this.raw = raw;
+        }
+    }
+
+    /**
+     * Stream standing in for stderr.
+     * Collects bytes into lines, and passes each line to the log writer unchanged.
+     */
+    private static class StderrSink extends OutputStream
+    {
+        /**
+         * Bytes of the line being collected.
+         */
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(int b)
+        {
+            if(b == '\n') emit();
+            else if(b != '\r') line.write(b);
+        }
+
+        @Override
+        public synchronized void flush()
+        { if(line.size() > 0) emit(); }
+
+        /**
+         * Pass the collected line to the log writer.
+         */
+        private void emit()
+        {
+            String text = line.toString(Charset.defaultCharset());
+            line.reset();
+            enqueue(new Entry(LocalDateTime.now(), Level.WARNING, text, null, true));
+        }
+    }
+
+    /**
+     * Enum of log levels, from least to most severe.
+     */
+    public enum Level
+    {
+        DEBUG,
+        INFO,
+        WARNING,
+        ERROR;
+    }
 }
@@ -0,0 +1,114 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock used for all fixture timing.
+ *
+ * Real hardware runs on a clock with a speed factor of 1.0, which is
+ * equivalent to {@link System#nanoTime()} and {@link Thread#sleep(long)}.
+ * Simulated hardware runs on a virtual clock, which advances faster than
+ * real time by the given speed factor. All sleeps are requested in virtual
+ * milliseconds, and are shortened accordingly.
+ *
+ * The virtual clock is derived from the system clock, so it is consistent
+ * across threads.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class FixtureClock
+{
+    /**
+     * Clock currently in use by the fixture.
+     */
+    private static volatile FixtureClock current = new FixtureClock(1.0);
+
+    /**
+     * How many virtual nanoseconds pass per real nanosecond.
+     */
+    private final double speedFactor;
+
+    /**
+     * Real {@link System#nanoTime()} at which this clock was created.
+     */
+    private final long realOrigin;
+
+    /**
+     * Create a new clock.
+     *
+     * @param speedFactor   How much faster than real time this clock runs.
+     *                      Must be positive; 1.0 is real time.
+     */
+    public FixtureClock(double speedFactor)
+    {
+        if(!(speedFactor > 0))
+            throw new IllegalArgumentException("Clock speed factor must be positive: " + speedFactor);
+        this.speedFactor = speedFactor;
+        this.realOrigin = System.nanoTime();
+    }
+
+    /**
+     * Getter for the clock currently in use by the fixture.
+     *
+     * @return The current {@link FixtureClock}
+     */
+    public static FixtureClock current()
+    { return current; }
+
+    /**
+     * Setter for the clock in use by the fixture.
+     *
+     * @param clock     New clock to use
+     */
+    public static void setCurrent(FixtureClock clock)
+    { current = clock; }
+
+    /**
+     * Getter for the speed factor of this clock.
+     *
+     * @return Virtual nanoseconds per real nanosecond.
+     */
+    public double getSpeedFactor()
+    { return speedFactor; }
+
+    /**
+     * Current time on this clock.
+     * Only meaningful when compared against another reading of the same clock.
+     *
+     * @return Virtual nanoseconds since this clock was created.
+     */
+    public long nanoTime()
+    {
+        long realElapsed = System.nanoTime() - realOrigin;
+        if(speedFactor == 1.0) return realElapsed;
+        return (long)(realElapsed * speedFactor);
+    }
+
+    /**
+     * Current time on this clock, in milliseconds.
+     *
+     * @return Virtual milliseconds since this clock was created.
+     */
+    public long millis()
+    { return TimeUnit.NANOSECONDS.toMillis(nanoTime()); }
+
+    /**
+     * Sleep for the given amount of virtual time.
+     * Interruptions are logged, and the interrupt flag is restored.
+     *
+     * @param millis    Virtual milliseconds to sleep for.
+     */
+    public void sleep(long millis)
+    {
+        if(millis <= 0) return;
+        long realNanos = (long)(TimeUnit.MILLISECONDS.toNanos(millis) / speedFactor);
+        try{ Thread.sleep(realNanos / 1_000_000L, (int)(realNanos % 1_000_000L)); }
+        catch(InterruptedException e)
+        {
+            ErrorLogging.logError(e);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.baxter.disco.ocr;
+
+//JFR imports
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for each stage of the fixture's work.
+ *
+ * Each event is timed with begin()/commit(), so its duration is the
+ * duration of the stage. While no recording is running, creating and
+ * committing an event costs close to nothing. Usage is:
+ * <pre>
+ *     FixtureEvents.Movement event = new FixtureEvents.Movement();
+ *     event.begin();
+ *     doWork();
+ *     event.direction = "up";
+ *     event.commit();
+ * </pre>
+ * See {@link FlightRecording} for the optional continuous recording.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class FixtureEvents
+{
+    /**
+     * A single iteration on the fixture thread: movement, display settle and capture.
+     */
+    @Name("org.baxter.disco.Iteration")
+    @Label("Iteration")
+    @Category({"DISCO", "Fixture"})
+    @Description("Movement and capture of a single test iteration.")
+    @StackTrace(false)
+    public static class Iteration extends Event
+    {
+        @Label("Iteration")
+        public int iteration;
+
+        @Label("Retry generation")
+        public int generation;
+    }
+
+    /**
+     * Travel of the fixture arm to one of its limit switches.
+     */
+    @Name("org.baxter.disco.Movement")
+    @Label("Movement")
+    @Category({"DISCO", "Fixture"})
+    @Description("Travel of the fixture arm to a limit switch.")
+    @StackTrace(false)
+    public static class Movement extends Event
+    {
+        @Label("Direction")
+        public String direction;
+
+        @Label("Final state")
+        public String finalState;
+    }
+
+    /**
+     * A button press by the piston.
+     */
+    @Name("org.baxter.disco.ButtonPress")
+    @Label("Button Press")
+    @Category({"DISCO", "Fixture"})
+    @StackTrace(false)
+    public static class ButtonPress extends Event
+    {
+    }
+
+    /**
+     * Grabbing a burst of frames from a camera.
+     */
+    @Name("org.baxter.disco.FrameGrab")
+    @Label("Frame Grab")
+    @Category({"DISCO", "Camera"})
+    @StackTrace(false)
+    public static class FrameGrab extends Event
+    {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Frames")
+        public int frames;
+    }
+
+    /**
+     * Cropping, thresholding and compositing a burst of frames.
+     */
+    @Name("org.baxter.disco.Composite")
+    @Label("Composite")
+    @Category({"DISCO", "Camera"})
+    @StackTrace(false)
+    public static class Composite extends Event
+    {
+        @Label("Camera")
+        public String camera;
+
+        @Label("Frames")
+        public int frames;
+
+        @Label("Crop")
+        public boolean crop;
+
+        @Label("Threshold")
+        public boolean threshold;
+    }
+
+    /**
+     * A single Tesseract call.
+     */
+    @Name("org.baxter.disco.Ocr")
+    @Label("OCR")
+    @Category({"DISCO", "OCR"})
+    @StackTrace(false)
+    public static class Ocr extends Event
+    {
+        @Label("Image")
+        public String image;
+
+        @Label("Value")
+        public double value;
+
+        @Label("Confidence")
+        @Description("Tesseract's mean text confidence, from 0 to 100.")
+        public int confidence;
+    }
+
+    /**
+     * Writing results: a journal append, or a workbook export.
+     */
+    @Name("org.baxter.disco.WorkbookWrite")
+    @Label("Workbook Write")
+    @Category({"DISCO", "Results"})
+    @StackTrace(false)
+    public static class WorkbookWrite extends Event
+    {
+        @Label("Kind")
+        @Description("\"journal\" for a per-iteration append; \"export\" for a full workbook export.")
+        public String kind;
+
+        @Label("Iteration")
+        public int iteration;
+
+        @Label("Success")
+        public boolean success;
+    }
+}
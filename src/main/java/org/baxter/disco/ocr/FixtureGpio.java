@@ -0,0 +1,83 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.function.Consumer;
+
+/**
+ * Hardware abstraction for the fixture's GPIO.
+ *
+ * Covers the motor, the piston, and the limit and Run switches.
+ * {@link MovementFacade} drives the fixture exclusively through this
+ * interface, so the same movement code runs against the real pins
+ * ({@link PigpioFixtureGpio}) or a simulation ({@link SimulatedFixtureGpio}).
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public interface FixtureGpio
+{
+    /**
+     * Turn the motor on or off.
+     *
+     * @param enabled   true to move the motor; false to stop it
+     */
+    void setMotorEnabled(boolean enabled);
+
+    /**
+     * Set the direction the motor will travel when enabled.
+     *
+     * @param up    true to move upwards; false to move downwards
+     */
+    void setMotorDirectionUp(boolean up);
+
+    /**
+     * Extend or retract the piston.
+     *
+     * @param extended  true to extend the piston; false to retract it
+     */
+    void setPiston(boolean extended);
+
+    /**
+     * Read the upper limit switch.
+     *
+     * @return true if the upper limit switch has been reached
+     */
+    boolean isUpperLimit();
+
+    /**
+     * Read the lower limit switch.
+     *
+     * @return true if the lower limit switch has been reached
+     */
+    boolean isLowerLimit();
+
+    /**
+     * Read the Run switch.
+     *
+     * @return true if the Run switch is requesting a pause
+     */
+    boolean isRunSwitchPaused();
+
+    /**
+     * Register the listener for Run switch edges.
+     * The listener receives true when the switch requests a pause,
+     * and false when it allows the test to continue.
+     *
+     * @param listener  Listener to call on each edge; replaces any previous listener.
+     *                  null removes the listener.
+     */
+    void setRunSwitchListener(Consumer<Boolean> listener);
+
+    /**
+     * Getter for the clock this hardware runs on.
+     *
+     * @return {@link FixtureClock} to use for all movement timing
+     */
+    FixtureClock getClock();
+
+    /**
+     * Release all hardware resources.
+     * All outputs are set low.
+     */
+    void shutdown();
+}
@@ -0,0 +1,118 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+//JFR imports
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Optional continuous Java Flight Recorder recording.
+ *
+ * Started by {@link #start()} when the <code>disco.jfr</code> system property
+ * is true. The recording uses JFR's "default" low-overhead settings plus every
+ * {@link FixtureEvents} event, and keeps only the newest
+ * <code>disco.jfr.maxMB</code> (default 100) and
+ * <code>disco.jfr.maxMinutes</code> (default 60) of data on disk. It is
+ * written to <code>logs/&lt;timestamp&gt;.jfr</code> when the program closes,
+ * and can be dumped at any time with {@link #dump(String)}.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class FlightRecording
+{
+    /**
+     * Running recording; null if not started.
+     */
+    private static Recording recording;
+
+    /**
+     * Start the continuous recording, if the <code>disco.jfr</code> system property is true.
+     *
+     * @return true if the recording is running
+     */
+    public static synchronized boolean start()
+    {
+        if(recording != null) return true;
+        if(!Boolean.getBoolean("disco.jfr")) return false;
+        try
+        {
+            long maxBytes = (long)(Double.parseDouble(System.getProperty("disco.jfr.maxMB", "100")) * 1024 * 1024);
+            long maxMinutes = Long.parseLong(System.getProperty("disco.jfr.maxMinutes", "60"));
+
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("DISCO fixture");
+            recording.enable(FixtureEvents.Iteration.class);
+            recording.enable(FixtureEvents.Movement.class);
+            recording.enable(FixtureEvents.ButtonPress.class);
+            recording.enable(FixtureEvents.FrameGrab.class);
+            recording.enable(FixtureEvents.Composite.class);
+            recording.enable(FixtureEvents.Ocr.class);
+            recording.enable(FixtureEvents.WorkbookWrite.class);
+            recording.setToDisk(true);
+            recording.setMaxSize(maxBytes);
+            recording.setMaxAge(Duration.ofMinutes(maxMinutes));
+            recording.setDestination(Path.of("logs", LocalDateTime.now().format(ErrorLogging.fileDatetime) + ".jfr"));
+            recording.start();
+            ErrorLogging.logError("Flight recording started; keeping up to " + (maxBytes / 1024 / 1024) +
+                                  " MB and " + maxMinutes + " minutes.");
+            return true;
+        }
+        catch(IOException | ParseException | RuntimeException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("JFR ERROR!!! - Unable to start flight recording.");
+            recording = null;
+            return false;
+        }
+    }
+
+    /**
+     * Write a copy of the recording so far, without stopping it.
+     * Useful when a run degrades, to capture what led up to it.
+     *
+     * @param reason    Short reason, added to the file name
+     *
+     * @return File written; null if there is no recording, or it could not be written
+     */
+    public static synchronized File dump(String reason)
+    {
+        if(recording == null) return null;
+        File output = new File("logs", LocalDateTime.now().format(ErrorLogging.fileDatetime) +
+                                       "-" + reason.replaceAll("[^A-Za-z0-9_-]", "_") + ".jfr");
+        try
+        {
+            recording.dump(output.toPath());
+            ErrorLogging.logError("Flight recording saved to " + output.getPath());
+            return output;
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * Stop the recording, writing it to its destination.
+     */
+    public static synchronized void stop()
+    {
+        if(recording == null) return;
+        try
+        {
+            recording.stop();
+            ErrorLogging.logError("Flight recording saved to " + recording.getDestination());
+        }
+        catch(RuntimeException e) { ErrorLogging.logError(e); }
+        recording.close();
+        recording = null;
+    }
+}
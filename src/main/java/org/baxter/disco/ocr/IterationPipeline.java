@@ -0,0 +1,533 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Staged pipeline for the test loop.
+ *
+ * The fixture thread moves the arm and captures images, then hands the
+ * captured iteration to this pipeline. OCR and result persistence run on
+ * their own worker threads, so the fixture can begin the next iteration's
+ * movement while the previous iteration is still being read and saved.
+ *
+ * Stages are connected by bounded queues, so the fixture can never run more
+ * than {@link #MAX_IN_FLIGHT} iterations ahead of OCR.
+ *
+ * Retries are handled with generations. Every captured iteration is tagged
+ * with the fixture thread's current generation. When OCR rejects a reading,
+ * the OCR worker reports a failed {@link Outcome} and stops accepting
+ * anything from that generation, so iterations captured after the failure
+ * are discarded. The fixture thread then resets the DUTs, moves to the next
+ * generation, and re-runs the failed iteration. Only successful iterations
+ * reach the persistence stage, and always in order.
+ *
+ * The persistence stage reports a second {@link Outcome} for each iteration
+ * it writes, so an iteration only counts as complete once it is saved. After
+ * a failed save, nothing more is written; later iterations are discarded, so
+ * the journal never has a gap. {@link #cancel()} discards unsaved iterations
+ * in the same way, when a run stops early.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.4.2, 18 Oct. 2026
+ */
+public class IterationPipeline implements AutoCloseable
+{
+    /**
+     * Capacity of each queue between stages.
+     */
+    private static final int QUEUE_DEPTH = 2;
+
+    /**
+     * Maximum number of captured iterations that have not yet produced an {@link Outcome}.
+     * One for each queued capture, plus one being read by the OCR worker.
+     */
+    public static final int MAX_IN_FLIGHT = QUEUE_DEPTH + 1;
+
+    /**
+     * How often an idle result writer checks whether the journal is due a flush, in milliseconds.
+     */
+    private static final long FLUSH_CHECK_INTERVAL = 250;
+
+    /**
+     * Marker used to shut down the worker threads.
+     */
+    private static final Captured POISON = new Captured(-1, -1, Collections.emptyMap());
+
+    /**
+     * Captured iterations waiting for OCR.
+     */
+    private final BlockingQueue<Captured> ocrQueue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+
+    /**
+     * Successfully read iterations waiting to be saved.
+     */
+    private final BlockingQueue<Captured> saveQueue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+
+    /**
+     * Results of OCR and of saving, in the order they happened.
+     */
+    private final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+
+    /**
+     * Set when the run stops early; iterations not yet being saved are discarded.
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Set once {@link #close()} has run. Only touched by the fixture thread.
+     */
+    private boolean closed = false;
+
+    /**
+     * Worker thread running OCR.
+     */
+    private final Thread ocrThread;
+
+    /**
+     * Worker thread saving results.
+     */
+    private final Thread saveThread;
+
+    /**
+     * Lowest generation the OCR worker will still read.
+     * Only touched by {@link #ocrThread}.
+     */
+    private int acceptedGeneration = 0;
+
+    /**
+     * OCR metrics of each camera, looked up once rather than on every reading.
+     * Only touched by {@link #ocrThread}.
+     */
+    private final Map<String,CameraMetrics> cameraMetrics = new HashMap<>();
+
+    /**
+     * Create a pipeline and start its worker threads.
+     */
+    public IterationPipeline()
+    {
+        MetricsRegistry.gauge("disco_ocr_queue_depth", "Captured iterations waiting for OCR.", ocrQueue::size);
+        MetricsRegistry.gauge("disco_save_queue_depth", "Read iterations waiting to be saved.", saveQueue::size);
+        ocrThread = new Thread(this::runOcrStage, "OCR worker.");
+        saveThread = new Thread(this::runSaveStage, "Result writer.");
+        ocrThread.start();
+        saveThread.start();
+    }
+
+    /**
+     * Hand a captured iteration to the OCR stage.
+     * Blocks while the OCR queue is full.
+     *
+     * @param iteration     Index of the iteration (0-based)
+     * @param generation    Fixture thread's current retry generation
+     * @param cameraToFile  Map of camera name to captured image, in camera order.
+     *                      Copied, so the caller may reuse it.
+     */
+    public void submit(int iteration, int generation, Map<String,File> cameraToFile)
+    {
+        Captured captured = new Captured(iteration, generation, new LinkedHashMap<>(cameraToFile));
+        try{ ocrQueue.put(captured); }
+        catch(InterruptedException e)
+        {
+            ErrorLogging.logError(e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the next outcome, if one is ready.
+     *
+     * @return Next {@link Outcome}, or null if none is ready
+     */
+    public Outcome pollOutcome()
+    { return outcomes.poll(); }
+
+    /**
+     * Wait for the next outcome.
+     * If interrupted, the interrupt flag is left set; callers should stop waiting.
+     *
+     * @return Next {@link Outcome}, or null if interrupted
+     */
+    public Outcome takeOutcome()
+    {
+        try{ return outcomes.take(); }
+        catch(InterruptedException e)
+        {
+            ErrorLogging.logError(e);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * OCR worker loop.
+     * Reads each camera's image; forwards good iterations to the save stage,
+     * and reports every accepted iteration's outcome to the fixture thread.
+     */
+    private void runOcrStage()
+    {
+        try
+        {
+            while(true)
+            {
+                Captured captured;
+                try{ captured = ocrQueue.take(); }
+                catch(InterruptedException e) { ErrorLogging.logError(e); break; }
+
+                if(captured == POISON)
+                {
+                    forwardToSave(POISON);
+                    break;
+                }
+
+                if(cancelled)
+                {
+                    ErrorLogging.logDebug(() -> "Discarding iteration " + (captured.iteration+1) +
+                                                " captured before the run stopped.");
+                    continue;
+                }
+
+                //Captured after a failure that has not been handled yet; will be re-run
+                if(captured.generation < acceptedGeneration)
+                {
+                    ErrorLogging.logDebug(() -> "Discarding iteration " + (captured.iteration+1) +
+                                                " captured before retry.");
+                    continue;
+                }
+
+                Outcome outcome = readIteration(captured);
+                if(outcome.isSuccess()) forwardToSave(captured);
+                else acceptedGeneration = captured.generation + 1;
+                outcomes.add(outcome);
+            }
+        }
+        //A new pipeline, and thread, is made for every run
+        finally { TesseractFacade.releaseThread(); }
+    }
+
+    /**
+     * Run OCR on every image in a captured iteration.
+     * Stops at the first invalid reading.
+     *
+     * @param captured  Iteration to read. Results are stored into it.
+     *
+     * @return Outcome of the iteration
+     */
+    private Outcome readIteration(Captured captured)
+    {
+        for(Map.Entry<String,File> entry : captured.cameraToFile.entrySet())
+        {
+            RunGate.awaitRunning();
+            File file = entry.getValue();
+            double result = Double.NEGATIVE_INFINITY;
+            long start = System.nanoTime();
+            try{ result = TesseractFacade.imageToDouble(file); }
+            catch(Exception e) { ErrorLogging.logError(e); }
+            CameraMetrics metrics = cameraMetrics.computeIfAbsent(entry.getKey(), CameraMetrics::new);
+            metrics.duration.record(System.nanoTime() - start);
+            metrics.readings.increment();
+            if(!isValidReading(result)) metrics.errors.increment();
+
+            captured.resultMap.put(file, result);
+            captured.confidenceMap.put(file, TesseractFacade.getLastConfidence());
+            ErrorLogging.logError("Tesseract final output: " + result);
+            if(!isValidReading(result))
+                return new Outcome(Stage.OCR, captured.iteration, captured.generation, entry.getKey(), result);
+        }
+        return new Outcome(Stage.OCR, captured.iteration, captured.generation, null, 0.0);
+    }
+
+    /**
+     * Check whether an OCR reading is plausible for the DUT.
+     * Rejects readings of LO (Tesseract generally reads this as 1.0 or 117.0),
+     * and failed readings (Double.NEGATIVE_INFINITY).
+     *
+     * @param result    Value returned by {@link TesseractFacade#imageToDouble(File)}
+     *
+     * @return true if the reading can be saved; otherwise false
+     */
+    public static boolean isValidReading(double result)
+    {
+        return !(result <= 10 || result >= 100 || result == Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Put an iteration onto the save queue, blocking while it is full.
+     *
+     * @param captured  Iteration to save
+     */
+    private void forwardToSave(Captured captured)
+    {
+        try{ saveQueue.put(captured); }
+        catch(InterruptedException e)
+        {
+            ErrorLogging.logError(e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Save worker loop.
+     * Writes each successful iteration, in order, and reports whether it was
+     * saved. While idle, flushes any journal writes that have waited longer
+     * than the flush policy allows.
+     */
+    private void runSaveStage()
+    {
+        boolean saveFailed = false;
+        while(true)
+        {
+            Captured captured;
+            try{ captured = saveQueue.poll(FLUSH_CHECK_INTERVAL, TimeUnit.MILLISECONDS); }
+            catch(InterruptedException e) { ErrorLogging.logError(e); break; }
+
+            if(captured == null)
+            {
+                DataSaving.flushIfDue();
+                continue;
+            }
+
+            if(captured == POISON) break;
+
+            //Saving after a failure would leave a gap in the journal
+            if(saveFailed || cancelled)
+            {
+                ErrorLogging.logDebug(() -> "Discarding unsaved iteration " + (captured.iteration+1) + ".");
+                continue;
+            }
+
+            boolean saved = false;
+            try{ saved = DataSaving.writeValues(captured.iteration, captured.resultMap,
+                                                  captured.confidenceMap, captured.cameraToFile); }
+            catch(Exception e) { ErrorLogging.logError(e); }
+            if(!saved)
+            {
+                ErrorLogging.logError("DATA SAVING ERROR!!! - Unable to save iteration " + (captured.iteration+1) + ".");
+                saveFailed = true;
+            }
+            outcomes.add(new Outcome(Stage.SAVE, captured.iteration, captured.generation, 
+                                     (saved ? null : ""), 0.0));
+        }
+    }
+
+    /**
+     * Getter for the number of iterations waiting for OCR.
+     *
+     * @return OCR queue depth
+     */
+    public int getOcrQueueDepth()
+    { return ocrQueue.size(); }
+
+    /**
+     * Getter for the number of iterations waiting to be saved.
+     *
+     * @return Save queue depth
+     */
+    public int getSaveQueueDepth()
+    { return saveQueue.size(); }
+
+    /**
+     * Discard every iteration that is not already being saved.
+     * Used when the run stops early, so nothing past the stopping point reaches
+     * the journal. An iteration part-way through being saved is still saved, and
+     * reported; collect its {@link Outcome} after {@link #close()}.
+     */
+    public void cancel()
+    { cancelled = true; }
+
+    /**
+     * Finish all queued work, then stop the worker threads.
+     * Blocks until every accepted iteration has been saved; after that, any
+     * outcomes not yet collected can still be polled. Calling it again does nothing. If the calling
+     * thread has been interrupted, the workers are interrupted instead, and
+     * queued work is dropped.
+     */
+    @Override
+    public void close()
+    {
+        if(closed) return;
+        closed = true;
+        boolean interrupted = Thread.interrupted();
+        try
+        {
+            if(interrupted)
+            {
+                ocrThread.interrupt();
+                saveThread.interrupt();
+            }
+            else ocrQueue.put(POISON);
+            ocrThread.join();
+            saveThread.join();
+        }
+        catch(InterruptedException e)
+        {
+            ErrorLogging.logError(e);
+            ocrThread.interrupt();
+            saveThread.interrupt();
+            interrupted = true;
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Handles on a camera's OCR metrics.
+     */
+    private static class CameraMetrics
+    {
+        final LatencyHistogram duration;
+        final LongAdder readings;
+        final LongAdder errors;
+
+        CameraMetrics(String cameraName)
+        {
+            duration = MetricsRegistry.histogram("disco_ocr_seconds", "Duration of each OCR call.", 
+                                                 "camera", cameraName);
+            readings = MetricsRegistry.counter("disco_ocr_readings_total", "OCR readings taken.", 
+                                               "camera", cameraName);
+            errors = MetricsRegistry.counter("disco_ocr_errors_total", "OCR readings rejected as invalid.", 
+                                             "camera", cameraName);
+        }
+    }
+
+    /**
+     * An iteration's images, as captured by the fixture thread.
+     */
+    private static class Captured
+    {
+        /**
+         * Index of the iteration (0-based).
+         */
+        final int iteration;
+
+        /**
+         * Retry generation the iteration was captured in.
+         */
+        final int generation;
+
+        /**
+         * Camera name to image file, in camera order.
+         */
+        final Map<String,File> cameraToFile;
+
+        /**
+         * Image file to OCR result. Filled in by the OCR stage.
+         */
+        final Map<File,Double> resultMap = new LinkedHashMap<>();
+
+        /**
+         * Image file to OCR confidence. Filled in by the OCR stage.
+         */
+        final Map<File,Integer> confidenceMap = new LinkedHashMap<>();
+
+        Captured(int iteration, int generation, Map<String,File> cameraToFile)
+        {
+            this.iteration = iteration;
+            this.generation = generation;
+            this.cameraToFile = cameraToFile;
+        }
+    }
+
+    /**
+     * Pipeline stage reporting an {@link Outcome}.
+     */
+    public enum Stage
+    {
+        /**
+         * The iteration was read; it is still to be saved if successful.
+         */
+        OCR,
+
+        /**
+         * The iteration was written to the journal, or failed to be.
+         */
+        SAVE
+    }
+
+    /**
+     * Result of reading, or of saving, a captured iteration.
+     */
+    public static class Outcome
+    {
+        /**
+         * Stage reporting this outcome.
+         */
+        private final Stage stage;
+
+        /**
+         * Index of the iteration (0-based).
+         */
+        private final int iteration;
+
+        /**
+         * Retry generation the iteration was captured in.
+         */
+        private final int generation;
+
+        /**
+         * Camera that produced an invalid reading; null if the iteration succeeded.
+         * Empty for a failed save.
+         */
+        private final String failedCamera;
+
+        /**
+         * The invalid reading, if any.
+         */
+        private final double failedValue;
+
+        Outcome(Stage stage, int iteration, int generation, String failedCamera, double failedValue)
+        {
+            this.stage = stage;
+            this.iteration = iteration;
+            this.generation = generation;
+            this.failedCamera = failedCamera;
+            this.failedValue = failedValue;
+        }
+
+        /**
+         * @return Stage reporting this outcome
+         */
+        public Stage getStage()
+        { return stage; }
+
+        /**
+         * @return Index of the iteration (0-based)
+         */
+        public int getIteration()
+        { return iteration; }
+
+        /**
+         * @return Retry generation the iteration was captured in
+         */
+        public int getGeneration()
+        { return generation; }
+
+        /**
+         * @return For {@link Stage#OCR}, true if every camera produced a valid reading; 
+         *         for {@link Stage#SAVE}, true if the iteration was saved
+         */
+        public boolean isSuccess()
+        { return failedCamera == null; }
+
+        /**
+         * @return Camera that produced an invalid reading; null on success, empty for a failed save
+         */
+        public String getFailedCamera()
+        { return failedCamera; }
+
+        /**
+         * @return The invalid reading; 0 on success
+         */
+        public double getFailedValue()
+        { return failedValue; }
+    }
+}
@@ -0,0 +1,191 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of nanosecond durations.
+ *
+ * Values are stored in log-linear buckets: every power of two is split
+ * into {@link #SUB_BUCKETS} equal buckets, so any recorded value is
+ * reported within about 3% of its true value. Recording is a handful of
+ * atomic increments, and is safe from any number of threads.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class LatencyHistogram
+{
+    /**
+     * Number of bits of precision kept for each value.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * Number of buckets each power of two is split into.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Total number of buckets, covering every positive long.
+     */
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * Count of values recorded in each bucket.
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Number of values recorded.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Sum of all values recorded.
+     */
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * Largest value recorded.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a single duration.
+     * Negative values are recorded as 0.
+     *
+     * @param nanos     Duration to record, in nanoseconds.
+     */
+    public void record(long nanos)
+    {
+        if(nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        long currentMax = max.get();
+        while(nanos > currentMax && !max.compareAndSet(currentMax, nanos))
+            currentMax = max.get();
+    }
+
+    /**
+     * Find the bucket a value belongs in.
+     *
+     * @param value     Non-negative value
+     *
+     * @return Index into {@link #buckets}
+     */
+    private static int bucketIndex(long value)
+    {
+        if(value < SUB_BUCKETS) return (int)value;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int top = (int)(value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    /**
+     * Find the largest value that lands in a given bucket.
+     *
+     * @param index     Index into {@link #buckets}
+     *
+     * @return Upper bound of the bucket
+     */
+    private static long bucketUpperBound(int index)
+    {
+        if(index < 2 * SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long top = (index % SUB_BUCKETS) + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Getter for the number of values recorded.
+     *
+     * @return Count of recorded values
+     */
+    public long getCount()
+    { return count.get(); }
+
+    /**
+     * Getter for the sum of all values recorded.
+     *
+     * @return Sum, in nanoseconds
+     */
+    public long getSum()
+    { return sum.get(); }
+
+    /**
+     * Getter for the largest value recorded.
+     *
+     * @return Maximum, in nanoseconds; 0 if nothing has been recorded
+     */
+    public long getMax()
+    { return max.get(); }
+
+    /**
+     * Getter for the mean of all values recorded.
+     *
+     * @return Mean, in nanoseconds; 0 if nothing has been recorded
+     */
+    public double getMean()
+    {
+        long currentCount = count.get();
+        return (currentCount == 0 ? 0.0 : (double)sum.get() / currentCount);
+    }
+
+    /**
+     * Estimate a percentile of the recorded values.
+     *
+     * @param percentile    Percentile to find, from 0 to 100
+     *
+     * @return Upper bound of the bucket holding the percentile, in nanoseconds;
+     *         0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile)
+    {
+        long total = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++) total += buckets.get(i);
+        if(total == 0) return 0;
+
+        long rank = (long)Math.ceil(Math.max(0.0, Math.min(100.0, percentile)) / 100.0 * total);
+        if(rank < 1) rank = 1;
+
+        long seen = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += buckets.get(i);
+            if(seen >= rank) return Math.min(bucketUpperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Count the values recorded at or below a given bound.
+     * Accurate to the resolution of the buckets.
+     *
+     * @param nanos     Upper bound, in nanoseconds
+     *
+     * @return Number of values at or below the bound
+     */
+    public long getCountAtOrBelow(long nanos)
+    {
+        if(nanos < 0) return 0;
+        int lastIndex = bucketIndex(nanos);
+        long seen = 0;
+        for(int i = 0; i <= lastIndex; i++) seen += buckets.get(i);
+        return seen;
+    }
+
+    /**
+     * Clear all recorded values.
+     * Not atomic with respect to concurrent recording.
+     */
+    public void reset()
+    {
+        for(int i = 0; i < BUCKET_COUNT; i++) buckets.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,306 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+//HTTP server import
+import com.sun.net.httpserver.HttpServer;
+
+//Native memory tracking import
+import org.bytedeco.javacpp.Pointer;
+
+/**
+ * In-process metrics, served over HTTP in Prometheus text format.
+ *
+ * Counters are {@link LongAdder}s and durations are {@link LatencyHistogram}s,
+ * so recording never takes a lock. Gauges are read only when scraped.
+ * Metrics are identified by name and an optional set of labels, given as
+ * alternating name/value strings:
+ * <pre>
+ *     MetricsRegistry.counter("disco_ocr_errors_total", "OCR errors.", "camera", cameraName).increment();
+ * </pre>
+ * Looking a metric up builds its label string, so callers recording on
+ * every reading should keep the returned handle rather than look it up again.
+ * The endpoint is started by {@link #startServer()} when the
+ * <code>disco.metrics.port</code> system property is set, and serves
+ * <code>/metrics</code>.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.1, 18 Oct. 2026
+ */
+public class MetricsRegistry
+{
+    /**
+     * Histogram bucket bounds, in seconds.
+     */
+    private static final double[] BUCKET_BOUNDS =
+        { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60 };
+
+    /**
+     * All metric families, by name.
+     */
+    private static final Map<String,Family> families = new ConcurrentHashMap<>();
+
+    /**
+     * Running HTTP server; null if not started.
+     */
+    private static HttpServer server;
+
+    static
+    {
+        //Process-wide gauges
+        gauge("disco_jvm_heap_used_bytes", "JVM heap in use.",
+              () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        gauge("disco_jvm_heap_max_bytes", "Largest heap the JVM will use.",
+              () -> Runtime.getRuntime().maxMemory());
+        gauge("disco_native_physical_bytes", "Physical memory used by the process, as reported by JavaCPP.",
+              () -> Pointer.physicalBytes());
+        gauge("disco_native_tracked_bytes", "Native memory allocated through JavaCPP.",
+              () -> Pointer.totalBytes());
+        gauge("disco_run_paused", "1 while the run switch has the fixture paused.",
+              () -> (RunGate.isPaused() ? 1 : 0));
+        for(StageTimer.Stage stage : StageTimer.Stage.values())
+            register("disco_stage_seconds", "Duration of each stage of an iteration.", Type.HISTOGRAM,
+                     () -> StageTimer.getHistogram(stage), "stage", stage.name().toLowerCase());
+    }
+
+    /**
+     * Get, or create, a counter.
+     *
+     * @param name      Metric name; should end in _total
+     * @param help      Description of the metric
+     * @param labels    Alternating label names and values
+     *
+     * @return Counter to increment
+     */
+    public static LongAdder counter(String name, String help, String... labels)
+    { return (LongAdder)register(name, help, Type.COUNTER, LongAdder::new, labels); }
+
+    /**
+     * Get, or create, a duration histogram.
+     *
+     * @param name      Metric name; should end in _seconds
+     * @param help      Description of the metric
+     * @param labels    Alternating label names and values
+     *
+     * @return Histogram to record nanosecond durations into
+     */
+    public static LatencyHistogram histogram(String name, String help, String... labels)
+    { return (LatencyHistogram)register(name, help, Type.HISTOGRAM, LatencyHistogram::new, labels); }
+
+    /**
+     * Set a gauge, replacing any previous gauge with the same name and labels.
+     *
+     * @param name      Metric name
+     * @param help      Description of the metric
+     * @param value     Read each time the metrics are scraped
+     * @param labels    Alternating label names and values
+     */
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels)
+    {
+        Family family = families.computeIfAbsent(name, (key) -> new Family(help, Type.GAUGE));
+        if(family.type != Type.GAUGE)
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        family.metrics.put(labelString(labels), value);
+    }
+
+    /**
+     * Get or create a metric.
+     *
+     * @param name      Metric name
+     * @param help      Description of the metric
+     * @param type      Type of metric
+     * @param metric    Creates the metric; only called if none exists yet
+     * @param labels    Alternating label names and values
+     *
+     * @return The registered metric
+     */
+    private static Object register(String name, String help, Type type, Supplier<?> metric, String... labels)
+    {
+        Family family = families.computeIfAbsent(name, (key) -> new Family(help, type));
+        if(family.type != type)
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        return family.metrics.computeIfAbsent(labelString(labels), (key) -> metric.get());
+    }
+
+    /**
+     * Format labels for the Prometheus text format.
+     *
+     * @param labels    Alternating label names and values
+     *
+     * @return Label set, including braces; empty if there are no labels
+     */
+    private static String labelString(String... labels)
+    {
+        if(labels.length == 0) return "";
+        if(labels.length % 2 != 0) throw new IllegalArgumentException("Labels must be name/value pairs.");
+        StringBuilder output = new StringBuilder("{");
+        for(int i = 0; i < labels.length; i += 2)
+        {
+            if(i > 0) output.append(',');
+            output.append(labels[i]).append("=\"")
+                  .append(labels[i+1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                  .append('"');
+        }
+        return output.append('}').toString();
+    }
+
+    /**
+     * Add an extra label to a label set.
+     *
+     * @param labels    Existing label set, from {@link #labelString(String...)}
+     * @param name      Label name
+     * @param value     Label value
+     *
+     * @return Combined label set
+     */
+    private static String withLabel(String labels, String name, String value)
+    {
+        String extra = name + "=\"" + value + "\"";
+        if(labels.isEmpty()) return "{" + extra + "}";
+        return labels.substring(0, labels.length() - 1) + "," + extra + "}";
+    }
+
+    /**
+     * Write every metric in Prometheus text format.
+     *
+     * @return Text exposition of all metrics
+     */
+    public static String scrape()
+    {
+        StringBuilder output = new StringBuilder();
+        for(Map.Entry<String,Family> familyEntry : new TreeMap<>(families).entrySet())
+        {
+            String name = familyEntry.getKey();
+            Family family = familyEntry.getValue();
+            output.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            output.append("# TYPE ").append(name).append(' ').append(family.type.name().toLowerCase()).append('\n');
+            for(Map.Entry<String,Object> metricEntry : new TreeMap<>(family.metrics).entrySet())
+            {
+                String labels = metricEntry.getKey();
+                Object metric = metricEntry.getValue();
+                switch(family.type)
+                {
+                    case COUNTER:
+                        output.append(name).append(labels).append(' ')
+                              .append(((LongAdder)metric).sum()).append('\n');
+                        break;
+                    case GAUGE:
+                        double value;
+                        try{ value = ((DoubleSupplier)metric).getAsDouble(); }
+                        catch(RuntimeException e) { value = Double.NaN; }
+                        output.append(name).append(labels).append(' ').append(value).append('\n');
+                        break;
+                    case HISTOGRAM:
+                        LatencyHistogram histogram = (LatencyHistogram)metric;
+                        for(double bound : BUCKET_BOUNDS)
+                            output.append(name).append("_bucket").append(withLabel(labels, "le", Double.toString(bound)))
+                                  .append(' ').append(histogram.getCountAtOrBelow((long)(bound * 1e9))).append('\n');
+                        output.append(name).append("_bucket").append(withLabel(labels, "le", "+Inf"))
+                              .append(' ').append(histogram.getCount()).append('\n');
+                        output.append(name).append("_sum").append(labels).append(' ')
+                              .append(histogram.getSum() / 1e9).append('\n');
+                        output.append(name).append("_count").append(labels).append(' ')
+                              .append(histogram.getCount()).append('\n');
+                        break;
+                }
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Start the HTTP endpoint, if the <code>disco.metrics.port</code> system property is set.
+     * Binds to <code>disco.metrics.bind</code> (default: all interfaces).
+     *
+     * @return true if the endpoint is running
+     */
+    public static synchronized boolean startServer()
+    {
+        if(server != null) return true;
+        String port = System.getProperty("disco.metrics.port");
+        if(port == null) return false;
+        try
+        {
+            InetSocketAddress address = new InetSocketAddress(System.getProperty("disco.metrics.bind", "0.0.0.0"),
+                                                              Integer.parseInt(port.trim()));
+            server = HttpServer.create(address, 0);
+            server.createContext("/metrics", (exchange) ->
+            {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try(OutputStream responseBody = exchange.getResponseBody()) { responseBody.write(body); }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor((task) ->
+            {
+                Thread thread = new Thread(task, "Metrics server.");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            server.start();
+            ErrorLogging.logError("Serving metrics at http://" + address.getHostString() + ":" +
+                                  server.getAddress().getPort() + "/metrics");
+            return true;
+        }
+        catch(IOException | IllegalArgumentException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("METRICS ERROR!!! - Unable to start metrics endpoint on port " + port);
+            server = null;
+            return false;
+        }
+    }
+
+    /**
+     * Stop the HTTP endpoint, if it is running.
+     */
+    public static synchronized void stopServer()
+    {
+        if(server == null) return;
+        server.stop(0);
+        server = null;
+    }
+
+    /**
+     * Enum of supported metric types.
+     */
+    private enum Type { COUNTER, GAUGE, HISTOGRAM; }
+
+    /**
+     * All metrics sharing a name.
+     */
+    private static class Family
+    {
+        /**
+         * Description of the metric.
+         */
+        final String help;
+
+        /**
+         * Type of every metric in the family.
+         */
+        final Type type;
+
+        /**
+         * Metrics, by label set.
+         */
+        final Map<String,Object> metrics = new ConcurrentHashMap<>();
+
+        Family(String help, Type type)
+        {
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
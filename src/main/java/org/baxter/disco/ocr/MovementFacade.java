@@ -1,37 +1,22 @@
 package org.baxter.disco.ocr;
 
-//Pi4J imports
-import com.pi4j.Pi4J;
-import com.pi4j.context.Context;
-import com.pi4j.io.gpio.digital.DigitalInput;
-import com.pi4j.io.gpio.digital.DigitalInputConfigBuilder;
-import com.pi4j.io.gpio.digital.DigitalOutput;
-import com.pi4j.io.gpio.digital.DigitalOutputConfigBuilder;
-import com.pi4j.io.gpio.digital.DigitalState;
-import com.pi4j.io.gpio.digital.PullResistance;
+//Standard imports
+import java.util.function.BooleanSupplier;
 
 /**
  * Facade for all movement of the fixture.
  *
- * Uses Pi4J to communicate with GPIO pins.
- * Currently missing Run switch compatibility.
+ * Drives the fixture through a {@link FixtureGpio} backend. By default this 
+ * is the real hardware ({@link PigpioFixtureGpio}); setting the system property 
+ * <code>disco.gpio=sim</code> selects {@link SimulatedFixtureGpio} instead, 
+ * running on a virtual clock <code>disco.sim.speed</code> times faster than real time.
+ * The Run switch drives {@link RunGate} through state-change events.
  *
  * @author Blizzard Finnegan
- * @version 3.0.1, 10 Mar. 2023
+ * @version 3.4.1, 18 Oct. 2026
  */
 public class MovementFacade
 {
-    /**
-     * Boolean used to communicate with runSwitchThread to gracefully exit.
-     */
-    private static boolean exit = false;
-
-    /**
-     * Thread that watches the physical Run switch on the device so that 
-     * fixture movement can be stopped.
-     */
-    private static Thread runSwitchThread;
-
     /**
      * Fraction of the total travel time, so the arm won't push through the limit switch.
      */
@@ -44,179 +29,72 @@ public class MovementFacade
      */
     private static double TRAVEL_DIST;
 
-    //PWM Addresses
-    //All addresses are in BCM format.
-
-    /**
-     * Output pin address for motor power control.
-     */
-    private static final int MOTOR_ENABLE_ADDR = 22;
-
-    /**
-     * Output pin address for motor direction control.
-     */
-    private static final int MOTOR_DIRECTION_ADDR = 27;
-
-    /**
-     * Output pin address for piston control.
-     */
-    private static final int PISTON_ADDR = 25;
-
-    /**
-     * Input pin address for the run switch. 
-     */
-    private static final int RUN_SWITCH_ADDR = 10;
-
-    /**
-     * Input pin address for the upper limit switch.
-     */
-    private static final int UPPER_LIMIT_ADDR = 23;
-
-    /**
-     * Input pin address for the lower limit switch.
-     */
-    private static final int LOWER_LIMIT_ADDR = 24;
-
     /**
      * How many milliseconds to wait before polling the GPIO
      */
     private static final int POLL_WAIT = 10;
 
-    //Pi GPIO pin objects
-    
     /**
-     * Upper limit switch object.
-     * 
-     * Status: High; Upper limit switch has been reached.
-     * Status: Low; Upper limit switch has not been reached.
+     * GPIO backend used to drive the fixture.
      */
-    private static DigitalInput upperLimit;
+    private static FixtureGpio gpio;
 
     /**
-     * Lower limit switch object.
-     * 
-     * Status: High; Lower limit switch has been reached.
-     * Status: Low; Lower limit switch has not been reached.
+     * Clock used for all movement timing. Supplied by {@link #gpio}.
      */
-    private static DigitalInput lowerLimit;
-
-    /**
-     * Lower limit switch object.
-     *
-     * Status: High; Test may continue.
-     * Status: Low; Test must stop immediately.
-     */
-    private static DigitalInput runSwitch;
-
-    /**
-     * Motor power object.
-     *
-     * Status: High; Motor starts moving, in the direction defined by {@link #motorDirection}.
-     * Status: Low; Motor stops moving.
-     */
-    private static DigitalOutput motorEnable;
-
-    /**
-     * Defines the movement direction for the motor enabled by {@link #motorEnable}.
-     *
-     * Status: High; Motor will move upwards.
-     * Status: Low; Motor will move downwards.
-     */
-    private static DigitalOutput motorDirection;
-
-    /**
-     * Piston control pin object.
-     *
-     * Status: High; Piston is extended.
-     * Status: Low; Piston is retracted.
-     */
-    private static DigitalOutput pistonActivate;
-
-    /**
-     * {@link Pi4J} API interaction object.
-     */
-    private static Context pi4j;
+    private static FixtureClock clock;
 
     static
     {
-        ErrorLogging.logError("DEBUG: Starting lock thread...");
-        runSwitchThread = new Thread(() -> 
-                {
-                    boolean unlock = false;
-                    while(!exit)
-                    {
-                        if(runSwitch.isOn())
-                        {
-                            ErrorLogging.logError("DEBUG: Run switch turned off!");
-                            while(!Cli.LOCK.tryLock())
-                            {}
-                            unlock = true;
-                        }
-                        else
-                        {
-                            //ErrorLogging.logError("Run switch on!");
-                            if(unlock) 
-                            { Cli.LOCK.unlock(); unlock = false; }
-                        }
-                        try{ Thread.sleep(100); } catch(Exception e) { ErrorLogging.logError(e); }
-                    }
-                }, "Run switch monitor.");
-        runSwitchThread.start();
-
-        pi4j = Pi4J.newAutoContext();
-
-        upperLimit = inputBuilder("upperLimit", "Upper Limit Switch", UPPER_LIMIT_ADDR);
-        lowerLimit = inputBuilder("lowerLimit", "Lower Limit Switch", LOWER_LIMIT_ADDR);
-        runSwitch  = inputBuilder("runSwitch" , "Run Switch"        , RUN_SWITCH_ADDR);
-
-        motorEnable    = outputBuilder("motorEnable"   , "Motor Enable"   , MOTOR_ENABLE_ADDR);
-        motorDirection = outputBuilder("motorDirection", "Motor Direction", MOTOR_DIRECTION_ADDR);
-        pistonActivate = outputBuilder("piston"        , "Piston Activate", PISTON_ADDR);
+        gpio = createBackend();
+        clock = gpio.getClock();
+
+        ErrorLogging.logError("DEBUG: Attaching run switch listener...");
+        gpio.setRunSwitchListener((paused) ->
+        {
+            if(paused) RunGate.pause();
+            else RunGate.resume();
+        });
+        //Edges only report changes; pick up the switch position at startup
+        if(gpio.isRunSwitchPaused()) RunGate.pause();
 
         findDistance();
     }
 
-
     /**
-     * Builder function for DigitalInput pins. 
+     * Create the GPIO backend requested by the <code>disco.gpio</code> system property.
      *
-     * @param id        ID of the new {@link DigitalInput} pin.
-     * @param name      Name of the new {@link DigitalInput} pin.
-     * @param address   BCM address of the {@link DigitalInput} pin.
-     *
-     * @return newly created {@link DigitalInput} object.
+     * @return Simulated backend if requested; otherwise the real hardware
      */
-    private static DigitalInput inputBuilder(String id, String name, int address)
-    { 
-        DigitalInputConfigBuilder configBuilder = DigitalInput.newConfigBuilder(pi4j)
-                                                              .id(id)
-                                                              .address(address)
-                                                              .pull(PullResistance.PULL_DOWN)
-                                                              .debounce(3000L)
-                                                              .provider("pigpio-digital-input");
-        return pi4j.create(configBuilder);
+    private static FixtureGpio createBackend()
+    {
+        String backend = System.getProperty("disco.gpio", "pigpio");
+        if(!backend.equalsIgnoreCase("sim")) return new PigpioFixtureGpio();
+
+        double speed = 1.0;
+        long travelMillis = SimulatedFixtureGpio.DEFAULT_TRAVEL_MILLIS;
+        try
+        {
+            speed = Double.parseDouble(System.getProperty("disco.sim.speed", "1.0"));
+            travelMillis = Long.parseLong(System.getProperty("disco.sim.travelMs", 
+                                          Long.toString(travelMillis)));
+        }
+        catch(NumberFormatException e)
+        { ErrorLogging.logError("GPIO WARNING - Invalid simulation setting; using defaults. " + e.getMessage()); }
+
+        ErrorLogging.logError("Using simulated GPIO, at " + speed + "x real time.");
+        FixtureClock simClock = new FixtureClock(speed);
+        FixtureClock.setCurrent(simClock);
+        return new SimulatedFixtureGpio(simClock, travelMillis);
     }
 
     /**
-     * Builder function for DigitalOutput pins. 
+     * Getter for the GPIO backend in use.
      *
-     * @param id        ID of the new {@link DigitalOutput} pin.
-     * @param name      Name of the new {@link DigitalOutput} pin.
-     * @param address   BCM address of the {@link DigitalOutput} pin.
-     *
-     * @return newly created {@link DigitalOutput} object
+     * @return The {@link FixtureGpio} driving the fixture
      */
-    private static DigitalOutput outputBuilder(String id, String name, int address)
-    {
-        DigitalOutputConfigBuilder configBuilder = DigitalOutput.newConfigBuilder(pi4j)
-                                                                .id(id)
-                                                                .address(address)
-                                                                .shutdown(DigitalState.LOW)
-                                                                .initial(DigitalState.LOW)
-                                                                .provider("pigpio-digital-output");
-        return pi4j.create(configBuilder);
-
-    }
+    public static FixtureGpio getGpio()
+    { return gpio; }
 
     /**
      * Function used to locate the fixture's motor.
@@ -226,35 +104,35 @@ public class MovementFacade
         ErrorLogging.logError("DEBUG: --------------------------------------");
         int counter;
         ErrorLogging.logError("DEBUG: Setting minimum frequency of PWM...");
-        if(upperLimit.isHigh())
+        if(gpio.isUpperLimit())
         {
             ErrorLogging.logError("DEBUG: Motor at highest point! Lowering to reset.");
-            motorDirection.low();
+            gpio.setMotorDirectionUp(false);
             ErrorLogging.logError("DEBUG: Motor offset on.");
-            motorEnable.on();
-            try{ Thread.sleep(500); }
-            catch (Exception e){ ErrorLogging.logError(e); }
-            motorEnable.off();
+            gpio.setMotorEnabled(true);
+            clock.sleep(500);
+            gpio.setMotorEnabled(false);
             ErrorLogging.logError("DEBUG: Motor offset off.");
         }
         ErrorLogging.logError("DEBUG: Moving motor to highest point.");
-        motorDirection.high();
+        gpio.setMotorDirectionUp(true);
 
         ErrorLogging.logError("DEBUG: Motor return on.");
-        motorEnable.on();
+        gpio.setMotorEnabled(true);
 
-        ErrorLogging.logError("DEBUG: Is the upper limit switch reached? " + upperLimit.isHigh());
+        ErrorLogging.logDebug(() -> "Is the upper limit switch reached? " + gpio.isUpperLimit());
         for(counter = 0; counter < Integer.MAX_VALUE; counter++)
         { 
-            try{ Thread.sleep(POLL_WAIT); } catch(Exception e){ ErrorLogging.logError(e); }
-            if(upperLimit.isOn()) 
+            clock.sleep(POLL_WAIT);
+            if(gpio.isUpperLimit()) 
             {
-                try{ Thread.sleep(1); } catch(Exception e){ErrorLogging.logError(e); }
-                if(upperLimit.isOn()) break;
+                clock.sleep(1);
+                if(gpio.isUpperLimit()) break;
             }
         }
-        motorEnable.off();
-        ErrorLogging.logError("DEBUG: Motor returned after " + counter + " polls.");
+        gpio.setMotorEnabled(false);
+        int polls = counter;
+        ErrorLogging.logDebug(() -> "Motor returned after " + polls + " polls.");
         ErrorLogging.logError("DEBUG: --------------------------------------");
         return counter;
     }
@@ -268,37 +146,39 @@ public class MovementFacade
         int downTravelCounter = 0;
         int upTravelCounter = 0;
         //pwm.on(DUTY_CYCLE, MIN_FREQUENCY);
-        motorDirection.low();
-        motorEnable.on();
+        gpio.setMotorDirectionUp(false);
+        gpio.setMotorEnabled(true);
         for(downTravelCounter = 0; downTravelCounter < Integer.MAX_VALUE; downTravelCounter++)
         {
-            try{ Thread.sleep(POLL_WAIT); } catch(Exception e){ ErrorLogging.logError(e); }
-            if(lowerLimit.isOn()) 
+            clock.sleep(POLL_WAIT);
+            if(gpio.isLowerLimit()) 
             {
-                try{ Thread.sleep(1); } catch(Exception e){ErrorLogging.logError(e); }
-                if(lowerLimit.isOn()) break;
+                clock.sleep(1);
+                if(gpio.isLowerLimit()) break;
             }
         }
-        motorEnable.off();
-        if(lowerLimit.isOff()) ErrorLogging.logError("DEBUG: False positive on findDistance down!");
+        gpio.setMotorEnabled(false);
+        if(!gpio.isLowerLimit()) ErrorLogging.logDebug(() -> "False positive on findDistance down!");
         
-        ErrorLogging.logError("DEBUG: Down travel count: " + downTravelCounter);
+        int downCount = downTravelCounter;
+        ErrorLogging.logDebug(() -> "Down travel count: " + downCount);
 
-        motorDirection.high();
-        motorEnable.on();
+        gpio.setMotorDirectionUp(true);
+        gpio.setMotorEnabled(true);
         for(upTravelCounter = 0; upTravelCounter < Integer.MAX_VALUE; upTravelCounter++)
         { 
-            try{ Thread.sleep(POLL_WAIT); } catch(Exception e){ ErrorLogging.logError(e); }
-            if(upperLimit.isOn()) 
+            clock.sleep(POLL_WAIT);
+            if(gpio.isUpperLimit()) 
             {
-                try{ Thread.sleep(1); } catch(Exception e){ErrorLogging.logError(e); }
-                if(upperLimit.isOn()) break;
+                clock.sleep(1);
+                if(gpio.isUpperLimit()) break;
             }
         }
-        motorEnable.off();
-        if(upperLimit.isOff()) ErrorLogging.logError("DEBUG: False positive on findDistance up!");
+        gpio.setMotorEnabled(false);
+        if(!gpio.isUpperLimit()) ErrorLogging.logDebug(() -> "False positive on findDistance up!");
 
-        ErrorLogging.logError("DEBUG: Up travel count: " + downTravelCounter);
+        int upCount = upTravelCounter;
+        ErrorLogging.logDebug(() -> "Up travel count: " + upCount);
 
         int travelCounter = Math.min(upTravelCounter, downTravelCounter);
         TRAVEL_DIST = travelCounter;
@@ -313,43 +193,60 @@ public class MovementFacade
      * @return true if movement was successful; otherwise false
      */
     private static FinalState gotoLimit(boolean moveUp)
+    {
+        FixtureEvents.Movement event = new FixtureEvents.Movement();
+        event.begin();
+        long start = StageTimer.start();
+        FinalState output = gotoLimitUntimed(moveUp);
+        StageTimer.stop(moveUp ? StageTimer.Stage.UP_MOVE : StageTimer.Stage.DOWN_MOVE, start);
+        event.direction = (moveUp ? "up" : "down");
+        event.finalState = output.name();
+        event.commit();
+        return output;
+    }
+
+    /**
+     * Movement logic for {@link #gotoLimit(boolean)}, without stage timing.
+     *
+     * @param moveUp    Whether to send the fixture up or down. (True = up, False = down)
+     * @return final state of the fixture
+     */
+    private static FinalState gotoLimitUntimed(boolean moveUp)
     {
         FinalState output = FinalState.FAILED;
-        DigitalInput limitSense;
+        BooleanSupplier limitSense;
         if(moveUp)  
         {
-            motorDirection.high();
-            limitSense = upperLimit;
-            ErrorLogging.logError("DEBUG: Sending fixture up...");
+            gpio.setMotorDirectionUp(true);
+            limitSense = gpio::isUpperLimit;
+            ErrorLogging.logDebug(() -> "Sending fixture up...");
         }
         else        
         {
-            motorDirection.low();
-            limitSense = lowerLimit;
-            ErrorLogging.logError("DEBUG: Sending fixture down...");
+            gpio.setMotorDirectionUp(false);
+            limitSense = gpio::isLowerLimit;
+            ErrorLogging.logDebug(() -> "Sending fixture down...");
         }
 
-        if(limitSense.isHigh()) return FinalState.SAFE;
+        if(limitSense.getAsBoolean()) return FinalState.SAFE;
 
         int totalPollCount = (int)(TRAVEL_DIST);
         int highSpeedPolls = (int)(totalPollCount * SLOW_POLL_FACTOR);
-        ErrorLogging.logError("DEBUG: =============================");
-        ErrorLogging.logError("DEBUG: Travel time: " + totalPollCount);
-        ErrorLogging.logError("DEBUG: High speed poll count: " + highSpeedPolls);
-        ErrorLogging.logError("DEBUG: =============================");
-        motorEnable.on();
+        ErrorLogging.logDebug(() -> "Travel time: " + totalPollCount + 
+                                     ", high speed poll count: " + highSpeedPolls);
+        gpio.setMotorEnabled(true);
         for(int i = 0; i < highSpeedPolls; i++)
         {
-            try{ Thread.sleep(POLL_WAIT); } catch(Exception e){ ErrorLogging.logError(e); }
-            if(limitSense.isOn())
+            clock.sleep(POLL_WAIT);
+            if(limitSense.getAsBoolean())
             {
-                motorEnable.off();
+                gpio.setMotorEnabled(false);
                 break;
             }
         }
-        motorEnable.off();
+        gpio.setMotorEnabled(false);
 
-        output = (limitSense.isOn() ? FinalState.UNSAFE : FinalState.SAFE);
+        output = (limitSense.getAsBoolean() ? FinalState.UNSAFE : FinalState.SAFE);
 
         return output;
     }
@@ -373,11 +270,16 @@ public class MovementFacade
      */
     public static void pressButton()
     {
-        ErrorLogging.logError("DEBUG: Pressing button...");
-        pistonActivate.on();
-        try{ Thread.sleep(1000); } catch(Exception e) {ErrorLogging.logError(e);};
-        ErrorLogging.logError("DEBUG: Releasing button...");
-        pistonActivate.off();
+        FixtureEvents.ButtonPress event = new FixtureEvents.ButtonPress();
+        event.begin();
+        long start = StageTimer.start();
+        ErrorLogging.logDebug(() -> "Pressing button...");
+        gpio.setPiston(true);
+        clock.sleep(1000);
+        ErrorLogging.logDebug(() -> "Releasing button...");
+        gpio.setPiston(false);
+        StageTimer.stop(StageTimer.Stage.PRESS, start);
+        event.commit();
     }
 
     /**
@@ -386,12 +288,7 @@ public class MovementFacade
     public static void closeGPIO()
     {
         resetArm();
-        if(runSwitchThread.isAlive())
-        {
-                exit = true;
-                try{ Thread.sleep(500); } catch(Exception e){}
-        }
-        pi4j.shutdown();
+        gpio.shutdown();
     }
 
     /**
@@ -404,7 +301,7 @@ public class MovementFacade
         goUp();
         if(prime) pressButton();
         goDown();
-        try{ Thread.sleep(100); } catch(Exception e){ ErrorLogging.logError(e); }
+        clock.sleep(100);
         pressButton();
     }
 
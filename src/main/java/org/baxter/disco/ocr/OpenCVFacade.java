@@ -9,6 +9,9 @@ import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
 import static org.bytedeco.opencv.global.opencv_imgcodecs.cvSaveImage;
 import static org.bytedeco.opencv.global.opencv_highgui.selectROI;
 import static org.bytedeco.opencv.global.opencv_core.bitwise_and;
+import static org.bytedeco.opencv.global.opencv_core.absdiff;
+import static org.bytedeco.opencv.global.opencv_core.countNonZero;
+import static org.bytedeco.opencv.global.opencv_core.mean;
 
 //JavaCV imports
 import org.bytedeco.javacv.Frame;
@@ -23,20 +26,24 @@ import org.bytedeco.opencv.opencv_core.IplImage;
 import org.bytedeco.opencv.opencv_core.Rect;
 
 //Standard imports
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.io.File;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Facade for the OpenCV package.
  * Performs image capture, as well as image manipulation.
  *  
  * @author Blizzard Finnegan
- * @version 3.0.0, 10 Mar. 2023
+ * @version 3.7.3, 18 Oct. 2026
  */
 public class OpenCVFacade
 {
@@ -73,20 +80,100 @@ public class OpenCVFacade
      */
     private static final String CAMERA_FILE_PREFIX = "video-cam-";
 
+    /**
+     * How many milliseconds to wait between frames while watching a display.
+     */
+    private static final int DISPLAY_POLL_WAIT = 100;
+
+    /**
+     * Number of consecutive stable frames required before a display is considered ready.
+     */
+    private static final int DISPLAY_STABLE_FRAMES = 3;
+
+    /**
+     * Largest mean per-pixel difference (0-255) between consecutive frames 
+     * for a display to be considered stable.
+     */
+    private static final double DISPLAY_STABLE_DIFF = 4.0;
+
+    /**
+     * Per-pixel difference (0-255) from the frame taken before a press, 
+     * above which a pixel of the display has changed. Well above sensor
+     * noise, and well below the contrast of a segment.
+     */
+    private static final double DISPLAY_CHANGE_LEVEL = 64;
+
+    /**
+     * Fraction of a display's pixels that must change from the frame taken 
+     * before a press for it to show a new reading. About half a segment.
+     */
+    private static final double DISPLAY_CHANGE_FRACTION = 0.01;
+
+    /**
+     * How many milliseconds to wait between frames while waiting for a display to go dark.
+     */
+    private static final int DISPLAY_DARK_POLL_WAIT = 250;
+
+    /**
+     * Number of consecutive dark frames required before a DUT is considered asleep.
+     */
+    private static final int DISPLAY_DARK_FRAMES = 2;
+
+    /**
+     * Largest number of simulated cameras.
+     */
+    private static final int MAX_SIM_CAMERAS = 16;
+
+    /**
+     * Number of images saved so far; numbers each saved image, so no two
+     * images share a file name, however fast they are taken.
+     */
+    private static final AtomicLong IMAGE_COUNT = new AtomicLong();
+
     //Initial Camera creation
     static
     {
-        File devDirectory = new File("/dev");
-        for(File cameraFile : devDirectory.listFiles(
-                    (file) -> { return file.getName().contains(CAMERA_FILE_PREFIX); }))
+        if(System.getProperty("disco.camera", System.getProperty("disco.gpio", "")).equalsIgnoreCase("sim"))
+            newSimulatedCameras();
+        else
         {
-            String cameraName = cameraFile.getName().
-                                substring(CAMERA_FILE_PREFIX.length());
-            ErrorLogging.logError("DEBUG: Camera name: " + cameraName);
-            newCamera(cameraName, cameraFile.getAbsolutePath());
+            File devDirectory = new File("/dev");
+            for(File cameraFile : devDirectory.listFiles(
+                        (file) -> { return file.getName().contains(CAMERA_FILE_PREFIX); }))
+            {
+                String cameraName = cameraFile.getName().
+                                    substring(CAMERA_FILE_PREFIX.length());
+                ErrorLogging.logError("DEBUG: Camera name: " + cameraName);
+                newCamera(cameraName, cameraFile.getAbsolutePath());
+            }
         }
     }
 
+    /**
+     * Create the simulated cameras requested by the <code>disco.sim.cameras</code>
+     * system property (1 to {@value #MAX_SIM_CAMERAS}; default 1), named sim0, sim1, and so on.
+     * Their DUTs are pressed by the simulated fixture, if <code>disco.gpio=sim</code>;
+     * otherwise their displays stay awake.
+     */
+    private static void newSimulatedCameras()
+    {
+        int count = 1;
+        try{ count = Integer.parseInt(System.getProperty("disco.sim.cameras", "1")); }
+        catch(NumberFormatException e)
+        { ErrorLogging.logError("CAMERA INIT WARNING - Invalid simulated camera count; using 1. " + e.getMessage()); }
+        count = Math.max(1, Math.min(MAX_SIM_CAMERAS, count));
+
+        SimulatedFixtureGpio gpio = null;
+        if(System.getProperty("disco.gpio", "").equalsIgnoreCase("sim") && 
+           MovementFacade.getGpio() instanceof SimulatedFixtureGpio)
+            gpio = (SimulatedFixtureGpio)MovementFacade.getGpio();
+        FixtureClock clock = (gpio != null ? gpio.getClock() : FixtureClock.current());
+
+        ErrorLogging.logError("Using " + count + " simulated camera(s).");
+        for(int i = 0; i < count; i++)
+            cameraMap.put("sim" + i, new SimulatedCamera(clock, gpio, 0x0D15C0L + i));
+    }
+
     /**
      * Default camera creator function.
      * Creates a camera, and adds it to cameraMap.
@@ -158,6 +245,32 @@ public class OpenCVFacade
     public static Set<String> getCameraNames()
     { return cameraMap.keySet(); }
 
+    /**
+     * Getter for the width of a camera's frames.
+     *
+     * @param cameraName    Name of the camera
+     *
+     * @return Frame width, in pixels; the default width if the camera is unknown
+     */
+    public static int getImageWidth(String cameraName)
+    {
+        FrameGrabber camera = cameraMap.get(cameraName);
+        return (camera != null && camera.getImageWidth() > 0 ? camera.getImageWidth() : IMG_WIDTH);
+    }
+
+    /**
+     * Getter for the height of a camera's frames.
+     *
+     * @param cameraName    Name of the camera
+     *
+     * @return Frame height, in pixels; the default height if the camera is unknown
+     */
+    public static int getImageHeight(String cameraName)
+    {
+        FrameGrabber camera = cameraMap.get(cameraName);
+        return (camera != null && camera.getImageHeight() > 0 ? camera.getImageHeight() : IMG_HEIGHT);
+    }
+
 
     /** 
      * Wrapper function for native "take picture" function.
@@ -180,10 +293,22 @@ public class OpenCVFacade
         }
 
         //Convert to grayscale
-        Mat in = MAT_CONVERTER.convertToMat(temp);
-        output = MAT_CONVERTER.convertToMat(temp);
-        cvtColor(in,output,CV_BGR2GRAY);
+        output = toGreyscale(MAT_CONVERTER.convertToMat(temp));
+
+        return output;
+    }
 
+    /**
+     * Convert a camera frame to greyscale.
+     *
+     * @param image     BGR frame, as taken from the camera
+     *
+     * @return Greyscale frame
+     */
+    static Mat toGreyscale(Mat image)
+    {
+        Mat output = new Mat();
+        cvtColor(image,output,CV_BGR2GRAY);
         return output;
     }
 
@@ -240,6 +365,34 @@ public class OpenCVFacade
         return output;
     }
 
+    /**
+     * Take a burst of frames, and save them unprocessed, for offline tuning
+     * with {@link ParameterTuner}.
+     *
+     * @param cameraName    Name of the camera to take pictures with.
+     * @param frameCount    The number of frames to take.
+     * @param directory     Directory to save the frames to, as frame-00.png, frame-01.png, ...
+     *
+     * @return Files of the saved frames, in order; null if the camera doesn't exist
+     */
+    public static List<File> recordBurst(String cameraName, int frameCount, File directory)
+    {
+        List<Mat> burst = takeBurst(cameraName, frameCount);
+        if(burst == null)
+        {
+            ErrorLogging.logError("OPENCV ERROR!!! - Invalid camera name.");
+            return null;
+        }
+        directory.mkdirs();
+        List<File> output = new LinkedList<>();
+        for(int i = 0; i < burst.size(); i++)
+        {
+            output.add(saveImage(burst.get(i), new File(directory, String.format("frame-%02d.png", i))));
+            burst.get(i).release();
+        }
+        return output;
+    }
+
     /**
      * Set crop size and location by GUI means.
      *
@@ -269,17 +422,18 @@ public class OpenCVFacade
      * Crop a given image, based on dimensions in the configuration.
      *
      * @param image         Frame taken from the camera
-     * @param cameraName    Name of the camera the frame is from
+     * @param settings      Config of the camera the frame is from
      */
-    private static Mat crop(Mat image, String cameraName)
-    {
-        int x = (int)ConfigFacade.getValue(cameraName,ConfigProperties.CROP_X);
-        int y = (int)ConfigFacade.getValue(cameraName,ConfigProperties.CROP_Y);
-        int width = (int)ConfigFacade.getValue(cameraName,ConfigProperties.CROP_W);
-        int height = (int)ConfigFacade.getValue(cameraName,ConfigProperties.CROP_H);
-        Rect roi = new Rect(x,y,width,height);
-        return crop(image, roi,cameraName);
-    }
+    private static Mat crop(Mat image, CameraSettings settings)
+    { return crop(image, cropRegion(settings)); }
+
+    /**
+     * @param settings      Config of a camera
+     *
+     * @return The camera's crop region
+     */
+    private static Rect cropRegion(CameraSettings settings)
+    { return new Rect(settings.getCropX(),settings.getCropY(),settings.getCropW(),settings.getCropH()); }
 
     /** 
      * Crop the given image, based on dimensions defined in a {@link Rect}
@@ -289,33 +443,37 @@ public class OpenCVFacade
      *
      * @return Frame of the cropped image
      */
-    private static Mat crop(Mat image, Rect roi, String cameraName)
+    static Mat crop(Mat image, Rect roi)
     {
-        Mat output = image.apply(roi).clone();
+        Mat region = image.apply(roi);
+        Mat output = region.clone();
+        region.release();
         return output;
     }
 
 
     /**
-     * Put the given image through a binary threshold.
-     * This reduces the image from greyscale to only pure white and black pixels.
+     * Put the given image through a binary threshold, in place.
      *
-     * @param image     Frame taken from the camera.
+     * @param image             Greyscale frame
+     * @param thresholdValue    Pixels brighter than this become white; all others become black
      *
-     * @return Frame of the thresholded image
+     * @return The thresholded frame
      */
-    private static Mat thresholdImage(Mat image,String cameraName)
+    static Mat thresholdImage(Mat image, double thresholdValue)
     {
-        Mat output = image;
-        Mat in = image;
-        double thresholdValue = ConfigFacade.getValue(cameraName,ConfigProperties.THRESHOLD_VALUE);
-        threshold(in,output,thresholdValue,255,THRESH_BINARY);
-        return output;
+        threshold(image,image,thresholdValue,255,THRESH_BINARY);
+        return image;
     }
 
     /**
      * Save input Frame at the location given.
      *
+     * File names hold the time, a sequence number and the camera name.
+     * The time only has a resolution of a second, so the sequence number
+     * keeps images taken in the same second from overwriting each other
+     * before they are read.
+     *
      * @param image         Image to be saved.
      * @param fileLocation  Where to save the image.
      *
@@ -323,38 +481,66 @@ public class OpenCVFacade
      */
     private static File saveImage(Mat image, String fileLocation, String cameraName)
     {
-        File output = null;
+        fileLocation = fileLocation + "/" + ErrorLogging.fileDatetime.format(LocalDateTime.now()) + 
+                       String.format("-%06d-", IMAGE_COUNT.incrementAndGet()) + cameraName + ".png";
+        return saveImage(image, new File(fileLocation));
+    }
+
+    /**
+     * Save input Frame to the given file.
+     *
+     * @param image     Image to be saved.
+     * @param file      File to write; the extension chooses the format.
+     *
+     * @return The file written
+     */
+    static File saveImage(Mat image, File file)
+    {
         IplImage temp = MAT_CONVERTER.convertToIplImage(MAT_CONVERTER.convert(image));
-        fileLocation = fileLocation + "/" + ErrorLogging.fileDatetime.format(LocalDateTime.now()) + "-" + cameraName + ".png";
-        cvSaveImage(fileLocation,temp);
-        output = new File(fileLocation);
-        return output;
+        cvSaveImage(file.getPath(),temp);
+        return file;
     }
 
     /**
      * Compose several images together.
      * This will also perform thresholding, and cropping,
-     * based on boolean toggles. Crop information is collected 
-     * from {@link ConfigFacade}.
+     * based on boolean toggles. Crop region and threshold value are
+     * taken from the camera's config.
      *
      * @param images        List of images to be composed
      * @param threshold     Whether to put the image through a binary threshold
      * @param crop          Whether to crop the image
+     * @param settings      Config of the camera the images are from
      *
      * @return A single image, found by boolean AND-ing together all parsed images.
      */
     private static Mat compose(List<Mat> images, boolean threshold, 
-                                boolean crop, String cameraName)
+                                boolean crop, CameraSettings settings)
     {
-        ErrorLogging.logError("DEBUG: Attempting to compose " + images.size() + " images...");
+        Rect roi = (crop ? cropRegion(settings) : null);
+        double thresholdValue = (threshold ? settings.getThresholdValue() : -1);
+        return compose(images, roi, threshold, thresholdValue);
+    }
+
+    /**
+     * Compose several images together, with explicit crop and threshold settings.
+     *
+     * @param images            List of greyscale images to be composed
+     * @param roi               Region to crop each image to; null to leave images uncropped
+     * @param threshold         Whether to put the image through a binary threshold
+     * @param thresholdValue    Threshold to use, if thresholding
+     *
+     * @return A single image, found by boolean AND-ing together all parsed images.
+     */
+    static Mat compose(List<Mat> images, Rect roi, boolean threshold, double thresholdValue)
+    {
+        ErrorLogging.logDebug(() -> "Attempting to compose " + images.size() + " images...");
         Mat output = null;
         int iterationCount = 1;
         for(Mat image : images)
         { 
-            Mat processedImage = image.clone();
-            image.copyTo(processedImage);
-            if(crop)        processedImage = crop(processedImage,cameraName);
-            if(threshold)   processedImage = thresholdImage(processedImage,cameraName);
+            Mat processedImage = (roi != null ? crop(image,roi) : image.clone());
+            if(threshold)   processedImage = thresholdImage(processedImage,thresholdValue);
 
             if(iterationCount == 1) output = processedImage.clone();
 
@@ -363,11 +549,264 @@ public class OpenCVFacade
             iterationCount++;
         }
 
-        if(output != null)  ErrorLogging.logError("DEBUG: Compositing successful!");
+        if(output != null)  ErrorLogging.logDebug(() -> "Compositing successful!");
         else                ErrorLogging.logError("ERROR: Final output image is null!");
         return output;
     }
 
+    /**
+     * Take a single greyscale frame, cropped to the camera's configured region,
+     * for watching the DUT's display.
+     *
+     * @param cameraName    Name of the camera to take a picture with.
+     * @param settings      Config of the camera
+     *
+     * @return Cropped frame; null if capture fails
+     */
+    private static Mat sampleDisplay(String cameraName, CameraSettings settings)
+    {
+        try
+        {
+            Mat image = takePicture(cameraName);
+            if(settings.isCropEnabled()) 
+            {
+                Mat cropped = crop(image,settings);
+                image.release();
+                image = cropped;
+            }
+            return image;
+        }
+        catch(Exception e)
+        {
+            ErrorLogging.logError(e);
+            return null;
+        }
+    }
+
+    /**
+     * Frames of each camera's display, taken before the DUTs are pressed.
+     * Used by {@link #awaitDisplayReady(DisplayReference, long)} to tell a
+     * new reading from the one the DUT was already showing.
+     */
+    public static final class DisplayReference
+    {
+        /**
+         * Frame of each camera's display; null if a frame could not be taken.
+         */
+        private final Map<String,Mat> frames = new LinkedHashMap<>();
+
+        private DisplayReference() {}
+    }
+
+    /**
+     * Take a frame of each camera's display, to compare against after the 
+     * DUTs are pressed. Call before pressing the DUTs, then pass the result
+     * to {@link #awaitDisplayReady(DisplayReference, long)}.
+     *
+     * @param cameraNames   Cameras to watch
+     *
+     * @return Frames of each display, as they are now
+     */
+    public static DisplayReference referenceDisplays(Collection<String> cameraNames)
+    {
+        DisplayReference output = new DisplayReference();
+        for(String cameraName : cameraNames)
+        {
+            CameraSettings settings = ConfigFacade.getSettings(cameraName);
+            output.frames.put(cameraName, (settings != null ? sampleDisplay(cameraName,settings) : null));
+        }
+        return output;
+    }
+
+    /**
+     * Wait until every camera sees a new reading on a lit, stable display.
+     *
+     * Watches a low-rate stream of frames from each camera's crop region.
+     * A display is lit when its mean brightness reaches the camera's 
+     * {@link ConfigProperties#DISPLAY_LIT_LEVEL}, and stable once 
+     * {@link #DISPLAY_STABLE_FRAMES} consecutive frames differ by no more 
+     * than {@link #DISPLAY_STABLE_DIFF}. Frames only count once the display
+     * has changed since the reference was taken: it was dark then and is lit
+     * now, it has gone dark since, or enough of it differs from the 
+     * reference. A DUT still showing its previous reading is not ready.
+     * A new reading identical to the old one cannot be told apart from it, 
+     * so that display is only accepted at the timeout, like a fixed wait.
+     * Returns as soon as all displays are ready, or once the timeout has passed.
+     * The reference frames are released.
+     *
+     * @param reference     Frames taken by {@link #referenceDisplays(Collection)} before the press
+     * @param timeoutMillis Maximum time to wait, in milliseconds
+     *
+     * @return true if every display became ready; false if the wait timed out
+     */
+    public static boolean awaitDisplayReady(DisplayReference reference, long timeoutMillis)
+    { 
+        try
+        {
+            return awaitDisplays(reference.frames.keySet(), reference.frames, timeoutMillis, 
+                                 DISPLAY_POLL_WAIT, DISPLAY_STABLE_FRAMES, true, "ready"); 
+        }
+        finally
+        {
+            for(Mat frame : reference.frames.values()) if(frame != null) frame.release();
+            reference.frames.clear();
+        }
+    }
+
+    /**
+     * Wait until every given camera sees a dark display, meaning the DUT has fallen asleep.
+     *
+     * A display is dark once {@link #DISPLAY_DARK_FRAMES} consecutive frames 
+     * of its crop region fall below the camera's 
+     * {@link ConfigProperties#DISPLAY_LIT_LEVEL}. Returns as soon as all 
+     * displays are dark, or once the timeout has passed.
+     *
+     * @param cameraNames   Cameras to watch
+     * @param timeoutMillis Maximum time to wait, in milliseconds
+     *
+     * @return true if every display went dark; false if the wait timed out
+     */
+    public static boolean awaitDisplayDark(Collection<String> cameraNames, long timeoutMillis)
+    { 
+        return awaitDisplays(cameraNames, null, timeoutMillis, DISPLAY_DARK_POLL_WAIT, 
+                             DISPLAY_DARK_FRAMES, false, "dark"); 
+    }
+
+    /**
+     * Watch each camera's display until it reaches the requested state.
+     *
+     * @param cameraNames       Cameras to watch
+     * @param references        Frame of each display from before the press, which lit 
+     *                          displays must change from; null to not require a change
+     * @param timeoutMillis     Maximum time to wait, in milliseconds
+     * @param pollWait          Milliseconds between frames
+     * @param requiredFrames    Consecutive matching frames needed per camera
+     * @param lit               true to wait for lit, stable displays; false to wait for dark displays
+     * @param stateName         Name of the state, for logging
+     *
+     * @return true if every display reached the state; false if the wait timed out
+     */
+    private static boolean awaitDisplays(Collection<String> cameraNames, Map<String,Mat> references,
+                                         long timeoutMillis, int pollWait, int requiredFrames, 
+                                         boolean lit, String stateName)
+    {
+        FixtureClock clock = FixtureClock.current();
+        long start = clock.millis();
+        Map<String,Mat> previousFrames = new HashMap<>();
+        Map<String,Integer> matchCounts = new HashMap<>();
+        Set<String> changed = new HashSet<>();
+        if(references != null)
+        {
+            //Displays that were dark, or could not be seen, have nothing to change from
+            for(String cameraName : cameraNames)
+            {
+                Mat reference = references.get(cameraName);
+                CameraSettings settings = ConfigFacade.getSettings(cameraName);
+                if(reference == null || settings == null || !isLit(reference,settings)) changed.add(cameraName);
+            }
+        }
+
+        try
+        {
+            while(true)
+            {
+                boolean allMatched = true;
+                for(String cameraName : cameraNames)
+                {
+                    if(matchCounts.getOrDefault(cameraName,0) >= requiredFrames) continue;
+
+                    CameraSettings settings = ConfigFacade.getSettings(cameraName);
+                    Mat frame = (settings != null ? sampleDisplay(cameraName,settings) : null);
+                    Mat previous = previousFrames.put(cameraName,frame);
+                    boolean matched = false;
+                    if(frame != null && !lit) matched = !isLit(frame,settings);
+                    else if(frame != null)
+                    {
+                        boolean frameLit = isLit(frame,settings);
+                        if(references != null && !changed.contains(cameraName) && 
+                           (!frameLit || hasChanged(frame,references.get(cameraName))))
+                            changed.add(cameraName);
+                        matched = frameLit && isStable(frame,previous) && 
+                                  (references == null || changed.contains(cameraName));
+                    }
+                    if(previous != null) previous.release();
+
+                    int matchCount = (matched ? matchCounts.getOrDefault(cameraName,0) + 1 : 0);
+                    matchCounts.put(cameraName,matchCount);
+                    if(matchCount < requiredFrames) allMatched = false;
+                }
+
+                long elapsed = clock.millis() - start;
+                if(allMatched)
+                {
+                    ErrorLogging.logDebug(() -> "Displays " + stateName + " after " + elapsed + " ms.");
+                    return true;
+                }
+                if(elapsed >= timeoutMillis)
+                {
+                    ErrorLogging.logDebug(() -> "Displays not " + stateName + " after " + elapsed + " ms; continuing.");
+                    return false;
+                }
+                clock.sleep(Math.min(pollWait, timeoutMillis - elapsed));
+            }
+        }
+        finally
+        {
+            for(Mat frame : previousFrames.values()) if(frame != null) frame.release();
+        }
+    }
+
+    /**
+     * Check whether a display frame has settled, compared to the frame before it.
+     *
+     * @param frame     Current greyscale frame of the display
+     * @param previous  Previous frame of the same display; may be null
+     *
+     * @return true if the mean per-pixel difference is within {@link #DISPLAY_STABLE_DIFF}
+     */
+    private static boolean isStable(Mat frame, Mat previous)
+    {
+        if(previous == null || previous.rows() != frame.rows() || previous.cols() != frame.cols()) 
+            return false;
+        Mat difference = new Mat();
+        absdiff(frame,previous,difference);
+        boolean output = mean(difference).get(0) <= DISPLAY_STABLE_DIFF;
+        difference.release();
+        return output;
+    }
+
+    /**
+     * Check whether a display shows something other than it did before a press.
+     *
+     * @param frame     Current greyscale frame of the display
+     * @param reference Frame of the same display from before the press
+     *
+     * @return true if at least {@link #DISPLAY_CHANGE_FRACTION} of the pixels 
+     *         differ by more than {@link #DISPLAY_CHANGE_LEVEL}, or the frames cannot be compared
+     */
+    private static boolean hasChanged(Mat frame, Mat reference)
+    {
+        if(reference == null || reference.rows() != frame.rows() || reference.cols() != frame.cols()) 
+            return true;
+        Mat difference = new Mat();
+        absdiff(frame,reference,difference);
+        threshold(difference,difference,DISPLAY_CHANGE_LEVEL,255,THRESH_BINARY);
+        boolean output = countNonZero(difference) >= DISPLAY_CHANGE_FRACTION * difference.total();
+        difference.release();
+        return output;
+    }
+
+    /**
+     * Check whether a cropped display frame is lit.
+     *
+     * @param frame         Greyscale frame of the display
+     * @param settings      Config of the camera the frame came from
+     *
+     * @return true if the mean brightness reaches the camera's lit level
+     */
+    private static boolean isLit(Mat frame, CameraSettings settings)
+    { return mean(frame).get(0) >= settings.getDisplayLitLevel(); }
+
     /**
      * Processes image from defined camera, using the config defaults.
      *
@@ -384,16 +823,57 @@ public class OpenCVFacade
                                        boolean threshold, int compositeFrames, 
                                        String saveLocation)
     {
-        File output = null;
         if(!getCameraNames().contains(cameraName))
         {
             ErrorLogging.logError("OPENCV ERROR!!! - Invalid camera name.");
-            return output;
+            return null;
         }
-        List<Mat> imageList = takeBurst(cameraName, compositeFrames);
+        CameraSettings settings = ConfigFacade.getSettings(cameraName);
+        if(settings == null) return null;
+        return completeProcess(cameraName,settings,crop,threshold,compositeFrames,saveLocation);
+    }
 
-        Mat finalImage = compose(imageList, threshold, crop, cameraName);
+    /**
+     * Processes image from defined camera, with a single snapshot of its 
+     * config used throughout.
+     *
+     * @param cameraName        Name of the camera to take a picture from.
+     * @param settings          Config of the camera
+     * @param crop              Whether to crop the image
+     * @param threshold         Whether to threshold the image
+     * @param compositeFrames   Number of frames to composite together
+     * @param saveLocation      Name of the outgoing file
+     *
+     * @return null if any error occurs; otherwise File of output image
+     */
+    private static File completeProcess(String cameraName, CameraSettings settings, 
+                                        boolean crop, boolean threshold, 
+                                        int compositeFrames, String saveLocation)
+    {
+        File output = null;
+        FixtureEvents.FrameGrab grabEvent = new FixtureEvents.FrameGrab();
+        grabEvent.begin();
+        long start = StageTimer.start();
+        List<Mat> imageList = takeBurst(cameraName, compositeFrames);
+        StageTimer.stop(StageTimer.Stage.GRAB, start);
+        grabEvent.camera = cameraName;
+        grabEvent.frames = compositeFrames;
+        grabEvent.commit();
+
+        FixtureEvents.Composite composeEvent = new FixtureEvents.Composite();
+        composeEvent.begin();
+        start = StageTimer.start();
+        Mat finalImage = compose(imageList, threshold, crop, settings);
+        StageTimer.stop(StageTimer.Stage.PROCESS, start);
+        composeEvent.camera = cameraName;
+        composeEvent.frames = compositeFrames;
+        composeEvent.crop = crop;
+        composeEvent.threshold = threshold;
+        composeEvent.commit();
+
+        start = StageTimer.start();
         output = saveImage(finalImage, saveLocation,cameraName);
+        StageTimer.stop(StageTimer.Stage.SAVE, start);
         return output;
     }
 
@@ -416,12 +896,11 @@ public class OpenCVFacade
             return output;
         }
 
-        int compositeFrames = (int)ConfigFacade.getValue(cameraName,ConfigProperties.COMPOSITE_FRAMES);
-
-        boolean threshold = (ConfigFacade.getValue(cameraName,ConfigProperties.THRESHOLD)   != 0.0);
-        boolean crop =      (ConfigFacade.getValue(cameraName,ConfigProperties.CROP)        != 0.0);
+        CameraSettings settings = ConfigFacade.getSettings(cameraName);
+        if(settings == null) return output;
 
-        output = completeProcess(cameraName,crop,threshold,compositeFrames,saveLocation);
+        output = completeProcess(cameraName,settings,settings.isCropEnabled(),settings.isThresholdEnabled(),
+                                 settings.getCompositeFrames(),saveLocation);
 
         if(output == null) ErrorLogging.logError("OPENCV ERROR!!!: Final processed image is null!");
         return output;
@@ -0,0 +1,545 @@
+package org.baxter.disco.ocr;
+
+//Static imports for OpenCV
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_GRAYSCALE;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imwrite;
+
+//OpenCV imports
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Rect;
+
+//Standard imports
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Offline tuner for each camera's processing settings.
+ *
+ * Works from recorded bursts of raw frames, each labelled with the reading
+ * the DUT was showing. Recordings are laid out as:
+ * <pre>
+ *     recordings/
+ *         left/
+ *             labels.csv              burst,truth lines; truth is a reading, or LO
+ *             burst-000/frame-00.png  Unprocessed greyscale frames, in order
+ *             burst-000/frame-01.png
+ *             ...
+ *         right/
+ *             ...
+ * </pre>
+ * {@link #record(File, int, Collection)} writes this layout from the fixture,
+ * labelling each burst with what the current settings read, for the
+ * operator to check and correct.
+ *
+ * {@link #tune(File, double)} searches composite frame count, crop toggle,
+ * threshold toggle and threshold value. Every combination is evaluated
+ * against every burst on a fork/join pool, using all cores. Frame counts are
+ * tried from the fewest up, and the search stops at the first frame count
+ * where some combination meets the accuracy target. Among those, cropping
+ * is preferred to not cropping and skipping the threshold to thresholding,
+ * as they are faster; a threshold value is taken from the middle of the
+ * widest range of passing values, so it has the most margin either side.
+ * The crop region itself is not searched. The chosen settings are written
+ * to the config file through {@link ConfigFacade}.
+ *
+ * A burst is read correctly if the OCR text is the true reading, without the
+ * fixture's /10 correction; LO must be read as LO.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.2, 18 Oct. 2026
+ */
+public class ParameterTuner
+{
+    /**
+     * Frames recorded in each burst; the largest composite the tuner tries.
+     */
+    public static final int RECORDED_FRAMES = 10;
+
+    /**
+     * Default accuracy target, as a fraction of bursts read correctly.
+     */
+    public static final double DEFAULT_ACCURACY = 0.95;
+
+    /**
+     * Readings within this distance of the truth are correct.
+     */
+    private static final double MATCH_TOLERANCE = 0.05;
+
+    /**
+     * Threshold values tried: from, to (inclusive) and step.
+     */
+    private static final int THRESHOLD_MIN = 10, THRESHOLD_MAX = 250, THRESHOLD_STEP = 5;
+
+    /**
+     * Largest number of candidate settings a fork/join task evaluates itself, without splitting.
+     */
+    private static final int CANDIDATES_PER_TASK = 2;
+
+    /**
+     * Name of the labels file in each camera's recording directory.
+     */
+    private static final String LABELS_FILE = "labels.csv";
+
+    /**
+     * A recorded burst, and the reading on the display.
+     */
+    static class Sample
+    {
+        final String name;
+        final List<Mat> frames;
+        final String truth;
+
+        Sample(String name, List<Mat> frames, String truth)
+        {
+            this.name = name;
+            this.frames = frames;
+            this.truth = truth;
+        }
+    }
+
+    /**
+     * One combination of processing settings.
+     */
+    static class Settings
+    {
+        final int frames;
+        final boolean crop;
+        final boolean threshold;
+        final int thresholdValue;
+
+        Settings(int frames, boolean crop, boolean threshold, int thresholdValue)
+        {
+            this.frames = frames;
+            this.crop = crop;
+            this.threshold = threshold;
+            this.thresholdValue = thresholdValue;
+        }
+
+        @Override
+        public String toString()
+        {
+            return frames + " frame(s), crop " + (crop ? "on" : "off") + ", threshold " +
+                   (threshold ? "at " + thresholdValue : "off");
+        }
+    }
+
+    /**
+     * Accuracy of one combination of settings over the recordings.
+     */
+    static class Result
+    {
+        final Settings settings;
+        final int correct;
+        final int total;
+
+        Result(Settings settings, int correct, int total)
+        {
+            this.settings = settings;
+            this.correct = correct;
+            this.total = total;
+        }
+
+        double getAccuracy()
+        { return (total == 0 ? 0 : (double)correct / total); }
+    }
+
+    /**
+     * Fork/join worker that releases its Tesseract instance when it exits.
+     */
+    private static class OcrWorkerThread extends ForkJoinWorkerThread
+    {
+        OcrWorkerThread(ForkJoinPool pool)
+        { super(pool); }
+
+        @Override
+        protected void onTermination(Throwable exception)
+        {
+            TesseractFacade.releaseThread();
+            super.onTermination(exception);
+        }
+    }
+
+    /**
+     * Fork/join task evaluating a range of candidate settings.
+     */
+    private static class EvaluateTask extends RecursiveTask<List<Result>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Settings> candidates;
+        private final List<Sample> samples;
+        private final Rect roi;
+
+        EvaluateTask(List<Settings> candidates, List<Sample> samples, Rect roi)
+        {
+            this.candidates = candidates;
+            this.samples = samples;
+            this.roi = roi;
+        }
+
+        @Override
+        protected List<Result> compute()
+        {
+            if(candidates.size() > CANDIDATES_PER_TASK)
+            {
+                int middle = candidates.size() / 2;
+                EvaluateTask left = new EvaluateTask(candidates.subList(0, middle), samples, roi);
+                EvaluateTask right = new EvaluateTask(candidates.subList(middle, candidates.size()), samples, roi);
+                left.fork();
+                List<Result> output = new ArrayList<>(right.compute());
+                output.addAll(0, left.join());
+                return output;
+            }
+            List<Result> output = new ArrayList<>();
+            for(Settings settings : candidates) output.add(evaluate(settings, samples, roi));
+            return output;
+        }
+    }
+
+    /**
+     * Record a burst of raw frames from each camera, labelled with the
+     * reading given by each camera's current settings.
+     * The DUTs should already be showing a reading.
+     *
+     * @param directory     Recording directory; each camera gets a subdirectory
+     * @param burst         Index of this burst
+     * @param cameras       Cameras to record
+     *
+     * @return true if every camera was recorded
+     */
+    public static boolean record(File directory, int burst, Collection<String> cameras)
+    {
+        boolean output = true;
+        for(String cameraName : cameras)
+        {
+            String burstName = String.format("burst-%03d", burst);
+            File cameraDirectory = new File(directory, cameraName);
+            List<File> frameFiles = OpenCVFacade.recordBurst(cameraName, RECORDED_FRAMES, new File(cameraDirectory, burstName));
+            if(frameFiles == null)
+            {
+                output = false;
+                continue;
+            }
+
+            //Label with what the fixture would read today; the operator corrects any mistakes
+            Sample sample = new Sample(burstName, loadFrames(frameFiles), "");
+            String reading = readText(currentSettings(cameraName), sample, cropRegion(cameraName));
+            for(Mat frame : sample.frames) frame.release();
+
+            File labels = new File(cameraDirectory, LABELS_FILE);
+            boolean newFile = !labels.exists();
+            try(PrintWriter writer = new PrintWriter(new FileWriter(labels, true)))
+            {
+                if(newFile) writer.println("burst,truth");
+                writer.println(burstName + "," + reading);
+            }
+            catch(IOException e)
+            {
+                ErrorLogging.logError(e);
+                ErrorLogging.logError("TUNER ERROR!!! - Unable to write labels for camera " + cameraName);
+                output = false;
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Tune every camera with recordings, and save the chosen settings.
+     *
+     * @param directory         Recording directory
+     * @param accuracyTarget    Fraction of bursts that must be read correctly (0-1)
+     *
+     * @return true if every camera met the target, and its settings were saved
+     */
+    public static boolean tune(File directory, double accuracyTarget)
+    {
+        File[] cameraDirectories = directory.listFiles((file) -> new File(file, LABELS_FILE).isFile());
+        if(cameraDirectories == null || cameraDirectories.length == 0)
+        {
+            ErrorLogging.logError("TUNER ERROR!!! - No recordings found in " + directory.getPath());
+            return false;
+        }
+        Arrays.sort(cameraDirectories);
+
+        boolean output = true;
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), 
+                                             OcrWorkerThread::new, null, false);
+        try
+        {
+            for(File cameraDirectory : cameraDirectories)
+            {
+                String cameraName = cameraDirectory.getName();
+                List<Sample> samples;
+                try{ samples = loadSamples(cameraDirectory); }
+                catch(IOException e)
+                {
+                    ErrorLogging.logError(e);
+                    ErrorLogging.logError("TUNER ERROR!!! - Unable to load recordings for camera " + cameraName);
+                    output = false;
+                    continue;
+                }
+                output = tuneCamera(cameraName, samples, accuracyTarget, pool) && output;
+                for(Sample sample : samples) for(Mat frame : sample.frames) frame.release();
+            }
+        }
+        finally 
+        { 
+            pool.shutdown(); 
+            //Workers release their Tesseract instances as they exit
+            try{ pool.awaitTermination(1, TimeUnit.MINUTES); }
+            catch(InterruptedException e) { Thread.currentThread().interrupt(); }
+            //Tasks may also have run on this thread, while it waited for the pool
+            TesseractFacade.releaseThread();
+        }
+        return output;
+    }
+
+    /**
+     * Tune a single camera, and save its settings if the target is met.
+     *
+     * @param cameraName        Camera being tuned
+     * @param samples           Its recordings
+     * @param accuracyTarget    Fraction of bursts that must be read correctly (0-1)
+     * @param pool              Pool to evaluate candidates on
+     *
+     * @return true if the target was met, and the settings were saved
+     */
+    private static boolean tuneCamera(String cameraName, List<Sample> samples, double accuracyTarget, ForkJoinPool pool)
+    {
+        if(samples.isEmpty())
+        {
+            ErrorLogging.logError("TUNER ERROR!!! - No labelled bursts for camera " + cameraName);
+            return false;
+        }
+        int maxFrames = Integer.MAX_VALUE;
+        for(Sample sample : samples) maxFrames = Math.min(maxFrames, sample.frames.size());
+        Rect roi = cropRegion(cameraName);
+        ErrorLogging.logError("Tuning camera " + cameraName + " over " + samples.size() + " bursts of up to " +
+                              maxFrames + " frames, on " + pool.getParallelism() + " threads...");
+
+        long start = System.nanoTime();
+        int evaluated = 0;
+        Result best = null;
+        Settings chosen = null;
+        for(int frames = 1; frames <= maxFrames && chosen == null; frames++)
+        {
+            List<Settings> candidates = new ArrayList<>();
+            for(boolean crop : new boolean[]{ true, false })
+            {
+                candidates.add(new Settings(frames, crop, false, 0));
+                for(int value = THRESHOLD_MIN; value <= THRESHOLD_MAX; value += THRESHOLD_STEP)
+                    candidates.add(new Settings(frames, crop, true, value));
+            }
+            List<Result> results = pool.invoke(new EvaluateTask(candidates, samples, roi));
+            evaluated += results.size();
+            for(Result result : results)
+                if(best == null || result.getAccuracy() > best.getAccuracy()) best = result;
+            chosen = choose(results, accuracyTarget);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        ErrorLogging.logError(String.format("Evaluated %d combinations for camera %s in %.1f s.",
+                                            evaluated, cameraName, elapsedMillis / 1000.0));
+
+        if(chosen == null)
+        {
+            ErrorLogging.logError(String.format("TUNER ERROR!!! - No settings for camera %s reach %.1f%% accuracy; " +
+                                  "best was %.1f%% (%s). Settings left unchanged.", cameraName, accuracyTarget * 100,
+                                  best.getAccuracy() * 100, best.settings));
+            return false;
+        }
+        ErrorLogging.logError("Camera " + cameraName + ": " + chosen + ".");
+
+        Map<ConfigProperties,Double> values = new EnumMap<>(ConfigProperties.class);
+        values.put(ConfigProperties.COMPOSITE_FRAMES, (double)chosen.frames);
+        values.put(ConfigProperties.CROP, chosen.crop ? 1.0 : 0.0);
+        values.put(ConfigProperties.THRESHOLD, chosen.threshold ? 1.0 : 0.0);
+        if(chosen.threshold) values.put(ConfigProperties.THRESHOLD_VALUE, (double)chosen.thresholdValue);
+        return ConfigFacade.setSavedValues(cameraName, values);
+    }
+
+    /**
+     * Choose the cheapest passing settings, from candidates that share a frame count.
+     *
+     * @param results           Results, in candidate order
+     * @param accuracyTarget    Fraction of bursts that must be read correctly
+     *
+     * @return Chosen settings; null if none pass
+     */
+    private static Settings choose(List<Result> results, double accuracyTarget)
+    {
+        for(boolean crop : new boolean[]{ true, false })
+        {
+            //Without a threshold is the faster path
+            for(Result result : results)
+                if(result.settings.crop == crop && !result.settings.threshold &&
+                   result.getAccuracy() >= accuracyTarget)
+                    return result.settings;
+
+            //Otherwise, the middle of the widest run of passing threshold values
+            int bestStart = -1, bestLength = 0, runStart = -1;
+            List<Result> thresholded = new ArrayList<>();
+            for(Result result : results)
+                if(result.settings.crop == crop && result.settings.threshold) thresholded.add(result);
+            for(int i = 0; i <= thresholded.size(); i++)
+            {
+                boolean pass = (i < thresholded.size() && thresholded.get(i).getAccuracy() >= accuracyTarget);
+                if(pass && runStart < 0) runStart = i;
+                if(!pass && runStart >= 0)
+                {
+                    if(i - runStart > bestLength)
+                    {
+                        bestStart = runStart;
+                        bestLength = i - runStart;
+                    }
+                    runStart = -1;
+                }
+            }
+            if(bestLength > 0) return thresholded.get(bestStart + (bestLength - 1) / 2).settings;
+        }
+        return null;
+    }
+
+    /**
+     * Evaluate one combination of settings against every recording.
+     *
+     * @param settings  Settings to evaluate
+     * @param samples   Recordings
+     * @param roi       Crop region of the camera
+     *
+     * @return Number of recordings read correctly
+     */
+    private static Result evaluate(Settings settings, List<Sample> samples, Rect roi)
+    {
+        int correct = 0;
+        for(Sample sample : samples)
+            if(isCorrect(readText(settings, sample, roi), sample.truth)) correct++;
+        return new Result(settings, correct, samples.size());
+    }
+
+    /**
+     * Process a recording with the given settings, and read it.
+     *
+     * @param settings  Settings to process with
+     * @param sample    Recording to process
+     * @param roi       Crop region of the camera
+     *
+     * @return Text read from the processed image
+     */
+    private static String readText(Settings settings, Sample sample, Rect roi)
+    {
+        Mat composite = OpenCVFacade.compose(sample.frames.subList(0, Math.min(settings.frames, sample.frames.size())),
+                                             (settings.crop ? roi : null), settings.threshold, settings.thresholdValue);
+        File image = null;
+        try
+        {
+            image = File.createTempFile("disco-tune-", ".png");
+            imwrite(image.getPath(), composite);
+            return TesseractFacade.imageToText(image);
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            return "";
+        }
+        finally
+        {
+            composite.release();
+            if(image != null) image.delete();
+        }
+    }
+
+    /**
+     * Whether OCR text is a correct reading.
+     *
+     * @param text  Text read
+     * @param truth Reading on the display, or LO
+     *
+     * @return true if the text is the reading, or LO when the display showed LO
+     */
+    static boolean isCorrect(String text, String truth)
+    {
+        text = text.trim();
+        if(truth.equalsIgnoreCase("LO")) return text.equalsIgnoreCase("LO");
+        try{ return Math.abs(Double.parseDouble(text) - Double.parseDouble(truth)) < MATCH_TOLERANCE; }
+        catch(NumberFormatException e) { return false; }
+    }
+
+    /**
+     * Load a camera's labelled recordings. Bursts with an empty truth are skipped.
+     *
+     * @param cameraDirectory   The camera's recording directory
+     *
+     * @return Recordings, with their frames loaded; the caller must release the frames
+     *
+     * @throws IOException if the labels, or a burst's frames, cannot be read
+     */
+    private static List<Sample> loadSamples(File cameraDirectory) throws IOException
+    {
+        List<Sample> output = new ArrayList<>();
+        List<String> lines = Files.readAllLines(new File(cameraDirectory, LABELS_FILE).toPath());
+        for(String line : lines.subList(Math.min(1, lines.size()), lines.size()))
+        {
+            String[] fields = line.split(",", -1);
+            if(fields.length < 2 || fields[1].trim().isEmpty()) continue;
+            File burstDirectory = new File(cameraDirectory, fields[0].trim());
+            File[] frameFiles = burstDirectory.listFiles((file) -> file.getName().startsWith("frame-"));
+            if(frameFiles == null || frameFiles.length == 0)
+                throw new IOException("No frames in " + burstDirectory.getPath());
+            Arrays.sort(frameFiles);
+            output.add(new Sample(fields[0].trim(), loadFrames(Arrays.asList(frameFiles)), fields[1].trim()));
+        }
+        return output;
+    }
+
+    /**
+     * @param frameFiles    Frame images, in order
+     *
+     * @return Greyscale frames; the caller must release them
+     */
+    private static List<Mat> loadFrames(List<File> frameFiles)
+    {
+        List<Mat> output = new ArrayList<>();
+        for(File frameFile : frameFiles) output.add(imread(frameFile.getPath(), IMREAD_GRAYSCALE));
+        return output;
+    }
+
+    /**
+     * @param cameraName    Camera to look up
+     *
+     * @return The camera's processing settings, from its config
+     */
+    private static Settings currentSettings(String cameraName)
+    {
+        return new Settings((int)ConfigFacade.getSavedValue(cameraName, ConfigProperties.COMPOSITE_FRAMES),
+                            ConfigFacade.getSavedValue(cameraName, ConfigProperties.CROP) != 0,
+                            ConfigFacade.getSavedValue(cameraName, ConfigProperties.THRESHOLD) != 0,
+                            (int)ConfigFacade.getSavedValue(cameraName, ConfigProperties.THRESHOLD_VALUE));
+    }
+
+    /**
+     * @param cameraName    Camera to look up
+     *
+     * @return The camera's crop region, from its config
+     */
+    private static Rect cropRegion(String cameraName)
+    {
+        return new Rect((int)ConfigFacade.getSavedValue(cameraName, ConfigProperties.CROP_X),
+                        (int)ConfigFacade.getSavedValue(cameraName, ConfigProperties.CROP_Y),
+                        (int)ConfigFacade.getSavedValue(cameraName, ConfigProperties.CROP_W),
+                        (int)ConfigFacade.getSavedValue(cameraName, ConfigProperties.CROP_H));
+    }
+}
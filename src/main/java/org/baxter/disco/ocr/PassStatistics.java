@@ -0,0 +1,180 @@
+package org.baxter.disco.ocr;
+
+/**
+ * Running pass/fail statistics for a single DUT.
+ *
+ * Each reading is folded in as it is recorded, so the pass rate, mean and
+ * standard deviation are always available without re-reading earlier
+ * results. The mean and variance are kept with Welford's algorithm.
+ * All methods are synchronized; readings are recorded by the result writer,
+ * and read by the CLI.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class PassStatistics
+{
+    /**
+     * Target temperature.
+     */
+    private final double targetTemp;
+
+    /**
+     * Range around the target temperature that is considered a pass.
+     */
+    private final double failRange;
+
+    /**
+     * Number of readings recorded, including errors.
+     */
+    private long total = 0;
+
+    /**
+     * Number of readings within the pass range.
+     */
+    private long inRange = 0;
+
+    /**
+     * Number of readings outside the pass range.
+     */
+    private long outOfRange = 0;
+
+    /**
+     * Number of failed readings (Double.NEGATIVE_INFINITY).
+     */
+    private long errors = 0;
+
+    /**
+     * Running mean of all valid readings.
+     */
+    private double mean = 0.0;
+
+    /**
+     * Running sum of squared differences from the mean.
+     */
+    private double sumSquares = 0.0;
+
+    /**
+     * Smallest valid reading.
+     */
+    private double min = Double.POSITIVE_INFINITY;
+
+    /**
+     * Largest valid reading.
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Create an empty set of statistics.
+     *
+     * @param targetTemp    Target temperature
+     * @param failRange     Range around the target temperature that is considered a pass
+     */
+    public PassStatistics(double targetTemp, double failRange)
+    {
+        this.targetTemp = targetTemp;
+        this.failRange = failRange;
+    }
+
+    /**
+     * Add a reading.
+     *
+     * @param value     OCR reading; Double.NEGATIVE_INFINITY for a failed reading
+     */
+    public synchronized void record(double value)
+    {
+        total++;
+        if(value == Double.NEGATIVE_INFINITY || Double.isNaN(value))
+        {
+            errors++;
+            return;
+        }
+
+        if(value > (targetTemp + failRange) || value < (targetTemp - failRange)) outOfRange++;
+        else inRange++;
+
+        long readings = inRange + outOfRange;
+        double delta = value - mean;
+        mean += delta / readings;
+        sumSquares += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * @return Number of readings recorded, including errors
+     */
+    public synchronized long getTotal()
+    { return total; }
+
+    /**
+     * @return Number of readings within the pass range
+     */
+    public synchronized long getInRange()
+    { return inRange; }
+
+    /**
+     * @return Number of readings outside the pass range
+     */
+    public synchronized long getOutOfRange()
+    { return outOfRange; }
+
+    /**
+     * @return Number of failed readings
+     */
+    public synchronized long getErrors()
+    { return errors; }
+
+    /**
+     * Getter for the fraction of valid readings within the pass range.
+     * Failed readings are not counted, matching the workbook's original COUNTIF formula.
+     *
+     * @return Pass rate, from 0 to 1; NaN if there are no valid readings
+     */
+    public synchronized double getPassRate()
+    {
+        long readings = inRange + outOfRange;
+        return (readings == 0 ? Double.NaN : (double)inRange / readings);
+    }
+
+    /**
+     * @return Mean of all valid readings; NaN if there are none
+     */
+    public synchronized double getMean()
+    { return (inRange + outOfRange == 0 ? Double.NaN : mean); }
+
+    /**
+     * @return Sample standard deviation of all valid readings; NaN if there are fewer than two
+     */
+    public synchronized double getStandardDeviation()
+    {
+        long readings = inRange + outOfRange;
+        return (readings < 2 ? Double.NaN : Math.sqrt(sumSquares / (readings - 1)));
+    }
+
+    /**
+     * @return Smallest valid reading; NaN if there are none
+     */
+    public synchronized double getMin()
+    { return (inRange + outOfRange == 0 ? Double.NaN : min); }
+
+    /**
+     * @return Largest valid reading; NaN if there are none
+     */
+    public synchronized double getMax()
+    { return (inRange + outOfRange == 0 ? Double.NaN : max); }
+
+    /**
+     * Short, human-readable summary, used for live progress output.
+     *
+     * @return Pass rate, counts, and errors
+     */
+    @Override
+    public synchronized String toString()
+    {
+        long readings = inRange + outOfRange;
+        return String.format("%.1f%% (%d/%d, %d error(s))",
+                             (readings == 0 ? 0.0 : 100.0 * inRange / readings),
+                             inRange, readings, errors);
+    }
+}
@@ -0,0 +1,220 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.function.Consumer;
+
+//Pi4J imports
+import com.pi4j.Pi4J;
+import com.pi4j.context.Context;
+import com.pi4j.io.gpio.digital.DigitalInput;
+import com.pi4j.io.gpio.digital.DigitalInputConfigBuilder;
+import com.pi4j.io.gpio.digital.DigitalOutput;
+import com.pi4j.io.gpio.digital.DigitalOutputConfigBuilder;
+import com.pi4j.io.gpio.digital.DigitalState;
+import com.pi4j.io.gpio.digital.DigitalStateChangeListener;
+import com.pi4j.io.gpio.digital.PullResistance;
+
+/**
+ * Real fixture GPIO, using Pi4J's pigpio providers.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class PigpioFixtureGpio implements FixtureGpio
+{
+    //PWM Addresses
+    //All addresses are in BCM format.
+
+    /**
+     * Output pin address for motor power control.
+     */
+    private static final int MOTOR_ENABLE_ADDR = 22;
+
+    /**
+     * Output pin address for motor direction control.
+     */
+    private static final int MOTOR_DIRECTION_ADDR = 27;
+
+    /**
+     * Output pin address for piston control.
+     */
+    private static final int PISTON_ADDR = 25;
+
+    /**
+     * Input pin address for the run switch.
+     */
+    private static final int RUN_SWITCH_ADDR = 10;
+
+    /**
+     * Input pin address for the upper limit switch.
+     */
+    private static final int UPPER_LIMIT_ADDR = 23;
+
+    /**
+     * Input pin address for the lower limit switch.
+     */
+    private static final int LOWER_LIMIT_ADDR = 24;
+
+    //Pi GPIO pin objects
+
+    /**
+     * Upper limit switch object.
+     *
+     * Status: High; Upper limit switch has been reached.
+     * Status: Low; Upper limit switch has not been reached.
+     */
+    private final DigitalInput upperLimit;
+
+    /**
+     * Lower limit switch object.
+     *
+     * Status: High; Lower limit switch has been reached.
+     * Status: Low; Lower limit switch has not been reached.
+     */
+    private final DigitalInput lowerLimit;
+
+    /**
+     * Run switch object.
+     *
+     * Status: High; Test must stop immediately.
+     * Status: Low; Test may continue.
+     */
+    private final DigitalInput runSwitch;
+
+    /**
+     * Motor power object.
+     *
+     * Status: High; Motor starts moving, in the direction defined by {@link #motorDirection}.
+     * Status: Low; Motor stops moving.
+     */
+    private final DigitalOutput motorEnable;
+
+    /**
+     * Defines the movement direction for the motor enabled by {@link #motorEnable}.
+     *
+     * Status: High; Motor will move upwards.
+     * Status: Low; Motor will move downwards.
+     */
+    private final DigitalOutput motorDirection;
+
+    /**
+     * Piston control pin object.
+     *
+     * Status: High; Piston is extended.
+     * Status: Low; Piston is retracted.
+     */
+    private final DigitalOutput pistonActivate;
+
+    /**
+     * {@link Pi4J} API interaction object.
+     */
+    private final Context pi4j;
+
+    /**
+     * Pi4J listener currently attached to {@link #runSwitch}.
+     */
+    private DigitalStateChangeListener runSwitchListener;
+
+    /**
+     * Connect to the fixture's GPIO pins.
+     */
+    public PigpioFixtureGpio()
+    {
+        pi4j = Pi4J.newAutoContext();
+
+        upperLimit = inputBuilder("upperLimit", "Upper Limit Switch", UPPER_LIMIT_ADDR);
+        lowerLimit = inputBuilder("lowerLimit", "Lower Limit Switch", LOWER_LIMIT_ADDR);
+        runSwitch  = inputBuilder("runSwitch" , "Run Switch"        , RUN_SWITCH_ADDR);
+
+        motorEnable    = outputBuilder("motorEnable"   , "Motor Enable"   , MOTOR_ENABLE_ADDR);
+        motorDirection = outputBuilder("motorDirection", "Motor Direction", MOTOR_DIRECTION_ADDR);
+        pistonActivate = outputBuilder("piston"        , "Piston Activate", PISTON_ADDR);
+    }
+
+    /**
+     * Builder function for DigitalInput pins.
+     *
+     * @param id        ID of the new {@link DigitalInput} pin.
+     * @param name      Name of the new {@link DigitalInput} pin.
+     * @param address   BCM address of the {@link DigitalInput} pin.
+     *
+     * @return newly created {@link DigitalInput} object.
+     */
+    private DigitalInput inputBuilder(String id, String name, int address)
+    {
+        DigitalInputConfigBuilder configBuilder = DigitalInput.newConfigBuilder(pi4j)
+                                                              .id(id)
+                                                              .address(address)
+                                                              .pull(PullResistance.PULL_DOWN)
+                                                              .debounce(3000L)
+                                                              .provider("pigpio-digital-input");
+        return pi4j.create(configBuilder);
+    }
+
+    /**
+     * Builder function for DigitalOutput pins.
+     *
+     * @param id        ID of the new {@link DigitalOutput} pin.
+     * @param name      Name of the new {@link DigitalOutput} pin.
+     * @param address   BCM address of the {@link DigitalOutput} pin.
+     *
+     * @return newly created {@link DigitalOutput} object
+     */
+    private DigitalOutput outputBuilder(String id, String name, int address)
+    {
+        DigitalOutputConfigBuilder configBuilder = DigitalOutput.newConfigBuilder(pi4j)
+                                                                .id(id)
+                                                                .address(address)
+                                                                .shutdown(DigitalState.LOW)
+                                                                .initial(DigitalState.LOW)
+                                                                .provider("pigpio-digital-output");
+        return pi4j.create(configBuilder);
+
+    }
+
+    @Override
+    public void setMotorEnabled(boolean enabled)
+    { motorEnable.state(enabled ? DigitalState.HIGH : DigitalState.LOW); }
+
+    @Override
+    public void setMotorDirectionUp(boolean up)
+    { motorDirection.state(up ? DigitalState.HIGH : DigitalState.LOW); }
+
+    @Override
+    public void setPiston(boolean extended)
+    { pistonActivate.state(extended ? DigitalState.HIGH : DigitalState.LOW); }
+
+    @Override
+    public boolean isUpperLimit()
+    { return upperLimit.isOn(); }
+
+    @Override
+    public boolean isLowerLimit()
+    { return lowerLimit.isOn(); }
+
+    @Override
+    public boolean isRunSwitchPaused()
+    { return runSwitch.isOn(); }
+
+    @Override
+    public synchronized void setRunSwitchListener(Consumer<Boolean> listener)
+    {
+        if(runSwitchListener != null) runSwitch.removeListener(runSwitchListener);
+        runSwitchListener = null;
+        if(listener == null) return;
+
+        runSwitchListener = (event) -> listener.accept(event.state() == DigitalState.HIGH);
+        runSwitch.addListener(runSwitchListener);
+    }
+
+    @Override
+    public FixtureClock getClock()
+    { return FixtureClock.current(); }
+
+    @Override
+    public void shutdown()
+    {
+        setRunSwitchListener(null);
+        pi4j.shutdown();
+    }
+}
@@ -0,0 +1,664 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of test results.
+ *
+ * Each reading is one CSV line with a fixed set of fields:
+ * iteration, camera, serial, value, confidence, image path, capture time
+ * and write time. Records are only ever appended, and are flushed in
+ * batches according to a {@link FlushPolicy}; a crash loses at most the
+ * iterations written since the last flush. A line cut short by a crash is
+ * skipped when the journal is read back. The styled workbook is generated from this file by
+ * {@link DataSaving#exportWorkbook(String, String)}.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.4.2, 18 Oct. 2026
+ */
+public class ResultJournal implements AutoCloseable
+{
+    /**
+     * Header line at the top of every journal.
+     */
+    public static final String HEADER = "iteration,camera,serial,value,confidence,image,captured,written";
+
+    /**
+     * Number of fields in every record.
+     */
+    private static final int FIELD_COUNT = 8;
+
+    /**
+     * Most lines a single record may span, when its quoted fields hold line breaks.
+     */
+    private static final int MAX_RECORD_LINES = 16;
+
+    /**
+     * Location of the journal.
+     */
+    private final File journalFile;
+
+    /**
+     * Underlying stream; used to sync the journal to disk.
+     */
+    private final FileOutputStream stream;
+
+    /**
+     * Writer appending to the journal.
+     */
+    private final BufferedWriter writer;
+
+    /**
+     * When, and how, buffered records are written out.
+     */
+    private final FlushPolicy policy;
+
+    /**
+     * Number of iterations appended since the last flush.
+     */
+    private int pendingIterations = 0;
+
+    /**
+     * Time of the last flush, from System.nanoTime().
+     */
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * Called after each flush that wrote out iterations; may be null.
+     */
+    private volatile Runnable flushListener;
+
+    /**
+     * Open a journal for appending, flushing after every iteration.
+     *
+     * @param journalFile   Location of the journal
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    public ResultJournal(File journalFile) throws IOException
+    { this(journalFile, new FlushPolicy(1, 0, false)); }
+
+    /**
+     * Open a journal for appending, creating it (with its header) if needed.
+     *
+     * @param journalFile   Location of the journal
+     * @param policy        When to flush appended records
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    public ResultJournal(File journalFile, FlushPolicy policy) throws IOException
+    {
+        this.journalFile = journalFile;
+        this.policy = policy;
+        boolean newJournal = !journalFile.exists() || journalFile.length() == 0;
+        boolean cutShort = !newJournal && !endsWithNewline(journalFile);
+        stream = new FileOutputStream(journalFile, true);
+        writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        if(newJournal)
+        {
+            writer.write(HEADER);
+            writer.newLine();
+            flush();
+        }
+        //End a line cut short by a crash, so it doesn't swallow the next record
+        else if(cutShort)
+        {
+            writer.newLine();
+            flush();
+        }
+    }
+
+    /**
+     * Check whether a file's last byte is a line break.
+     *
+     * @param file  Non-empty file to check
+     *
+     * @return true if the file ends with a line break
+     *
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean endsWithNewline(File file) throws IOException
+    {
+        try(RandomAccessFile input = new RandomAccessFile(file, "r"))
+        {
+            input.seek(input.length() - 1);
+            int last = input.read();
+            return last == '\n' || last == '\r';
+        }
+    }
+
+    /**
+     * Getter for the location of the journal.
+     *
+     * @return Journal file
+     */
+    public File getFile()
+    { return journalFile; }
+
+    /**
+     * Set a callback to run after each flush that writes out appended
+     * iterations, such as saving a checkpoint that must not run ahead of the journal.
+     *
+     * @param listener  Called on the flushing thread; null for none
+     */
+    public void setFlushListener(Runnable listener)
+    { flushListener = listener; }
+
+    /**
+     * Append all readings from one iteration.
+     * Flushes if the {@link FlushPolicy} says a flush is due.
+     *
+     * @param records   Readings to append
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void append(List<Record> records) throws IOException
+    {
+        for(Record record : records)
+        {
+            writer.write(record.toCsv());
+            writer.newLine();
+        }
+        pendingIterations++;
+        if(pendingIterations >= policy.getIterations()) flush();
+        else flushIfDue();
+    }
+
+    /**
+     * Flush buffered iterations if they have waited longer than the {@link FlushPolicy} allows.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void flushIfDue() throws IOException
+    {
+        if(pendingIterations > 0 && 
+           (System.nanoTime() - lastFlush) >= policy.getMillis() * 1_000_000L)
+            flush();
+    }
+
+    /**
+     * Write all buffered iterations out, syncing to disk if the {@link FlushPolicy} requires it.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void flush() throws IOException
+    {
+        writer.flush();
+        if(policy.isSync()) stream.getFD().sync();
+        boolean wroteIterations = (pendingIterations > 0);
+        pendingIterations = 0;
+        lastFlush = System.nanoTime();
+        Runnable listener = flushListener;
+        if(wroteIterations && listener != null) listener.run();
+    }
+
+    /**
+     * Flush and sync any buffered iterations, then close the journal.
+     */
+    @Override
+    public synchronized void close()
+    {
+        try
+        {
+            writer.flush();
+            stream.getFD().sync();
+            Runnable listener = flushListener;
+            if(pendingIterations > 0 && listener != null) listener.run();
+            pendingIterations = 0;
+        }
+        catch(IOException e) { ErrorLogging.logError(e); }
+        try{ writer.close(); }
+        catch(IOException e) { ErrorLogging.logError(e); }
+    }
+
+    /**
+     * Read every record in a journal, in order.
+     * Malformed lines (such as a line cut short by a power loss) are logged and skipped.
+     * A quoted field may hold line breaks; its record then spans several lines.
+     *
+     * @param journalFile   Journal to read
+     * @param consumer      Called once for each record
+     *
+     * @throws IOException if the journal cannot be read
+     */
+    public static void read(File journalFile, Consumer<Record> consumer) throws IOException
+    { read(journalFile, consumer, (warning) -> ErrorLogging.logError(warning)); }
+
+    /**
+     * Read every record in a journal, in order, reporting malformed lines to the caller.
+     *
+     * @param journalFile   Journal to read
+     * @param consumer      Called once for each record
+     * @param warnings      Called once for each malformed line skipped
+     *
+     * @throws IOException if the journal cannot be read
+     */
+    static void read(File journalFile, Consumer<Record> consumer, Consumer<String> warnings) throws IOException
+    {
+        try(BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(journalFile), StandardCharsets.UTF_8)))
+        {
+            //Lines read ahead while looking for the end of a quoted field
+            Deque<String> readAhead = new ArrayDeque<>();
+            int lineNumber = 0;
+            while(true)
+            {
+                String rawLine = (readAhead.isEmpty() ? readRawLine(reader) : readAhead.poll());
+                if(rawLine == null) break;
+                lineNumber++;
+                String line = stripLineBreak(rawLine);
+                if(line.isBlank() || line.equals(HEADER)) continue;
+
+                Record record = null;
+                if(split(line) != null) record = Record.fromCsv(line);
+                else
+                {
+                    //Join following lines, line breaks included, until the quoted field closes
+                    List<String> continuation = new ArrayList<>(readAhead);
+                    readAhead.clear();
+                    StringBuilder joined = new StringBuilder(rawLine);
+                    int used = 0;
+                    while(used < MAX_RECORD_LINES - 1)
+                    {
+                        String next = (used < continuation.size() ? continuation.get(used) : readRawLine(reader));
+                        if(next == null) break;
+                        if(used >= continuation.size()) continuation.add(next);
+                        used++;
+                        joined.append(next);
+                        if(split(stripLineBreak(joined.toString())) != null) break;
+                    }
+                    record = Record.fromCsv(stripLineBreak(joined.toString()));
+                    //A line cut short inside a quote must not swallow the records after it
+                    if(record == null) used = 0;
+                    readAhead.addAll(continuation.subList(used, continuation.size()));
+                    if(record != null) lineNumber += used;
+                }
+
+                if(record == null)
+                    warnings.accept("JOURNAL WARNING - Skipping malformed line " + lineNumber +
+                                    " of " + journalFile.getPath());
+                else consumer.accept(record);
+            }
+        }
+    }
+
+    /**
+     * Read one line, keeping its line break.
+     *
+     * @param reader    Reader to read from
+     *
+     * @return Line, ending in its line break if it has one; null at end of input
+     *
+     * @throws IOException if the reader fails
+     */
+    private static String readRawLine(BufferedReader reader) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while((c = reader.read()) != -1)
+        {
+            line.append((char)c);
+            if(c == '\n') break;
+        }
+        return (line.length() == 0 ? null : line.toString());
+    }
+
+    /**
+     * Remove the line break from the end of a line.
+     *
+     * @param line  Line read by {@link #readRawLine(BufferedReader)}
+     *
+     * @return Line without its trailing "\n" or "\r\n"
+     */
+    private static String stripLineBreak(String line)
+    {
+        int end = line.length();
+        if(end > 0 && line.charAt(end - 1) == '\n') end--;
+        if(end > 0 && line.charAt(end - 1) == '\r') end--;
+        return line.substring(0, end);
+    }
+
+    /**
+     * Drop every record after a given iteration, such as the partial 
+     * iterations left by a crash, before a run is resumed from that point.
+     * The journal is replaced atomically.
+     *
+     * @param journalFile   Journal to trim; must not be open
+     * @param iterations    Number of iterations to keep
+     *
+     * @return Number of records dropped
+     *
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static int truncate(File journalFile, int iterations) throws IOException
+    { return truncate(journalFile, iterations, (warning) -> ErrorLogging.logError(warning)); }
+
+    /**
+     * Drop every record after a given iteration, reporting malformed lines to the caller.
+     *
+     * @param journalFile   Journal to trim; must not be open
+     * @param iterations    Number of iterations to keep
+     * @param warnings      Called once for each malformed line skipped
+     *
+     * @return Number of records dropped
+     *
+     * @throws IOException if the journal cannot be read or written
+     */
+    static int truncate(File journalFile, int iterations, Consumer<String> warnings) throws IOException
+    {
+        List<Record> kept = new ArrayList<>();
+        int[] dropped = { 0 };
+        read(journalFile, (record) -> 
+        {
+            if(record.getIteration() <= iterations) kept.add(record);
+            else dropped[0]++;
+        }, warnings);
+        if(dropped[0] == 0) return 0;
+
+        AtomicFiles.write(journalFile, true, (outputStream) ->
+        {
+            BufferedWriter output = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            output.write(HEADER);
+            output.newLine();
+            for(Record record : kept)
+            {
+                output.write(record.toCsv());
+                output.newLine();
+            }
+            output.flush();
+        });
+        return dropped[0];
+    }
+
+    /**
+     * Escape a field for CSV output.
+     *
+     * @param field     Raw field; may be null
+     *
+     * @return Field, quoted if it holds a comma, quote or line break
+     */
+    private static String escape(String field)
+    {
+        if(field == null) return "";
+        if(field.indexOf(',') < 0 && field.indexOf('"') < 0 &&
+           field.indexOf('\n') < 0 && field.indexOf('\r') < 0) return field;
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Split a CSV line into fields.
+     *
+     * @param line  Line to split
+     *
+     * @return Unescaped fields; null if the line ends inside a quoted field
+     */
+    private static List<String> split(String line)
+    {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if(quoted)
+            {
+                if(c != '"') field.append(c);
+                else if(i + 1 < line.length() && line.charAt(i + 1) == '"') { field.append('"'); i++; }
+                else quoted = false;
+            }
+            else if(c == '"') quoted = true;
+            else if(c == ',')
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else field.append(c);
+        }
+        if(quoted) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * When buffered journal records are written out.
+     * A flush happens after a set number of iterations, or once the oldest
+     * buffered iteration has waited a set time, whichever comes first.
+     */
+    public static class FlushPolicy
+    {
+        /**
+         * Iterations to buffer before flushing.
+         */
+        private final int iterations;
+
+        /**
+         * Longest time an iteration may stay buffered, in milliseconds.
+         */
+        private final long millis;
+
+        /**
+         * Whether each flush is synced to disk.
+         */
+        private final boolean sync;
+
+        /**
+         * Create a flush policy.
+         *
+         * @param iterations    Iterations to buffer before flushing (at least 1)
+         * @param millis        Longest time an iteration may stay buffered, in milliseconds
+         * @param sync          Whether each flush is synced to disk (fsync)
+         */
+        public FlushPolicy(int iterations, long millis, boolean sync)
+        {
+            this.iterations = Math.max(1, iterations);
+            this.millis = Math.max(0, millis);
+            this.sync = sync;
+        }
+
+        /**
+         * Read a flush policy from the <code>disco.flush.iterations</code>,
+         * <code>disco.flush.ms</code> and <code>disco.flush.sync</code> system properties.
+         * Defaults to flushing every 5 iterations or 2 seconds, without syncing.
+         *
+         * @return Configured flush policy
+         */
+        public static FlushPolicy fromSystemProperties()
+        {
+            int iterations = 5;
+            long millis = 2000;
+            try
+            {
+                iterations = Integer.parseInt(System.getProperty("disco.flush.iterations", Integer.toString(iterations)));
+                millis = Long.parseLong(System.getProperty("disco.flush.ms", Long.toString(millis)));
+            }
+            catch(NumberFormatException e)
+            { ErrorLogging.logError("JOURNAL WARNING - Invalid flush setting; using defaults. " + e.getMessage()); }
+            return new FlushPolicy(iterations, millis, Boolean.getBoolean("disco.flush.sync"));
+        }
+
+        /**
+         * @return Iterations to buffer before flushing
+         */
+        public int getIterations()
+        { return iterations; }
+
+        /**
+         * @return Longest time an iteration may stay buffered, in milliseconds
+         */
+        public long getMillis()
+        { return millis; }
+
+        /**
+         * @return Whether each flush is synced to disk
+         */
+        public boolean isSync()
+        { return sync; }
+    }
+
+    /**
+     * A single reading, from one camera, in one iteration.
+     */
+    public static class Record
+    {
+        /**
+         * Iteration number (1-based, as shown in the workbook).
+         */
+        private final int iteration;
+
+        /**
+         * Name of the camera that took the reading.
+         */
+        private final String camera;
+
+        /**
+         * Serial number of the DUT; empty if not set.
+         */
+        private final String serial;
+
+        /**
+         * OCR reading; Double.NEGATIVE_INFINITY if OCR failed.
+         */
+        private final double value;
+
+        /**
+         * OCR confidence (0-100); -1 if unknown.
+         */
+        private final int confidence;
+
+        /**
+         * Path of the processed image.
+         */
+        private final String imagePath;
+
+        /**
+         * When the image was captured.
+         */
+        private final Instant captured;
+
+        /**
+         * When the record was written.
+         */
+        private final Instant written;
+
+        /**
+         * Create a new record.
+         *
+         * @param iteration     Iteration number (1-based)
+         * @param camera        Camera that took the reading
+         * @param serial        Serial number of the DUT; may be null
+         * @param value         OCR reading
+         * @param confidence    OCR confidence (0-100); -1 if unknown
+         * @param imagePath     Path of the processed image
+         * @param captured      When the image was captured
+         * @param written       When the record was written
+         */
+        public Record(int iteration, String camera, String serial, double value, int confidence,
+                      String imagePath, Instant captured, Instant written)
+        {
+            this.iteration = iteration;
+            this.camera = camera;
+            this.serial = (serial == null ? "" : serial);
+            this.value = value;
+            this.confidence = confidence;
+            this.imagePath = imagePath;
+            this.captured = captured;
+            this.written = written;
+        }
+
+        /**
+         * Format this record as a CSV line, without a line terminator.
+         *
+         * @return CSV line
+         */
+        String toCsv()
+        {
+            return iteration + "," + escape(camera) + "," + escape(serial) + "," +
+                   value + "," + confidence + "," + escape(imagePath) + "," +
+                   captured + "," + written;
+        }
+
+        /**
+         * Parse a CSV line into a record.
+         *
+         * @param line  CSV line, without a line terminator
+         *
+         * @return Parsed record; null if the line is malformed
+         */
+        static Record fromCsv(String line)
+        {
+            List<String> fields = split(line);
+            if(fields == null || fields.size() != FIELD_COUNT) return null;
+            try
+            {
+                return new Record(Integer.parseInt(fields.get(0)), fields.get(1), fields.get(2),
+                                  Double.parseDouble(fields.get(3)), Integer.parseInt(fields.get(4)),
+                                  fields.get(5), Instant.parse(fields.get(6)), Instant.parse(fields.get(7)));
+            }
+            catch(RuntimeException e) { return null; }
+        }
+
+        /**
+         * @return Iteration number (1-based)
+         */
+        public int getIteration()
+        { return iteration; }
+
+        /**
+         * @return Camera that took the reading
+         */
+        public String getCamera()
+        { return camera; }
+
+        /**
+         * @return Serial number of the DUT; empty if not set
+         */
+        public String getSerial()
+        { return serial; }
+
+        /**
+         * @return OCR reading; Double.NEGATIVE_INFINITY if OCR failed
+         */
+        public double getValue()
+        { return value; }
+
+        /**
+         * @return OCR confidence (0-100); -1 if unknown
+         */
+        public int getConfidence()
+        { return confidence; }
+
+        /**
+         * @return Path of the processed image
+         */
+        public String getImagePath()
+        { return imagePath; }
+
+        /**
+         * @return When the image was captured
+         */
+        public Instant getCaptured()
+        { return captured; }
+
+        /**
+         * @return When the record was written
+         */
+        public Instant getWritten()
+        { return written; }
+    }
+}
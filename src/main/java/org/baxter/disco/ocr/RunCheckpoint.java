@@ -0,0 +1,302 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Persistent progress of a test run, used to resume after a crash or power loss.
+ *
+ * The checkpoint is a small properties file beside the output workbook
+ * (same name, .checkpoint extension), replaced atomically whenever the
+ * results journal is flushed. It holds everything needed to restart the run: its ID, the
+ * requested iteration count, the active cameras and their serials, and the
+ * output file. The results journal remains the record of which iterations
+ * actually finished; see {@link #countJournalledIterations()}.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.3, 18 Oct. 2026
+ */
+public class RunCheckpoint
+{
+    /**
+     * Extension of checkpoint files.
+     */
+    public static final String EXTENSION = ".checkpoint";
+
+    /**
+     * Unique ID of the run.
+     */
+    private final String runId;
+
+    /**
+     * Number of iterations requested for the run.
+     */
+    private final int iterationCount;
+
+    /**
+     * Active cameras, in column order.
+     */
+    private final List<String> cameras;
+
+    /**
+     * Serial number of each active camera's DUT.
+     */
+    private final Map<String,String> serials;
+
+    /**
+     * Location of the output workbook.
+     */
+    private final String outputFile;
+
+    /**
+     * Number of iterations saved so far.
+     */
+    private int completedIterations;
+
+    /**
+     * Whether the run has finished.
+     */
+    private boolean complete;
+
+    /**
+     * Create a checkpoint for a new run.
+     *
+     * @param iterationCount    Number of iterations requested
+     * @param cameras           Active cameras, in column order
+     * @param serials           Serial number of each camera's DUT; missing serials are stored as empty
+     * @param outputFile        Location of the output workbook
+     */
+    public RunCheckpoint(int iterationCount, List<String> cameras, Map<String,String> serials, String outputFile)
+    {
+        this(LocalDateTime.now().format(ErrorLogging.fileDatetime), iterationCount, cameras, serials, outputFile, 0, false);
+    }
+
+    /**
+     * Create a checkpoint with every field set.
+     */
+    private RunCheckpoint(String runId, int iterationCount, List<String> cameras, Map<String,String> serials,
+                          String outputFile, int completedIterations, boolean complete)
+    {
+        this.runId = runId;
+        this.iterationCount = iterationCount;
+        this.cameras = Collections.unmodifiableList(new ArrayList<>(cameras));
+        Map<String,String> serialCopy = new LinkedHashMap<>();
+        for(String camera : cameras)
+        {
+            String serial = serials.get(camera);
+            serialCopy.put(camera, (serial == null ? "" : serial));
+        }
+        this.serials = Collections.unmodifiableMap(serialCopy);
+        this.outputFile = outputFile;
+        this.completedIterations = completedIterations;
+        this.complete = complete;
+    }
+
+    /**
+     * Find the checkpoint belonging to an output workbook.
+     *
+     * @param outputFilename    Location of the output workbook
+     *
+     * @return Checkpoint file: the same path, with a .checkpoint extension
+     */
+    public static File locationFor(String outputFilename)
+    {
+        int extension = outputFilename.lastIndexOf('.');
+        int separator = Math.max(outputFilename.lastIndexOf('/'), outputFilename.lastIndexOf(File.separatorChar));
+        String baseName = (extension > separator ? outputFilename.substring(0, extension) : outputFilename);
+        return new File(baseName + EXTENSION);
+    }
+
+    /**
+     * Find the most recently updated checkpoint of an unfinished run.
+     *
+     * @param directory     Directory to search
+     *
+     * @return Checkpoint file; null if there is no unfinished run
+     */
+    public static File findLatestUnfinished(File directory)
+    {
+        File[] candidates = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if(candidates == null) return null;
+        Arrays.sort(candidates, (first, second) -> Long.compare(second.lastModified(), first.lastModified()));
+        for(File candidate : candidates)
+        {
+            try{ if(!load(candidate).isComplete()) return candidate; }
+            catch(IOException e) { ErrorLogging.logError(e); }
+        }
+        return null;
+    }
+
+    /**
+     * Read a checkpoint from a file.
+     *
+     * @param file  Checkpoint file
+     *
+     * @return Loaded checkpoint
+     *
+     * @throws IOException if the file cannot be read, or is missing required fields
+     */
+    public static RunCheckpoint load(File file) throws IOException
+    {
+        Properties properties = new Properties();
+        try(Reader reader = new FileReader(file)) { properties.load(reader); }
+
+        String runId = properties.getProperty("runId");
+        String outputFile = properties.getProperty("output");
+        String cameraList = properties.getProperty("cameras");
+        if(runId == null || outputFile == null || cameraList == null)
+            throw new IOException("Checkpoint " + file.getPath() + " is missing required fields.");
+
+        List<String> cameras = new ArrayList<>();
+        Map<String,String> serials = new LinkedHashMap<>();
+        for(String camera : cameraList.split(","))
+        {
+            if(camera.isBlank()) continue;
+            cameras.add(camera);
+            serials.put(camera, properties.getProperty("serial." + camera, ""));
+        }
+
+        try
+        {
+            return new RunCheckpoint(runId,
+                                     Integer.parseInt(properties.getProperty("iterations", "0")),
+                                     cameras, serials, outputFile,
+                                     Integer.parseInt(properties.getProperty("completed", "0")),
+                                     Boolean.parseBoolean(properties.getProperty("complete", "false")));
+        }
+        catch(NumberFormatException e)
+        { throw new IOException("Checkpoint " + file.getPath() + " holds an invalid number.", e); }
+    }
+
+    /**
+     * Write this checkpoint beside its output workbook, replacing any previous version atomically.
+     *
+     * @param sync  Whether to sync the checkpoint to disk before replacing the old one
+     *
+     * @return true if saved; otherwise false
+     */
+    public synchronized boolean save(boolean sync)
+    {
+        Properties properties = new Properties();
+        properties.setProperty("runId", runId);
+        properties.setProperty("iterations", Integer.toString(iterationCount));
+        properties.setProperty("completed", Integer.toString(completedIterations));
+        properties.setProperty("complete", Boolean.toString(complete));
+        properties.setProperty("output", outputFile);
+        properties.setProperty("cameras", String.join(",", cameras));
+        for(Map.Entry<String,String> serial : serials.entrySet())
+            properties.setProperty("serial." + serial.getKey(), serial.getValue());
+
+        try
+        {
+            AtomicFiles.write(locationFor(outputFile), sync,
+                              (outputStream) -> properties.store(outputStream, "Test run checkpoint"));
+            return true;
+        }
+        catch(IOException e)
+        {
+            ErrorLogging.logError(e);
+            ErrorLogging.logError("CHECKPOINT ERROR!!! - Unable to save run checkpoint.");
+            return false;
+        }
+    }
+
+    /**
+     * Count the iterations that reached the run's results journal.
+     * The journal is written before the checkpoint, so it is the authority on
+     * which iterations finished. An iteration is finished once every camera
+     * has a record for it; a crash part-way through writing an iteration can
+     * leave only some of its records. Iterations are saved in order, so this
+     * is the number of finished iterations before the first unfinished one.
+     *
+     * @return Number of journalled iterations; 0 if there is no journal
+     *
+     * @throws IOException if the journal exists but cannot be read; 
+     *                     no count is given, as a partial one would understate the run
+     */
+    public int countJournalledIterations() throws IOException
+    {
+        File journalFile = new File(DataSaving.getJournalLocation(outputFile));
+        if(!journalFile.exists()) return 0;
+        Map<Integer,Set<String>> iterationCameras = new HashMap<>();
+        ResultJournal.read(journalFile, (record) -> 
+            iterationCameras.computeIfAbsent(record.getIteration(), (iteration) -> new HashSet<>())
+                            .add(record.getCamera()));
+
+        int output = 0;
+        while(iterationCameras.containsKey(output + 1) && 
+              iterationCameras.get(output + 1).containsAll(cameras)) 
+            output++;
+        return output;
+    }
+
+    /**
+     * Record that another iteration has been saved.
+     *
+     * @param completed     Number of iterations saved so far
+     */
+    public synchronized void setCompletedIterations(int completed)
+    { completedIterations = completed; }
+
+    /**
+     * Mark the run as finished.
+     */
+    public synchronized void markComplete()
+    { complete = true; }
+
+    /**
+     * @return Unique ID of the run
+     */
+    public String getRunId()
+    { return runId; }
+
+    /**
+     * @return Number of iterations requested
+     */
+    public int getIterationCount()
+    { return iterationCount; }
+
+    /**
+     * @return Active cameras, in column order
+     */
+    public List<String> getCameras()
+    { return cameras; }
+
+    /**
+     * @return Serial number of each active camera's DUT
+     */
+    public Map<String,String> getSerials()
+    { return serials; }
+
+    /**
+     * @return Location of the output workbook
+     */
+    public String getOutputFile()
+    { return outputFile; }
+
+    /**
+     * @return Number of iterations saved, as of the last checkpoint
+     */
+    public synchronized int getCompletedIterations()
+    { return completedIterations; }
+
+    /**
+     * @return Whether the run has finished
+     */
+    public synchronized boolean isComplete()
+    { return complete; }
+}
@@ -0,0 +1,147 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Run/pause gate for the test loop.
+ *
+ * The physical Run switch on the fixture pauses and resumes testing.
+ * Rather than spinning on a lock, every worker calls {@link #awaitRunning()}
+ * between steps, and parks on a {@link Condition} while the fixture is paused.
+ * A step that is already in progress (movement, capture, OCR) is never
+ * interrupted; it finishes, and the worker parks at its next checkpoint.
+ *
+ * The gate is driven by edge events from {@link MovementFacade}'s Run switch
+ * listener, so pausing and resuming take effect immediately.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class RunGate
+{
+    /**
+     * Lock guarding all state in this class.
+     */
+    private static final ReentrantLock GATE_LOCK = new ReentrantLock();
+
+    /**
+     * Condition signalled when the fixture resumes.
+     */
+    private static final Condition RESUMED = GATE_LOCK.newCondition();
+
+    /**
+     * Whether the fixture is currently paused.
+     * Volatile, so the fast path of {@link #awaitRunning()} can skip the lock.
+     */
+    private static volatile boolean paused = false;
+
+    /**
+     * Number of times the fixture has been paused.
+     */
+    private static long pauseCount = 0;
+
+    /**
+     * Total time spent paused, in nanoseconds, not including the current pause.
+     */
+    private static long totalPausedNanos = 0;
+
+    /**
+     * {@link System#nanoTime()} at the start of the current pause.
+     */
+    private static long pauseStartNanos = 0;
+
+    /**
+     * Pause the fixture.
+     * Workers will park at their next call to {@link #awaitRunning()}.
+     * Repeated calls while paused are ignored.
+     */
+    public static void pause()
+    {
+        GATE_LOCK.lock();
+        try
+        {
+            if(paused) return;
+            paused = true;
+            pauseCount++;
+            pauseStartNanos = System.nanoTime();
+        }
+        finally { GATE_LOCK.unlock(); }
+        ErrorLogging.logError("Run switch turned off! Pausing tests...");
+    }
+
+    /**
+     * Resume the fixture, waking all parked workers.
+     * Repeated calls while running are ignored.
+     */
+    public static void resume()
+    {
+        long pausedFor;
+        GATE_LOCK.lock();
+        try
+        {
+            if(!paused) return;
+            paused = false;
+            pausedFor = System.nanoTime() - pauseStartNanos;
+            totalPausedNanos += pausedFor;
+            RESUMED.signalAll();
+        }
+        finally { GATE_LOCK.unlock(); }
+        ErrorLogging.logError("Run switch turned on. Resuming tests after " +
+                              TimeUnit.NANOSECONDS.toMillis(pausedFor) + " ms.");
+    }
+
+    /**
+     * Block the calling thread while the fixture is paused.
+     * Returns immediately if the fixture is running.
+     */
+    public static void awaitRunning()
+    {
+        if(!paused) return;
+        GATE_LOCK.lock();
+        try
+        {
+            while(paused) RESUMED.awaitUninterruptibly();
+        }
+        finally { GATE_LOCK.unlock(); }
+    }
+
+    /**
+     * Getter for the current pause state.
+     *
+     * @return true if the fixture is paused; otherwise false
+     */
+    public static boolean isPaused()
+    { return paused; }
+
+    /**
+     * Getter for the number of times the fixture has been paused.
+     *
+     * @return Count of pauses since program start.
+     */
+    public static long getPauseCount()
+    {
+        GATE_LOCK.lock();
+        try{ return pauseCount; }
+        finally { GATE_LOCK.unlock(); }
+    }
+
+    /**
+     * Getter for the total time spent paused, including any pause in progress.
+     *
+     * @return Total paused time, in milliseconds.
+     */
+    public static long getTotalPausedMillis()
+    {
+        GATE_LOCK.lock();
+        try
+        {
+            long total = totalPausedNanos;
+            if(paused) total += System.nanoTime() - pauseStartNanos;
+            return TimeUnit.NANOSECONDS.toMillis(total);
+        }
+        finally { GATE_LOCK.unlock(); }
+    }
+}
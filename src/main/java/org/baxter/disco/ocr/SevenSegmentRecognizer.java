@@ -0,0 +1,267 @@
+package org.baxter.disco.ocr;
+
+//Static imports for OpenCV
+import static org.bytedeco.opencv.global.opencv_imgcodecs.IMREAD_GRAYSCALE;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.imread;
+
+//JavaCPP imports
+import org.bytedeco.javacpp.indexer.UByteIndexer;
+
+//OpenCV imports
+import org.bytedeco.opencv.opencv_core.Mat;
+
+//Standard imports
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader for seven-segment displays, without Tesseract.
+ *
+ * Works directly on processed ROI images: dark segments on a white
+ * background, as saved by {@link OpenCVFacade}.
+ * Characters are found as runs of dark columns; each one is decoded by
+ * checking which of its seven segments are dark. Narrow characters are a 1
+ * if they are full height, or the decimal point otherwise.
+ *
+ * Used by {@link TesseractFacade} when <code>disco.ocr.engine=sevenseg</code>,
+ * which is the default with simulated cameras: the simulated displays are
+ * drawn, not photographed, so they do not need training data to read.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.1, 18 Oct. 2026
+ */
+class SevenSegmentRecognizer
+{
+    /**
+     * Pixels darker than this are part of a segment.
+     */
+    private static final int DARK_LEVEL = 128;
+
+    /**
+     * Dark pixels a column needs to be part of a character; fewer is speckle.
+     */
+    private static final int MIN_COLUMN_PIXELS = 2;
+
+    /**
+     * Fraction of a segment's sample area that must be dark for it to be lit.
+     */
+    private static final double LIT_FRACTION = 0.5;
+
+    /**
+     * Text read from an image, and how sure the reader is of it.
+     */
+    static class Reading
+    {
+        /**
+         * Text read; empty if nothing was found.
+         */
+        final String text;
+
+        /**
+         * Confidence, 0-100, like Tesseract's mean text confidence.
+         */
+        final int confidence;
+
+        Reading(String text, int confidence)
+        {
+            this.text = text;
+            this.confidence = confidence;
+        }
+    }
+
+    /**
+     * Read a processed image file.
+     *
+     * @param file  Processed ROI image
+     *
+     * @return Text read; null if the image cannot be read
+     */
+    static Reading read(File file)
+    {
+        Mat image = imread(file.getAbsolutePath(), IMREAD_GRAYSCALE);
+        if(image == null || image.empty()) return null;
+        Reading output = read(image);
+        image.release();
+        return output;
+    }
+
+    /**
+     * Read a processed image.
+     *
+     * @param image Greyscale ROI image, dark segments on a light background
+     *
+     * @return Text read
+     */
+    static Reading read(Mat image)
+    {
+        int width = image.cols(), height = image.rows();
+        boolean[][] dark = new boolean[height][width];
+        try(UByteIndexer indexer = image.createIndexer())
+        {
+            for(int y = 0; y < height; y++)
+                for(int x = 0; x < width; x++)
+                    dark[y][x] = indexer.get(y, x) < DARK_LEVEL;
+        }
+
+        //Characters are runs of columns with enough dark pixels
+        List<int[]> glyphs = new ArrayList<>();
+        int start = -1;
+        for(int x = 0; x <= width; x++)
+        {
+            boolean ink = (x < width && countColumn(dark, x, 0, height) >= MIN_COLUMN_PIXELS);
+            if(ink && start < 0) start = x;
+            else if(!ink && start >= 0)
+            {
+                glyphs.add(new int[]{ start, x });
+                start = -1;
+            }
+        }
+        if(glyphs.isEmpty()) return new Reading("", 0);
+
+        //Digit height, from the tallest character
+        int top = height, bottom = -1;
+        for(int[] glyph : glyphs)
+        {
+            int[] rows = rowExtent(dark, glyph[0], glyph[1]);
+            if(rows[1] - rows[0] > bottom - top)
+            {
+                top = rows[0];
+                bottom = rows[1];
+            }
+        }
+        int digitHeight = bottom - top;
+        if(digitHeight <= 0) return new Reading("", 0);
+
+        StringBuilder text = new StringBuilder();
+        double certainty = 0;
+        int decoded = 0;
+        for(int[] glyph : glyphs)
+        {
+            int[] rows = rowExtent(dark, glyph[0], glyph[1]);
+            int glyphWidth = glyph[1] - glyph[0];
+            if(glyphWidth > digitHeight)
+            {
+                //Wider than tall: a smear, such as a composite of a dark display, not a character
+                text.append('?');
+                continue;
+            }
+            if(glyphWidth * 3 < digitHeight)
+            {
+                //Narrow: a 1 is full height, the decimal point is a small dot at the bottom
+                if((rows[1] - rows[0]) * 2 > digitHeight) text.append('1');
+                else if(rows[0] > top + digitHeight / 2) text.append('.');
+                continue;
+            }
+
+            int lit = 0;
+            double[] fractions = sampleSegments(dark, glyph[0], glyph[1], top, bottom);
+            for(int segment = 0; segment < fractions.length; segment++)
+            {
+                if(fractions[segment] >= LIT_FRACTION) lit |= (1 << segment);
+                certainty += Math.abs(fractions[segment] - LIT_FRACTION) * 2;
+                decoded++;
+            }
+            text.append(decode(lit, text));
+        }
+        int confidence = (decoded == 0 ? 90 : (int)Math.round(100 * certainty / decoded));
+        return new Reading(text.toString(), confidence);
+    }
+
+    /**
+     * @param lit       Lit segments
+     * @param previous  Characters read so far
+     *
+     * @return Character shown by the segments; '?' if they do not form one
+     */
+    private static char decode(int lit, CharSequence previous)
+    {
+        if(lit == SimulatedCamera.SEGMENTS_L) return 'L';
+        for(int digit = 0; digit < SimulatedCamera.SEGMENTS.length; digit++)
+        {
+            if(SimulatedCamera.SEGMENTS[digit] != lit) continue;
+            //The DUT shows LO, not L0
+            if(digit == 0 && previous.length() > 0 && previous.charAt(previous.length() - 1) == 'L') return 'O';
+            return (char)('0' + digit);
+        }
+        return '?';
+    }
+
+    /**
+     * Measure how dark each segment of a character is.
+     *
+     * @param dark      Dark pixels of the image
+     * @param left      First column of the character
+     * @param right     Column after the character
+     * @param top       Top row of the digits
+     * @param bottom    Bottom row of the digits
+     *
+     * @return Dark fraction of the middle of each segment, in segment order a-g
+     */
+    private static double[] sampleSegments(boolean[][] dark, int left, int right, int top, int bottom)
+    {
+        int width = right - left, height = bottom - top + 1;
+        int middleX = left + width / 2, middleY = top + height / 2;
+        int edge = Math.max(1, width / 5), band = Math.max(1, height / 20);
+        int quarter = height / 4;
+        return new double[]
+        {
+            fraction(dark, middleX - 1, middleX + 2, top, top + band + 1),                            //a
+            fraction(dark, right - edge, right, top + quarter - 2, top + quarter + 3),                //b
+            fraction(dark, right - edge, right, bottom - quarter - 2, bottom - quarter + 3),          //c
+            fraction(dark, middleX - 1, middleX + 2, bottom - band, bottom + 1),                      //d
+            fraction(dark, left, left + edge, bottom - quarter - 2, bottom - quarter + 3),            //e
+            fraction(dark, left, left + edge, top + quarter - 2, top + quarter + 3),                  //f
+            fraction(dark, middleX - 1, middleX + 2, middleY - band, middleY + band)                  //g
+        };
+    }
+
+    /**
+     * @return Fraction of dark pixels in a rectangle, clipped to the image
+     */
+    private static double fraction(boolean[][] dark, int x0, int x1, int y0, int y1)
+    {
+        int total = 0, count = 0;
+        for(int y = Math.max(0, y0); y < Math.min(dark.length, y1); y++)
+        {
+            for(int x = Math.max(0, x0); x < Math.min(dark[y].length, x1); x++)
+            {
+                total++;
+                if(dark[y][x]) count++;
+            }
+        }
+        return (total == 0 ? 0 : (double)count / total);
+    }
+
+    /**
+     * @return Number of dark pixels in a column, between two rows
+     */
+    private static int countColumn(boolean[][] dark, int x, int y0, int y1)
+    {
+        int output = 0;
+        for(int y = y0; y < y1; y++) if(dark[y][x]) output++;
+        return output;
+    }
+
+    /**
+     * Find the rows a character covers, ignoring rows with only a stray dark pixel.
+     *
+     * @return First and last row of the character
+     */
+    private static int[] rowExtent(boolean[][] dark, int left, int right)
+    {
+        int first = -1, last = -1;
+        int needed = Math.min(2, right - left);
+        for(int y = 0; y < dark.length; y++)
+        {
+            int count = 0;
+            for(int x = left; x < right; x++) if(dark[y][x]) count++;
+            if(count >= needed)
+            {
+                if(first < 0) first = y;
+                last = y;
+            }
+        }
+        return new int[]{ first, last };
+    }
+}
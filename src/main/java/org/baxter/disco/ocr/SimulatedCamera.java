@@ -0,0 +1,274 @@
+package org.baxter.disco.ocr;
+
+//Static imports for OpenCV
+import static org.bytedeco.opencv.global.opencv_core.CV_64F;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC3;
+import static org.bytedeco.opencv.global.opencv_core.add;
+import static org.bytedeco.opencv.global.opencv_core.randu;
+import static org.bytedeco.opencv.global.opencv_imgproc.rectangle;
+
+//JavaCV imports
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.FrameGrabber;
+import org.bytedeco.javacv.OpenCVFrameConverter;
+
+//OpenCV imports
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.Point;
+import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
+
+//Standard imports
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated camera, watching a simulated DUT's seven-segment display.
+ *
+ * The DUT is asleep, with a dark display, until the piston presses its
+ * button. After a display latency it wakes and shows a new temperature
+ * reading; it falls asleep again once it has been left alone for a while.
+ * Frames are rendered with the display under the default crop region, and
+ * can be given sensor noise, flicker (frames where the display is blank) and
+ * misreads (readings where the DUT shows LO).
+ *
+ * Timing follows the fixture's {@link FixtureClock}. Settings are read from
+ * system properties:
+ * <pre>
+ *  disco.sim.target=36.0       Mean reading
+ *  disco.sim.spread=0.1        Standard deviation of readings
+ *  disco.sim.noise=3           Sensor noise, in grey levels
+ *  disco.sim.flicker=0.02      Chance of each frame catching the display blank
+ *  disco.sim.misread=0.01      Chance of each reading showing LO
+ *  disco.sim.latencyMs=300     Time from button press to reading
+ *  disco.sim.sleepMs=15000     Time from the last button press to sleep
+ *  disco.sim.frameMs=33        Time between frames
+ * </pre>
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.2, 18 Oct. 2026
+ */
+public class SimulatedCamera extends FrameGrabber
+{
+    /**
+     * Frame width, matching the real cameras.
+     */
+    private static final int WIDTH = 800;
+
+    /**
+     * Frame height, matching the real cameras.
+     */
+    private static final int HEIGHT = 600;
+
+    /**
+     * Top-left corner of the first digit.
+     */
+    private static final int DIGIT_X = 278, DIGIT_Y = 210;
+
+    /**
+     * Display panel, around the default crop region.
+     */
+    private static final Rect PANEL_AREA = new Rect(DIGIT_X - 23, DIGIT_Y - 25, 120, 90);
+
+    /**
+     * Size of each digit, its stroke width, and the distance between digits.
+     */
+    private static final int DIGIT_WIDTH = 16, DIGIT_HEIGHT = 40, STROKE = 4, PITCH = 24;
+
+    /**
+     * Segments lit for each digit, as bits: a, b, c, d, e, f, g.
+     * Shared with {@link SevenSegmentRecognizer} and the benchmark corpus,
+     * so the rendered and recognised segments cannot drift apart.
+     */
+    static final int[] SEGMENTS =
+        { 0x3F, 0x06, 0x5B, 0x4F, 0x66, 0x6D, 0x7D, 0x07, 0x7F, 0x6F };
+
+    /**
+     * Segments lit for the letter L.
+     */
+    static final int SEGMENTS_L = 0x38;
+
+    /**
+     * Colour of the housing, of the lit display, of the sleeping display and of a lit segment.
+     */
+    private static final Scalar HOUSING = new Scalar(30, 45, 40, 0), PANEL = new Scalar(160, 175, 170, 0),
+                                DARK_PANEL = new Scalar(20, 25, 25, 0), SEGMENT = new Scalar(10, 20, 15, 0);
+
+    /**
+     * Clock the simulation runs on.
+     */
+    private final FixtureClock clock;
+
+    /**
+     * Source of readings and noise.
+     */
+    private final Random random;
+
+    /**
+     * Converter from rendered images to frames.
+     */
+    private final OpenCVFrameConverter.ToMat converter = new OpenCVFrameConverter.ToMat();
+
+    /**
+     * Simulation settings; see the class description.
+     */
+    private final double target, spread, flicker, misread;
+    private final int noise;
+    private final long latencyNanos, sleepNanos, frameMillis;
+
+    /**
+     * Whether the simulation is driven by piston presses. If not, the display stays awake.
+     */
+    private final boolean pressDriven;
+
+    /**
+     * Clock time of the last button press; the reading appears after the display latency.
+     */
+    private long lastPressNanos = Long.MIN_VALUE / 2;
+
+    /**
+     * Reading currently shown by the DUT.
+     */
+    private String reading = "";
+
+    /**
+     * Last frame rendered, and a buffer for its noise.
+     */
+    private Mat frame, noiseFrame;
+
+    /**
+     * Create a simulated camera.
+     *
+     * @param clock         Clock the simulation runs on
+     * @param gpio          Simulated fixture whose piston presses the DUT's button;
+     *                      null to keep the display awake, with a new reading every sleep period
+     * @param seed          Seed for readings and noise
+     */
+    public SimulatedCamera(FixtureClock clock, SimulatedFixtureGpio gpio, long seed)
+    {
+        this.clock = clock;
+        this.random = new Random(seed);
+        target = Double.parseDouble(System.getProperty("disco.sim.target", "36.0"));
+        spread = Double.parseDouble(System.getProperty("disco.sim.spread", "0.1"));
+        noise = Integer.parseInt(System.getProperty("disco.sim.noise", "3"));
+        flicker = Double.parseDouble(System.getProperty("disco.sim.flicker", "0.02"));
+        misread = Double.parseDouble(System.getProperty("disco.sim.misread", "0.01"));
+        latencyNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(System.getProperty("disco.sim.latencyMs", "300")));
+        sleepNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(System.getProperty("disco.sim.sleepMs", "15000")));
+        frameMillis = Long.parseLong(System.getProperty("disco.sim.frameMs", "33"));
+
+        pressDriven = (gpio != null);
+        if(pressDriven) gpio.addPistonListener((extended) -> { if(extended) press(); });
+        setImageWidth(WIDTH);
+        setImageHeight(HEIGHT);
+    }
+
+    /**
+     * Simulate a press of the DUT's button: take a new reading.
+     */
+    private synchronized void press()
+    {
+        lastPressNanos = clock.nanoTime();
+        reading = (random.nextDouble() < misread ? "LO" :
+                   String.format(Locale.ROOT, "%.1f", target + random.nextGaussian() * spread));
+    }
+
+    /**
+     * @return Reading shown on the display right now; null if the display is dark
+     */
+    private synchronized String currentReading()
+    {
+        long now = clock.nanoTime();
+        if(!pressDriven)
+        {
+            //Free-running: a new reading every sleep period
+            if(now - lastPressNanos >= sleepNanos) press();
+            return reading;
+        }
+        long sincePress = now - lastPressNanos;
+        if(sincePress < latencyNanos || sincePress >= sleepNanos) return null;
+        return reading;
+    }
+
+    @Override
+    public void start() { }
+
+    @Override
+    public void stop() { }
+
+    @Override
+    public void trigger() { }
+
+    @Override
+    public void release()
+    {
+        if(frame != null) frame.release();
+        if(noiseFrame != null) noiseFrame.release();
+    }
+
+    @Override
+    public Frame grab()
+    {
+        clock.sleep(frameMillis);
+        String shown = currentReading();
+        boolean lit = (shown != null && random.nextDouble() >= flicker);
+
+        if(frame == null)
+        {
+            frame = new Mat(HEIGHT, WIDTH, CV_8UC3);
+            noiseFrame = new Mat(PANEL_AREA.height(), PANEL_AREA.width(), CV_8UC3);
+        }
+        frame.put(HOUSING);
+        rectangle(frame, PANEL_AREA, (shown != null ? PANEL : DARK_PANEL), -1, 8, 0);
+        if(lit) drawReading(frame, shown);
+
+        if(noise > 0)
+        {
+            //Uniform noise of +/- noise grey levels, over the display only:
+            //nothing looks at the rest of the frame, and rendering time counts against the simulated clock
+            Mat panel = frame.apply(PANEL_AREA);
+            randu(noiseFrame, new Mat(1, 1, CV_64F, new Scalar(0)), new Mat(1, 1, CV_64F, new Scalar(2 * noise + 1)));
+            add(panel, noiseFrame, panel);
+            panel.convertTo(panel, -1, 1.0, -noise);
+            panel.release();
+        }
+        return converter.convert(frame);
+    }
+
+    /**
+     * Draw a reading's lit segments.
+     *
+     * @param image     Frame to draw on
+     * @param shown     Digits and the letters L and O, with an optional decimal point
+     */
+    private static void drawReading(Mat image, String shown)
+    {
+        String characters = shown.replace(".", "");
+        int decimal = shown.indexOf('.');
+        if(decimal > 0)
+            fill(image, DIGIT_X + decimal * PITCH - 6, DIGIT_Y + DIGIT_HEIGHT - STROKE, STROKE, STROKE);
+
+        int half = DIGIT_HEIGHT / 2;
+        for(int i = 0; i < characters.length(); i++)
+        {
+            char character = characters.charAt(i);
+            int lit = (character == 'L' ? SEGMENTS_L :
+                       character == 'O' ? SEGMENTS[0] : SEGMENTS[character - '0']);
+            int x = DIGIT_X + i * PITCH, y = DIGIT_Y;
+            if((lit & 0x01) != 0) fill(image, x, y, DIGIT_WIDTH, STROKE);
+            if((lit & 0x02) != 0) fill(image, x + DIGIT_WIDTH - STROKE, y, STROKE, half);
+            if((lit & 0x04) != 0) fill(image, x + DIGIT_WIDTH - STROKE, y + half, STROKE, half);
+            if((lit & 0x08) != 0) fill(image, x, y + DIGIT_HEIGHT - STROKE, DIGIT_WIDTH, STROKE);
+            if((lit & 0x10) != 0) fill(image, x, y + half, STROKE, half);
+            if((lit & 0x20) != 0) fill(image, x, y, STROKE, half);
+            if((lit & 0x40) != 0) fill(image, x, y + half - STROKE / 2, DIGIT_WIDTH, STROKE);
+        }
+    }
+
+    /**
+     * Fill a rectangle with the segment colour.
+     */
+    private static void fill(Mat image, int x, int y, int width, int height)
+    { rectangle(image, new Point(x, y), new Point(x + width - 1, y + height - 1), SEGMENT, -1, 8, 0); }
+}
@@ -0,0 +1,228 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Simulated fixture GPIO, running on a virtual {@link FixtureClock}.
+ *
+ * Models the arm as a position between the lower limit (0.0) and the
+ * upper limit (1.0), which moves at a constant speed while the motor is
+ * enabled. The arm stops at a mechanical end-stop at either end, and each
+ * limit switch is closed while the arm is within a small zone of its end.
+ * The Run switch is set programmatically through {@link #setRunSwitch(boolean)}.
+ *
+ * Arm position is integrated lazily whenever an input or output is touched,
+ * so the simulation costs nothing while the fixture is idle.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.0.0, 18 Oct. 2026
+ */
+public class SimulatedFixtureGpio implements FixtureGpio
+{
+    /**
+     * Default time for the arm to travel from one end-stop to the other, in virtual milliseconds.
+     */
+    public static final long DEFAULT_TRAVEL_MILLIS = 3000;
+
+    /**
+     * Fraction of the full stroke, at each end, where the limit switch is closed.
+     */
+    private static final double LIMIT_ZONE = 0.02;
+
+    /**
+     * Clock the simulation runs on.
+     */
+    private final FixtureClock clock;
+
+    /**
+     * Virtual nanoseconds for the arm to travel the full stroke.
+     */
+    private final long travelNanos;
+
+    /**
+     * Arm position; 0.0 is the lower end-stop, 1.0 is the upper end-stop.
+     */
+    private double position = 0.5;
+
+    /**
+     * Clock time at which {@link #position} was last integrated.
+     */
+    private long lastUpdateNanos;
+
+    /**
+     * Whether the motor is enabled.
+     */
+    private boolean motorEnabled = false;
+
+    /**
+     * Whether the motor will move upwards when enabled.
+     */
+    private boolean directionUp = false;
+
+    /**
+     * Whether the piston is extended.
+     */
+    private boolean pistonExtended = false;
+
+    /**
+     * Number of times the piston has been extended.
+     */
+    private long pistonPressCount = 0;
+
+    /**
+     * Whether the Run switch is requesting a pause.
+     */
+    private volatile boolean runSwitchPaused = false;
+
+    /**
+     * Listener for Run switch edges.
+     */
+    private volatile Consumer<Boolean> runSwitchListener;
+
+    /**
+     * Listeners for piston extension and retraction.
+     */
+    private final List<Consumer<Boolean>> pistonListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create a simulated fixture with the default arm travel time.
+     *
+     * @param clock     Virtual clock to run the simulation on.
+     */
+    public SimulatedFixtureGpio(FixtureClock clock)
+    { this(clock, DEFAULT_TRAVEL_MILLIS); }
+
+    /**
+     * Create a simulated fixture.
+     *
+     * @param clock         Virtual clock to run the simulation on.
+     * @param travelMillis  Virtual milliseconds for the arm to travel the full stroke.
+     */
+    public SimulatedFixtureGpio(FixtureClock clock, long travelMillis)
+    {
+        this.clock = clock;
+        this.travelNanos = TimeUnit.MILLISECONDS.toNanos(travelMillis);
+        this.lastUpdateNanos = clock.nanoTime();
+    }
+
+    /**
+     * Integrate the arm position up to the current clock time.
+     */
+    private void advance()
+    {
+        long now = clock.nanoTime();
+        if(motorEnabled)
+        {
+            double travelled = (double)(now - lastUpdateNanos) / travelNanos;
+            position += (directionUp ? travelled : -travelled);
+            position = Math.max(0.0, Math.min(1.0, position));
+        }
+        lastUpdateNanos = now;
+    }
+
+    @Override
+    public synchronized void setMotorEnabled(boolean enabled)
+    {
+        advance();
+        motorEnabled = enabled;
+    }
+
+    @Override
+    public synchronized void setMotorDirectionUp(boolean up)
+    {
+        advance();
+        directionUp = up;
+    }
+
+    @Override
+    public void setPiston(boolean extended)
+    {
+        synchronized(this)
+        {
+            if(pistonExtended == extended) return;
+            pistonExtended = extended;
+            if(extended) pistonPressCount++;
+        }
+        for(Consumer<Boolean> listener : pistonListeners) listener.accept(extended);
+    }
+
+    @Override
+    public synchronized boolean isUpperLimit()
+    {
+        advance();
+        return position >= 1.0 - LIMIT_ZONE;
+    }
+
+    @Override
+    public synchronized boolean isLowerLimit()
+    {
+        advance();
+        return position <= LIMIT_ZONE;
+    }
+
+    @Override
+    public boolean isRunSwitchPaused()
+    { return runSwitchPaused; }
+
+    @Override
+    public void setRunSwitchListener(Consumer<Boolean> listener)
+    { runSwitchListener = listener; }
+
+    @Override
+    public FixtureClock getClock()
+    { return clock; }
+
+    @Override
+    public void shutdown()
+    {
+        setMotorEnabled(false);
+        setPiston(false);
+        runSwitchListener = null;
+    }
+
+    /**
+     * Flip the simulated Run switch.
+     * The listener is only called if the switch changes state.
+     *
+     * @param paused    true to request a pause; false to allow the test to continue
+     */
+    public void setRunSwitch(boolean paused)
+    {
+        if(runSwitchPaused == paused) return;
+        runSwitchPaused = paused;
+        Consumer<Boolean> listener = runSwitchListener;
+        if(listener != null) listener.accept(paused);
+    }
+
+    /**
+     * Register a listener for piston movement.
+     * The listener receives true when the piston extends, and false when it retracts.
+     *
+     * @param listener  Listener to add
+     */
+    public void addPistonListener(Consumer<Boolean> listener)
+    { pistonListeners.add(listener); }
+
+    /**
+     * Getter for the current arm position.
+     *
+     * @return Position between 0.0 (lower end-stop) and 1.0 (upper end-stop)
+     */
+    public synchronized double getArmPosition()
+    {
+        advance();
+        return position;
+    }
+
+    /**
+     * Getter for the number of piston presses so far.
+     *
+     * @return Number of times the piston has been extended
+     */
+    public synchronized long getPistonPressCount()
+    { return pistonPressCount; }
+}
@@ -0,0 +1,144 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Stage-level timing for the test loop.
+ *
+ * Each stage of an iteration records its duration into a
+ * {@link LatencyHistogram}. Usage is:
+ * <pre>
+ *     long start = StageTimer.start();
+ *     doWork();
+ *     StageTimer.stop(StageTimer.Stage.OCR, start);
+ * </pre>
+ * Durations are measured on the {@link FixtureClock}, so simulated runs
+ * report virtual time.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.1.0, 18 Oct. 2026
+ */
+public class StageTimer
+{
+    /**
+     * Histogram for each stage.
+     * Filled once, then only read, so no locking is needed.
+     */
+    private static final Map<Stage, LatencyHistogram> HISTOGRAMS = new EnumMap<>(Stage.class);
+
+    static
+    {
+        for(Stage stage : Stage.values()) HISTOGRAMS.put(stage, new LatencyHistogram());
+    }
+
+    /**
+     * Begin timing a stage.
+     *
+     * @return Start time, to be passed into {@link #stop(Stage, long)}
+     */
+    public static long start()
+    { return FixtureClock.current().nanoTime(); }
+
+    /**
+     * Finish timing a stage, and record its duration.
+     *
+     * @param stage     Stage being timed
+     * @param start     Value returned by {@link #start()}
+     *
+     * @return Duration of the stage, in nanoseconds
+     */
+    public static long stop(Stage stage, long start)
+    {
+        long duration = FixtureClock.current().nanoTime() - start;
+        HISTOGRAMS.get(stage).record(duration);
+        return duration;
+    }
+
+    /**
+     * Getter for the histogram of a given stage.
+     *
+     * @param stage     Stage to get the histogram for
+     *
+     * @return {@link LatencyHistogram} of the stage's durations
+     */
+    public static LatencyHistogram getHistogram(Stage stage)
+    { return HISTOGRAMS.get(stage); }
+
+    /**
+     * Clear all recorded timings.
+     */
+    public static void reset()
+    {
+        for(LatencyHistogram histogram : HISTOGRAMS.values()) histogram.reset();
+    }
+
+    /**
+     * Build a table of all stage timings.
+     *
+     * @param title     Title line of the table
+     *
+     * @return Multi-line summary, one line per stage that has been recorded
+     */
+    public static String summary(String title)
+    {
+        StringBuilder output = new StringBuilder();
+        output.append(title).append(System.lineSeparator());
+        output.append(String.format("%-16s %8s %10s %10s %10s %10s %10s",
+                      "Stage", "Count", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)", "Total (s)"));
+        for(Stage stage : Stage.values())
+        {
+            LatencyHistogram histogram = HISTOGRAMS.get(stage);
+            if(histogram.getCount() == 0) continue;
+            output.append(System.lineSeparator());
+            output.append(String.format("%-16s %8d %10.1f %10.1f %10.1f %10.1f %10.1f",
+                          stage.toString(),
+                          histogram.getCount(),
+                          histogram.getPercentile(50) / 1e6,
+                          histogram.getPercentile(95) / 1e6,
+                          histogram.getPercentile(99) / 1e6,
+                          histogram.getMax() / 1e6,
+                          histogram.getSum() / 1e9));
+        }
+        return output.toString();
+    }
+
+    /**
+     * Write a summary of all stage timings to the log.
+     *
+     * @param title     Title line of the summary
+     */
+    public static void logSummary(String title)
+    {
+        for(String line : summary(title).split(System.lineSeparator()))
+            ErrorLogging.logError(line);
+    }
+
+    /**
+     * Enum of the timed stages of an iteration.
+     */
+    public enum Stage
+    {
+        UP_MOVE("Up move"),
+        PRESS("Button press"),
+        DOWN_MOVE("Down move"),
+        DISPLAY_SETTLE("Display settle"),
+        GRAB("Frame grab"),
+        PROCESS("Crop/threshold"),
+        SAVE("Image save"),
+        OCR("OCR"),
+        JOURNAL_WRITE("Journal write"),
+        WORKBOOK_WRITE("Workbook export");
+
+        /**
+         * Human-readable name of the stage.
+         */
+        private final String print;
+
+        private Stage(String print) { this.print = print; }
+
+        @Override
+        public String toString(){ return this.print; }
+    }
+}
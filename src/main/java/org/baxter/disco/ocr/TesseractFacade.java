@@ -2,12 +2,16 @@ package org.baxter.disco.ocr;
 
 //Standard imports
 import java.io.File;
+import java.util.Locale;
 import java.util.Scanner;
 
 //Static import of image reader
+import static org.bytedeco.leptonica.global.leptonica.pixDestroy;
 import static org.bytedeco.leptonica.global.leptonica.pixRead;
+import static org.bytedeco.tesseract.global.tesseract.TessDeleteText;
 
 //Import Tesseract-capable image class
+import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.leptonica.PIX;
 
 //Import Tesseract API
@@ -18,18 +22,22 @@ import org.bytedeco.tesseract.TessBaseAPI;
  *
  * Wrapper around Tesseract API, feeding in defaults and necessary
  * information for this specific testing aparatus.
+ * Each thread gets its own Tesseract instance, as a single instance cannot
+ * be used by several threads at once; threads that read images and then
+ * exit must call {@link #releaseThread()} first, or their instance leaks.
+ * The training data can be changed with
+ * the <code>disco.ocr.language</code> and <code>disco.ocr.tessdata</code>
+ * system properties.
+ * Setting <code>disco.ocr.engine=sevenseg</code> reads images with
+ * {@link SevenSegmentRecognizer} instead; this is the default when the
+ * cameras are simulated.
  *
  * @author Blizzard Finnegan
- * @version 2.2.1, 27 Feb. 2023
+ * @version 2.9.0, 18 Oct. 2026
  */
 public class TesseractFacade
 {
     
-    /**
-     * API object for Tesseract.
-     */
-    private static TessBaseAPI api;
-
     /**
      * OCR engine mode.
      *
@@ -55,10 +63,26 @@ public class TesseractFacade
      */
     private static final String OCR_LANGUAGE_LOCATION = "tessdata";
 
-    static
+    /**
+     * Whether to read images with {@link SevenSegmentRecognizer} rather than Tesseract.
+     */
+    private static final boolean SEVEN_SEGMENT = System.getProperty("disco.ocr.engine",
+            System.getProperty("disco.camera", System.getProperty("disco.gpio", "")).equalsIgnoreCase("sim") ?
+            "sevenseg" : "tesseract").equalsIgnoreCase("sevenseg");
+
+    /**
+     * Confidence of the most recent read on each thread.
+     */
+    private static final ThreadLocal<Integer> lastConfidence = ThreadLocal.withInitial(() -> -1);
+
+    /**
+     * Training data used by the fixture. Built on first use, 
+     * so system properties set by a batch job are honoured.
+     */
+    private static class DefaultProfile
     {
-        api = new TessBaseAPI();
-        api.Init(OCR_LANGUAGE_LOCATION, OCR_LANGUAGE, OCR_ENGINE_MODE);
+        static final Profile PROFILE = new Profile(System.getProperty("disco.ocr.tessdata", OCR_LANGUAGE_LOCATION),
+                                                   System.getProperty("disco.ocr.language", OCR_LANGUAGE));
     }
 
     /** 
@@ -69,15 +93,87 @@ public class TesseractFacade
      */
     public static double imageToDouble(File file)
     {
-        double output = Double.NEGATIVE_INFINITY;
+        FixtureEvents.Ocr event = new FixtureEvents.Ocr();
+        event.begin();
+        double output = parseReading(imageToText(file));
+        event.image = file.getName();
+        event.value = output;
+        event.confidence = lastConfidence.get();
+        event.commit();
+        return output;
+    }
+
+    /**
+     * Read the text in an image file, without interpreting it.
+     *
+     * @param file  File object of the image to be parsed by Tesseract.
+     * @return Text read by Tesseract, trimmed; empty if the image cannot be read
+     */
+    public static String imageToText(File file)
+    {
+        if(SEVEN_SEGMENT)
+        {
+            long start = StageTimer.start();
+            String output = "";
+            SevenSegmentRecognizer.Reading reading = SevenSegmentRecognizer.read(file);
+            if(reading == null) ErrorLogging.logError("OCR ERROR!!! - Unable to read image " + file.getPath());
+            else output = reading.text;
+            lastConfidence.set(reading == null ? -1 : reading.confidence);
+            StageTimer.stop(StageTimer.Stage.OCR, start);
+            return output;
+        }
+        return imageToText(file, DefaultProfile.PROFILE);
+    }
 
+    /**
+     * Read the text in an image file with Tesseract, using given training data.
+     * Used by the OCR benchmarks, to compare training data on the fixture's own code path.
+     *
+     * @param file      File object of the image to be parsed by Tesseract.
+     * @param profile   Training data to read with
+     * @return Text read by Tesseract, trimmed; empty if the image cannot be read
+     */
+    static String imageToText(File file, Profile profile)
+    {
+        long start = StageTimer.start();
+        String output = "";
         PIX importedImage = pixRead(file.getAbsolutePath());
-        api.SetImage(importedImage);
-        String stringOutput = api.GetUTF8Text().getString();
+        if(importedImage == null)
+        {
+            ErrorLogging.logError("OCR ERROR!!! - Unable to read image " + file.getPath());
+            lastConfidence.set(-1);
+            return output;
+        }
+        TessBaseAPI threadApi = profile.threadApi();
+        threadApi.SetImage(importedImage);
+        BytePointer text = threadApi.GetUTF8Text();
+        if(text != null)
+        {
+            output = text.getString().trim();
+            TessDeleteText(text);
+        }
+        lastConfidence.set(threadApi.MeanTextConf());
+        threadApi.Clear();
+        pixDestroy(importedImage);
+        StageTimer.stop(StageTimer.Stage.OCR, start);
+        return output;
+    }
 
+    /**
+     * Interpret text read from the DUT as a temperature.
+     * Readings of 200 or above are assumed to have lost their decimal point,
+     * and are divided by 10.
+     *
+     * @param stringOutput  Text read by Tesseract
+     * @return Double, as read from the text. Anomalous data returns Double.NEGATIVE_INFINITY
+     */
+    public static double parseReading(String stringOutput)
+    {
+        double output = Double.NEGATIVE_INFINITY;
         if(!stringOutput.isEmpty())
         {
-            try( Scanner sc = new Scanner(stringOutput.trim()); )
+            //The DUT always shows a decimal point, whatever the system locale
+            try( Scanner sc = new Scanner(stringOutput.trim()).useLocale(Locale.ROOT); )
             {
                 if(sc.hasNextDouble()) 
                 {
@@ -101,4 +197,91 @@ public class TesseractFacade
         }
         return output;
     }
+
+    /**
+     * Release the calling thread's Tesseract instance, if it has one.
+     * Threads that use this class and then exit must call this first.
+     */
+    public static void releaseThread()
+    { DefaultProfile.PROFILE.releaseThread(); }
+
+    /**
+     * Getter for the confidence of the most recent {@link #imageToDouble(File)} call on this thread.
+     *
+     * @return Tesseract's mean text confidence (0-100); -1 if nothing has been read
+     */
+    public static int getLastConfidence()
+    { return lastConfidence.get(); }
+
+    /**
+     * Tesseract training data, and the instance reading with it on each thread.
+     * Each thread's instance is created on its first read, and must be released
+     * with {@link #releaseThread()} before the thread exits.
+     */
+    static final class Profile
+    {
+        /**
+         * Directory holding the training data.
+         */
+        private final String location;
+
+        /**
+         * Training data name.
+         */
+        private final String language;
+
+        /**
+         * API object for Tesseract, for each thread.
+         */
+        private final ThreadLocal<TessBaseAPI> api = new ThreadLocal<>();
+
+        /**
+         * @param location  Directory holding the training data
+         * @param language  Training data name
+         */
+        Profile(String location, String language)
+        {
+            this.location = location;
+            this.language = language;
+        }
+
+        /**
+         * Get the calling thread's instance, creating and initialising it if needed.
+         *
+         * @return Initialised API object
+         */
+        private TessBaseAPI threadApi()
+        {
+            TessBaseAPI output = api.get();
+            if(output != null) return output;
+            output = new TessBaseAPI();
+            if(output.Init(location, language, OCR_ENGINE_MODE) != 0)
+                ErrorLogging.logError("OCR ERROR!!! - Unable to load training data " + language + " from " + location);
+            api.set(output);
+            return output;
+        }
+
+        /**
+         * Release the calling thread's instance, if it has one.
+         */
+        void releaseThread()
+        {
+            TessBaseAPI threadApi = api.get();
+            if(threadApi == null) return;
+            threadApi.End();
+            api.remove();
+        }
+
+        /**
+         * @return Directory holding the training data
+         */
+        String getLocation()
+        { return location; }
+
+        /**
+         * @return Training data name
+         */
+        String getLanguage()
+        { return language; }
+    }
 }
@@ -0,0 +1,150 @@
+package org.baxter.disco.ocr;
+
+//Standard imports
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+//JUnit imports
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Round-trip tests for {@link ResultJournal}.
+ * Malformed lines are collected rather than logged, so these tests never
+ * load {@link ErrorLogging}, which would create log files and take over System.err.
+ *
+ * @author Blizzard Finnegan
+ * @version 1.1.0, 18 Oct. 2026
+ */
+public class ResultJournalTest
+{
+    /**
+     * Directory for the journals written by each test.
+     */
+    @TempDir
+    File directory;
+
+    /**
+     * Warnings about malformed lines, from the last read.
+     */
+    private final List<String> warnings = new ArrayList<>();
+
+    /**
+     * Build a record with the given text fields.
+     */
+    private static ResultJournal.Record record(int iteration, String camera, String serial, String imagePath)
+    {
+        return new ResultJournal.Record(iteration, camera, serial, 9.5, 87, imagePath,
+                                        Instant.parse("2026-10-18T12:00:00Z"),
+                                        Instant.parse("2026-10-18T12:00:01.250Z"));
+    }
+
+    /**
+     * Read every record in a journal, collecting any warnings.
+     */
+    private List<ResultJournal.Record> readAll(File journalFile) throws IOException
+    {
+        List<ResultJournal.Record> records = new ArrayList<>();
+        warnings.clear();
+        ResultJournal.read(journalFile, records::add, warnings::add);
+        return records;
+    }
+
+    /**
+     * Check that two records hold the same fields.
+     */
+    private static void assertSameRecord(ResultJournal.Record expected, ResultJournal.Record actual)
+    {
+        assertEquals(expected.getIteration(), actual.getIteration());
+        assertEquals(expected.getCamera(), actual.getCamera());
+        assertEquals(expected.getSerial(), actual.getSerial());
+        assertEquals(expected.getValue(), actual.getValue());
+        assertEquals(expected.getConfidence(), actual.getConfidence());
+        assertEquals(expected.getImagePath(), actual.getImagePath());
+        assertEquals(expected.getCaptured(), actual.getCaptured());
+        assertEquals(expected.getWritten(), actual.getWritten());
+    }
+
+    @Test
+    public void roundTripsSpecialCharacters() throws IOException
+    {
+        File journalFile = new File(directory, "results.csv");
+        List<ResultJournal.Record> written = List.of(
+            record(1, "cam,left", "SN \"42\"", "images/a.png"),
+            record(1, "cam\nright", "", "images/b,\"c\".png"),
+            record(2, "Kamera-\u00fc", "\u03a3-7\r\n", "images/d.png"));
+
+        try(ResultJournal journal = new ResultJournal(journalFile))
+        {
+            journal.append(written.subList(0, 2));
+            journal.append(written.subList(2, 3));
+        }
+
+        List<ResultJournal.Record> read = readAll(journalFile);
+        assertEquals(List.of(), warnings);
+        assertEquals(written.size(), read.size());
+        for(int i = 0; i < written.size(); i++)
+            assertSameRecord(written.get(i), read.get(i));
+    }
+
+    @Test
+    public void skipsTruncatedLastLine() throws IOException
+    {
+        File journalFile = new File(directory, "results.csv");
+        ResultJournal.Record complete = record(1, "cam0", "SN1", "images/a.png");
+        try(ResultJournal journal = new ResultJournal(journalFile))
+        { journal.append(List.of(complete)); }
+
+        //Simulate a power loss part way through the next record, inside a quoted field
+        String partial = record(2, "cam0", "SN \"1\"", "images/b.png").toCsv();
+        try(Writer writer = new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8))
+        { writer.write(partial.substring(0, partial.indexOf('"') + 3)); }
+
+        List<ResultJournal.Record> read = readAll(journalFile);
+        assertEquals(1, warnings.size());
+        assertEquals(1, read.size());
+        assertSameRecord(complete, read.get(0));
+
+        //Records appended after reopening must not be swallowed by the open quote
+        ResultJournal.Record next = record(2, "cam0", "SN1", "images/c.png");
+        try(ResultJournal journal = new ResultJournal(journalFile))
+        { journal.append(List.of(next)); }
+
+        read = readAll(journalFile);
+        assertEquals(1, warnings.size());
+        assertEquals(2, read.size());
+        assertSameRecord(complete, read.get(0));
+        assertSameRecord(next, read.get(1));
+    }
+
+    @Test
+    public void truncateKeepsEarlierIterations() throws IOException
+    {
+        File journalFile = new File(directory, "results.csv");
+        List<ResultJournal.Record> first = List.of(record(1, "cam0", "SN1", "images/a.png"),
+                                                   record(1, "cam1", "SN2", "images/b.png"));
+        try(ResultJournal journal = new ResultJournal(journalFile))
+        {
+            journal.append(first);
+            journal.append(List.of(record(2, "cam0", "SN1", "images/c.png")));
+        }
+
+        assertEquals(1, ResultJournal.truncate(journalFile, 1, warnings::add));
+        assertEquals(0, ResultJournal.truncate(journalFile, 1, warnings::add));
+        assertEquals(List.of(), warnings);
+
+        List<ResultJournal.Record> read = readAll(journalFile);
+        assertEquals(first.size(), read.size());
+        for(int i = 0; i < first.size(); i++)
+            assertSameRecord(first.get(i), read.get(i));
+    }
+}